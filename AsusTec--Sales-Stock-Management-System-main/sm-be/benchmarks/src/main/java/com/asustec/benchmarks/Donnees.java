@@ -0,0 +1,74 @@
+package com.asustec.benchmarks;
+
+import com.asustec.gestion_vente.dto.LigneFactureDto;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Jeux de données déterministes (graine fixe), de la forme renvoyée par les trois services.
+ */
+public final class Donnees {
+
+    private static final long GRAINE = 42;
+
+    private Donnees() {
+    }
+
+    public static List<ProduitDto> produits(int n) {
+        SplittableRandom rnd = new SplittableRandom(GRAINE);
+        List<ProduitDto> produits = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            ProduitDto p = new ProduitDto();
+            p.setCodepdt(i);
+            p.setNompdt("Produit " + i);
+            p.setDescpdt("Description du produit " + i + ", catégorie " + (i % 40));
+            p.setPrixpdt(100 + rnd.nextInt(100_000));
+            produits.add(p);
+        }
+        return produits;
+    }
+
+    // Une ligne de stock pour 9 produits sur 10, comme un catalogue où tout n'est pas stocké
+    public static List<ProduitStockDto> stocks(int n) {
+        SplittableRandom rnd = new SplittableRandom(GRAINE);
+        List<ProduitStockDto> stocks = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            if (i % 10 == 0) {
+                continue;
+            }
+            ProduitStockDto s = new ProduitStockDto();
+            s.setCodestock(i);
+            s.setCodepdt(i);
+            s.setQtepdt(rnd.nextInt(500));
+            s.setVersion((long) rnd.nextInt(1_000));
+            stocks.add(s);
+        }
+        return stocks;
+    }
+
+    public static List<LigneFactureDto> lignes(int n) {
+        SplittableRandom rnd = new SplittableRandom(GRAINE);
+        LocalDate debut = LocalDate.of(2025, 1, 1);
+        List<LigneFactureDto> lignes = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            LigneFactureDto l = new LigneFactureDto();
+            int prix = 100 + rnd.nextInt(100_000);
+            int qte = 1 + rnd.nextInt(5);
+            l.setCodecmd(i);
+            l.setClient("client-" + rnd.nextInt(2_000));
+            l.setCodepdt(1 + rnd.nextInt(50_000));
+            l.setNompdt("Produit " + l.getCodepdt());
+            l.setPrixpdt(prix);
+            l.setQtecmd(qte);
+            l.setTotal(prix * qte);
+            l.setDatecmd(debut.plusDays(rnd.nextInt(365)));
+            lignes.add(l);
+        }
+        return lignes;
+    }
+}
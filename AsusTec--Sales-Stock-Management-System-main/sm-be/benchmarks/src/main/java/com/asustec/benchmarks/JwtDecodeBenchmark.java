@@ -0,0 +1,64 @@
+package com.asustec.benchmarks;
+
+import com.asustec.gestion_vente.security.JwtConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Décodage d'un jeton de /auth/login par le JwtDecoder de JwtConfig : vérification HS256
+ * complète à chaque appel (cache désactivé) ou jeton déjà vérifié servi par le cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+    private static final String SECRET = "sm-be-2025-super-secure-jwt-secret-key-very-long!!";
+
+    private JwtDecoder sansCache;
+    private JwtDecoder avecCache;
+    private String token;
+
+    @Setup
+    public void preparer() throws ReflectiveOperationException {
+        JwtConfig config = new JwtConfig();
+        Field secret = JwtConfig.class.getDeclaredField("jwtSecret");
+        secret.setAccessible(true);
+        secret.set(config, SECRET);
+
+        sansCache = config.jwtDecoder(0, new SimpleMeterRegistry());
+        avecCache = config.jwtDecoder(10_000, new SimpleMeterRegistry());
+
+        // mêmes claims et en-tête que AuthController
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("sm-be")
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofHours(2)))
+                .subject("admin")
+                .claim("role", "ADMIN")
+                .build();
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).keyId("sm-be-hs256").build();
+        token = config.jwtEncoder().encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+
+    @Benchmark
+    public Jwt verificationComplete() {
+        return sansCache.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cache() {
+        return avecCache.decode(token);
+    }
+}
@@ -0,0 +1,74 @@
+package com.asustec.benchmarks;
+
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import com.asustec.gestion_vente.service.CatalogueCache;
+import com.asustec.gestion_vente.service.CommercialClient;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche du produit commandé dans passerCommande : CatalogueCache.find, comparé au
+ * parcours de la liste complète fait auparavant à chaque commande.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RechercheProduitBenchmark {
+
+    private static final String AUTH = "Bearer benchmark";
+
+    @Param({"1000", "10000", "100000"})
+    private int produits;
+
+    private List<ProduitDto> liste;
+    private CatalogueCache catalogue;
+    private int[] codes;
+
+    @Setup
+    public void preparer() {
+        liste = Donnees.produits(produits);
+        CommercialClient commercial = Mockito.mock(CommercialClient.class);
+        Mockito.when(commercial.getAllProduits(AUTH)).thenReturn(liste);
+        ServiceTokenProvider serviceToken = Mockito.mock(ServiceTokenProvider.class);
+        Mockito.when(serviceToken.authorizationHeader()).thenReturn(AUTH);
+        // ttl long : aucun rechargement pendant la mesure
+        catalogue = new CatalogueCache(commercial, serviceToken, Schedulers.boundedElastic(),
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofSeconds(5), produits);
+        catalogue.findAll(AUTH);
+
+        SplittableRandom rnd = new SplittableRandom(7);
+        codes = new int[1024];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = 1 + rnd.nextInt(produits);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Curseur {
+        int i;
+    }
+
+    @Benchmark
+    public Optional<ProduitDto> cache(Curseur c) {
+        return catalogue.find(codes[c.i++ & 1023], AUTH);
+    }
+
+    @Benchmark
+    public Optional<ProduitDto> parcoursListe(Curseur c) {
+        Integer code = codes[c.i++ & 1023];
+        return liste.stream()
+                .filter(p -> p.getCodepdt().equals(code))
+                .findFirst();
+    }
+}
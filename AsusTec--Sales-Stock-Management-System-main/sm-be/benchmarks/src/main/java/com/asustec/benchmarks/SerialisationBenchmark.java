@@ -0,0 +1,109 @@
+package com.asustec.benchmarks;
+
+import com.asustec.commun.cbor.MappersCbor;
+import com.asustec.gestion_vente.dto.LigneFactureDto;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Écriture et lecture Jackson des listes échangées entre services : catalogue, stock et
+ * lignes de facture, en JSON et en CBOR (MappersCbor, comme en production). La taille de
+ * chaque corps, brute et gzip, est affichée à la préparation de chaque combinaison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerialisationBenchmark {
+
+    private static final TypeReference<List<ProduitDto>> PRODUITS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<ProduitStockDto>> STOCKS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<LigneFactureDto>> LIGNES = new TypeReference<>() {
+    };
+
+    @Param({"1000", "10000", "50000", "100000"})
+    private int lignes;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private List<ProduitDto> produits;
+    private List<ProduitStockDto> stocks;
+    private List<LigneFactureDto> factures;
+    private byte[] produitsEncodes;
+    private byte[] stocksEncodes;
+    private byte[] facturesEncodees;
+
+    @Setup
+    public void preparer() throws IOException {
+        // mêmes réglages que l'ObjectMapper de Spring Boot (dates ISO-8601)
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper = "cbor".equals(format) ? MappersCbor.reponses(builder) : builder.build();
+
+        produits = Donnees.produits(lignes);
+        stocks = Donnees.stocks(lignes);
+        factures = Donnees.lignes(lignes);
+        produitsEncodes = mapper.writeValueAsBytes(produits);
+        stocksEncodes = mapper.writeValueAsBytes(stocks);
+        facturesEncodees = mapper.writeValueAsBytes(factures);
+        System.out.printf("%n%s, %d lignes : produits %d octets (gzip %d), stocks %d (gzip %d), factures %d (gzip %d)%n",
+                format, lignes, produitsEncodes.length, gzip(produitsEncodes), stocksEncodes.length, gzip(stocksEncodes),
+                facturesEncodees.length, gzip(facturesEncodees));
+    }
+
+    // taille transférée avec server.compression (niveau par défaut)
+    private static int gzip(byte[] corps) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(sortie)) {
+            gz.write(corps);
+        }
+        return sortie.size();
+    }
+
+    @Benchmark
+    public byte[] ecrireProduits() throws IOException {
+        return mapper.writeValueAsBytes(produits);
+    }
+
+    @Benchmark
+    public List<ProduitDto> lireProduits() throws IOException {
+        return mapper.readValue(produitsEncodes, PRODUITS);
+    }
+
+    @Benchmark
+    public byte[] ecrireStocks() throws IOException {
+        return mapper.writeValueAsBytes(stocks);
+    }
+
+    @Benchmark
+    public List<ProduitStockDto> lireStocks() throws IOException {
+        return mapper.readValue(stocksEncodes, STOCKS);
+    }
+
+    @Benchmark
+    public byte[] ecrireFactures() throws IOException {
+        return mapper.writeValueAsBytes(factures);
+    }
+
+    @Benchmark
+    public List<LigneFactureDto> lireFactures() throws IOException {
+        return mapper.readValue(facturesEncodees, LIGNES);
+    }
+}
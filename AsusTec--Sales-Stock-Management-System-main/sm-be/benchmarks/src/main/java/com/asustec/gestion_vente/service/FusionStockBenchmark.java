@@ -0,0 +1,41 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.benchmarks.Donnees;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fusion catalogue + stock de getProduitsAvecStock : toMap avec Integer::sum, puis
+ * qteStock posé sur chaque produit. Dans le paquet de VenteService, dont appliquerStock
+ * n'est visible que du paquet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusionStockBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int produits;
+
+    private List<ProduitDto> catalogue;
+    private List<ProduitStockDto> stocks;
+
+    @Setup
+    public void preparer() {
+        catalogue = Donnees.produits(produits);
+        stocks = Donnees.stocks(produits);
+    }
+
+    @Benchmark
+    public List<ProduitDto> appliquerStock() {
+        VenteService.appliquerStock(catalogue, stocks);
+        return catalogue;
+    }
+}
@@ -0,0 +1,137 @@
+package com.asustec.commun.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Derniers corps servis pour une liste, gardés tant que la version de la table ne change pas.
+ * <p>
+ * Une lecture à version inchangée ne touche ni JPA ni Jackson : elle renvoie les octets déjà
+ * sérialisés, en JSON ou en CBOR selon Accept, et compressés si le client accepte gzip. La
+ * réponse porte l'ETag de la version et du format ; Spring répond 304 sans corps quand il
+ * correspond à If-None-Match.
+ */
+public class CorpsEnCache {
+
+    // en dessous, gzip ne vaut pas l'en-tête
+    private static final int GZIP_MIN = 1024;
+
+    private final VersionTable version;
+    private final ObjectMapper json;
+    private final ObjectMapper cbor;
+    private volatile Contenu contenu;
+
+    public CorpsEnCache(VersionTable version, ObjectMapper json, ObjectMapper cbor) {
+        this.version = version;
+        this.json = json;
+        this.cbor = cbor;
+    }
+
+    public ResponseEntity<byte[]> reponse(Supplier<?> chargeur, String accept, String acceptEncoding) {
+        Format format = accept != null && accept.contains(Format.CBOR.type.toString()) ? Format.CBOR : Format.JSON;
+        Contenu c = contenu(chargeur);
+        Corps corps = c.corps.computeIfAbsent(format, f -> serialiser(c, f));
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip") && corps.octets.length >= GZIP_MIN;
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(corps.etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(format.type)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(corps.gzip());
+        }
+        return builder.body(corps.octets);
+    }
+
+    private Contenu contenu(Supplier<?> chargeur) {
+        Contenu c = contenu;
+        if (c != null && c.version == version.courante()) {
+            return c;
+        }
+        synchronized (this) {
+            // version lue avant le chargement : une écriture concurrente rendra ce contenu périmé
+            long v = version.courante();
+            c = contenu;
+            if (c != null && c.version == v) {
+                return c;
+            }
+            c = new Contenu(v, chargeur.get());
+            contenu = c;
+            return c;
+        }
+    }
+
+    // un ETag par représentation : "instance-version" et "instance-version-cbor"
+    private Corps serialiser(Contenu c, Format format) {
+        ObjectMapper mapper = format == Format.CBOR ? cbor : json;
+        try {
+            return new Corps(version.etag(c.version, format.variante), mapper.writeValueAsBytes(c.valeur));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private enum Format {
+        JSON(MediaType.APPLICATION_JSON, null),
+        CBOR(MediaType.APPLICATION_CBOR, "cbor");
+
+        final MediaType type;
+        final String variante;
+
+        Format(MediaType type, String variante) {
+            this.type = type;
+            this.variante = variante;
+        }
+    }
+
+    // Liste chargée pour une version, sérialisée à la première demande de chaque format
+    private static final class Contenu {
+        final long version;
+        final Object valeur;
+        final ConcurrentMap<Format, Corps> corps = new ConcurrentHashMap<>();
+
+        Contenu(long version, Object valeur) {
+            this.version = version;
+            this.valeur = valeur;
+        }
+    }
+
+    private static final class Corps {
+        final String etag;
+        final byte[] octets;
+        private volatile byte[] gzip;
+
+        Corps(String etag, byte[] octets) {
+            this.etag = etag;
+            this.octets = octets;
+        }
+
+        byte[] gzip() {
+            byte[] g = gzip;
+            if (g == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(octets.length / 4);
+                try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+                    zip.write(octets);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                g = out.toByteArray();
+                gzip = g;
+            }
+            return g;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.asustec.commun.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numéro de version d'une table, incrémenté par les chemins d'écriture après validation.
+ * <p>
+ * Le compteur vit en mémoire : il est préfixé par un identifiant tiré au démarrage pour
+ * qu'un ETag d'une exécution précédente ne soit jamais reconnu. Les écritures faites hors
+ * de ce processus (autre instance, SQL direct) ne sont pas vues.
+ */
+public class VersionTable {
+
+    private final String instance = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+
+    public long courante() {
+        return version.get();
+    }
+
+    public void incrementer() {
+        version.incrementAndGet();
+    }
+
+    public String etag(long version, String variante) {
+        return "\"" + instance + "-" + version + (variante == null ? "" : "-" + variante) + "\"";
+    }
+}
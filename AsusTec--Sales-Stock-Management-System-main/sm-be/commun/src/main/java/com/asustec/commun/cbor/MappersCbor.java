@@ -0,0 +1,30 @@
+package com.asustec.commun.cbor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * ObjectMapper CBOR des échanges entre services, sur les réglages Jackson de Spring Boot :
+ * celui des réponses (gestion-commercial, gestion-stock) et celui qui les lit (gestion-vente).
+ * <p>
+ * En réponse, les noms de champs répétés à chaque ligne sont écrits une fois puis référencés
+ * (STRINGREF) ; le lecteur résout ces références sans réglage particulier.
+ */
+public final class MappersCbor {
+
+    private MappersCbor() {
+    }
+
+    public static ObjectMapper reponses(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(CBORFactory.builder()
+                        .enable(CBORGenerator.Feature.STRINGREF)
+                        .build())
+                .build();
+    }
+
+    public static ObjectMapper lecture(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory()).build();
+    }
+}
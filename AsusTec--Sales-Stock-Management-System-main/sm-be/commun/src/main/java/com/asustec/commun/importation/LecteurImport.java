@@ -0,0 +1,277 @@
+package com.asustec.commun.importation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lecture ligne à ligne d'un fichier d'import (CSV ou NDJSON), sans le charger en mémoire.
+ * <p>
+ * CSV : première ligne d'en-tête (noms de colonnes, casse ignorée), séparateur {@code ,} ou
+ * {@code ;} déduit de l'en-tête, champs entre guillemets à la RFC 4180 (guillemets doublés,
+ * sauts de ligne possibles). NDJSON : un objet par ligne. Une ligne illisible donne un
+ * enregistrement en erreur, la lecture continue à la suivante.
+ */
+public class LecteurImport implements Closeable {
+
+    public enum Format { CSV, NDJSON }
+
+    private final Reader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    // tampon de lecture : Reader.read() caractère par caractère prend un verrou à chaque appel
+    private final char[] tampon = new char[64 * 1024];
+    private int position;
+    private int fin;
+
+    private List<String> entete;
+    private char separateur = ',';
+    // numéro de la dernière ligne physique lue, et de la première de l'enregistrement en cours
+    private long ligne;
+    private long debut;
+
+    public LecteurImport(InputStream in, Format format, ObjectMapper objectMapper) {
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Enregistrement suivant, ou null en fin de fichier.
+     */
+    public Enregistrement suivant() throws IOException {
+        return format == Format.CSV ? suivantCsv() : suivantJson();
+    }
+
+    private Enregistrement suivantJson() throws IOException {
+        String texte;
+        do {
+            texte = lireLigne();
+            if (texte == null) {
+                return null;
+            }
+            ligne++;
+        } while (texte.isBlank());
+        if (ligne == 1 && texte.charAt(0) == '\uFEFF') {
+            texte = texte.substring(1);
+        }
+
+        JsonNode objet;
+        try {
+            objet = objectMapper.readTree(texte);
+        } catch (JsonProcessingException e) {
+            return Enregistrement.erreur(ligne, "JSON invalide : " + e.getOriginalMessage());
+        }
+        if (objet == null || !objet.isObject()) {
+            return Enregistrement.erreur(ligne, "Objet JSON attendu");
+        }
+        Map<String, String> champs = new HashMap<>();
+        for (Map.Entry<String, JsonNode> e : objet.properties()) {
+            JsonNode v = e.getValue();
+            champs.put(e.getKey().toLowerCase(Locale.ROOT), v.isNull() ? null : v.isValueNode() ? v.asText() : v.toString());
+        }
+        return new Enregistrement(ligne, champs, null);
+    }
+
+    private Enregistrement suivantCsv() throws IOException {
+        if (entete == null) {
+            List<String> noms;
+            try {
+                noms = lireCsv();
+            } catch (GuillemetNonFerme e) {
+                throw new RuntimeException("En-tête CSV illisible : guillemet non fermé");
+            }
+            if (noms == null) {
+                return null;
+            }
+            entete = new ArrayList<>(noms.size());
+            for (String nom : noms) {
+                entete.add(nom.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<String> valeurs;
+        try {
+            valeurs = lireCsv();
+        } catch (GuillemetNonFerme e) {
+            return Enregistrement.erreur(debut, "Guillemet non fermé");
+        }
+        if (valeurs == null) {
+            return null;
+        }
+        if (valeurs.size() != entete.size()) {
+            return Enregistrement.erreur(debut, entete.size() + " colonnes attendues, " + valeurs.size() + " trouvées");
+        }
+        Map<String, String> champs = new HashMap<>();
+        for (int i = 0; i < valeurs.size(); i++) {
+            champs.put(entete.get(i), valeurs.get(i));
+        }
+        return new Enregistrement(debut, champs, null);
+    }
+
+    // Champs de la prochaine ligne non vide ; null en fin de fichier
+    private List<String> lireCsv() throws IOException {
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        boolean guillemets = false;
+        boolean vide = true;
+
+        int c;
+        while ((c = lire()) != -1) {
+            if (ligne == 0 && entete == null && vide && c == '\uFEFF') {
+                continue;
+            }
+            if (entreGuillemets) {
+                if (c == '"') {
+                    if (suivantEst('"')) {
+                        position++;
+                        champ.append('"');
+                    } else {
+                        entreGuillemets = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        ligne++;
+                    }
+                    champ.append((char) c);
+                }
+                continue;
+            }
+
+            if (c == '\r') {
+                continue;
+            }
+            if (c == '\n') {
+                ligne++;
+                if (vide) {
+                    continue;
+                }
+                champs.add(valeur(champ, guillemets));
+                return champs;
+            }
+            if (vide) {
+                debut = ligne + 1;
+                vide = false;
+            }
+            if (c == '"' && champ.isEmpty() && !guillemets) {
+                entreGuillemets = true;
+                guillemets = true;
+            } else if (entete == null && champs.isEmpty() && c == ';' && separateur == ',') {
+                // séparateur déduit du premier séparateur rencontré dans l'en-tête
+                separateur = ';';
+                champs.add(valeur(champ, guillemets));
+                champ.setLength(0);
+                guillemets = false;
+            } else if (c == separateur) {
+                champs.add(valeur(champ, guillemets));
+                champ.setLength(0);
+                guillemets = false;
+            } else {
+                champ.append((char) c);
+            }
+        }
+
+        if (entreGuillemets) {
+            throw new GuillemetNonFerme();
+        }
+        if (vide) {
+            return null;
+        }
+        // dernière ligne sans saut de ligne final
+        ligne++;
+        champs.add(valeur(champ, guillemets));
+        return champs;
+    }
+
+    private String lireLigne() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = lire()) != -1) {
+            if (c == '\n') {
+                return sb.toString();
+            }
+            if (c != '\r') {
+                sb.append((char) c);
+            }
+        }
+        return sb.isEmpty() ? null : sb.toString();
+    }
+
+    private int lire() throws IOException {
+        if (position == fin && !remplir()) {
+            return -1;
+        }
+        return tampon[position++];
+    }
+
+    private boolean suivantEst(char attendu) throws IOException {
+        return (position < fin || remplir()) && tampon[position] == attendu;
+    }
+
+    private boolean remplir() throws IOException {
+        int n = reader.read(tampon, 0, tampon.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        fin = n;
+        return true;
+    }
+
+    // champ vide sans guillemets : null ; "" : chaîne vide
+    private static String valeur(StringBuilder champ, boolean guillemets) {
+        return champ.isEmpty() && !guillemets ? null : champ.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class GuillemetNonFerme extends IOException {
+    }
+
+    public static final class Enregistrement {
+        private final long ligne;
+        private final Map<String, String> champs;
+        // null si la ligne a pu être lue
+        private final String erreur;
+
+        Enregistrement(long ligne, Map<String, String> champs, String erreur) {
+            this.ligne = ligne;
+            this.champs = champs;
+            this.erreur = erreur;
+        }
+
+        static Enregistrement erreur(long ligne, String message) {
+            return new Enregistrement(ligne, Map.of(), message);
+        }
+
+        public long getLigne() {
+            return ligne;
+        }
+
+        public String getErreur() {
+            return erreur;
+        }
+
+        public String champ(String nom) {
+            String v = champs.get(nom);
+            return v == null || v.isBlank() ? null : v.trim();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.asustec.commun.importation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'un import : compteurs et erreurs ligne par ligne, limitées à {@code maxErreurs}
+ * (au-delà, seul le compteur de rejets avance et {@code erreursTronquees} passe à true).
+ * Une ligne lue est importée (écrite en base), rejetée, ou remplacée par une ligne suivante
+ * du même produit ({@code doublons}).
+ */
+public class RapportImport {
+
+    private long lignes;
+    private long importees;
+    private long rejetees;
+    private long doublons;
+    private boolean erreursTronquees;
+    private long dureeMillis;
+    private List<Erreur> erreurs = new ArrayList<>();
+
+    private final int maxErreurs;
+
+    public RapportImport(int maxErreurs) {
+        this.maxErreurs = maxErreurs;
+    }
+
+    public void ligneLue() {
+        lignes++;
+    }
+
+    public void importees(int n) {
+        importees += n;
+    }
+
+    // ligne écartée au profit d'une ligne suivante du même produit, jamais écrite
+    public void doublon() {
+        doublons++;
+    }
+
+    public void rejeter(long ligne, String message) {
+        rejetees++;
+        if (erreurs.size() < maxErreurs) {
+            erreurs.add(new Erreur(ligne, message));
+        } else {
+            erreursTronquees = true;
+        }
+    }
+
+    public long getLignes() {
+        return lignes;
+    }
+
+    public long getImportees() {
+        return importees;
+    }
+
+    public long getRejetees() {
+        return rejetees;
+    }
+
+    public long getDoublons() {
+        return doublons;
+    }
+
+    public boolean isErreursTronquees() {
+        return erreursTronquees;
+    }
+
+    public long getDureeMillis() {
+        return dureeMillis;
+    }
+
+    public void setDureeMillis(long dureeMillis) {
+        this.dureeMillis = dureeMillis;
+    }
+
+    public List<Erreur> getErreurs() {
+        return erreurs;
+    }
+
+    public static class Erreur {
+
+        // numéro de ligne dans le fichier, en-tête CSV compris
+        private long ligne;
+        private String message;
+
+        public Erreur() {
+        }
+
+        public Erreur(long ligne, String message) {
+            this.ligne = ligne;
+            this.message = message;
+        }
+
+        public long getLigne() {
+            return ligne;
+        }
+
+        public void setLigne(long ligne) {
+            this.ligne = ligne;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
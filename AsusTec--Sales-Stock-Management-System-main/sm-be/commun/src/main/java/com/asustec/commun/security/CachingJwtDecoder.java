@@ -0,0 +1,123 @@
+package com.asustec.commun.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Garde les jetons déjà vérifiés jusqu'à leur expiration : un jeton revu n'est ni
+ * redécodé ni re-signé en HS256. Seuls les jetons acceptés par le décodeur délégué et
+ * portant un {@code exp} entrent dans le cache.
+ * <p>
+ * La table est indexée par l'empreinte SHA-256 du jeton, pas par le jeton lui-même : un
+ * vidage mémoire ne livre pas de jetons encore valides. Elle est bornée à
+ * {@code maxEntries} : une fois pleine, les jetons expirés sont retirés, puis la table est
+ * vidée si cela ne suffit pas.
+ * <p>
+ * Compteurs Micrometer : {@code asustec.jwt.cache} (tag {@code resultat} = hit, miss ou
+ * rejet), {@code asustec.jwt.cache.purges} et la jauge {@code asustec.jwt.cache.entrees}.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final Clock clock;
+    private final Map<String, Jwt> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rejets;
+    private final Counter purges;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, MeterRegistry registry) {
+        this(delegate, maxEntries, registry, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, int maxEntries, MeterRegistry registry, Clock clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.hits = compteur(registry, "hit");
+        this.misses = compteur(registry, "miss");
+        this.rejets = compteur(registry, "rejet");
+        this.purges = Counter.builder("asustec.jwt.cache.purges")
+                .description("Purges de la table des jetons pleine")
+                .register(registry);
+        Gauge.builder("asustec.jwt.cache.entrees", cache, Map::size)
+                .description("Jetons vérifiés en cache")
+                .register(registry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        Instant now = clock.instant();
+        String cle = empreinte(token);
+        Jwt connu = cache.get(cle);
+        if (connu != null) {
+            if (connu.getExpiresAt().isAfter(now)) {
+                hits.increment();
+                return connu;
+            }
+            cache.remove(cle, connu);
+        }
+
+        misses.increment();
+        Jwt jwt;
+        try {
+            jwt = delegate.decode(token);
+        } catch (JwtException e) {
+            rejets.increment();
+            throw e;
+        }
+
+        if (maxEntries > 0 && jwt.getExpiresAt() != null && jwt.getExpiresAt().isAfter(now)) {
+            if (cache.size() >= maxEntries) {
+                purger(now);
+            }
+            cache.put(cle, jwt);
+        }
+        return jwt;
+    }
+
+    Set<String> cles() {
+        return cache.keySet();
+    }
+
+    private void purger(Instant now) {
+        purges.increment();
+        cache.values().removeIf(jwt -> !jwt.getExpiresAt().isAfter(now));
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+    }
+
+    private static String empreinte(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 fait partie des algorithmes que toute JVM doit fournir
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter compteur(MeterRegistry registry, String resultat) {
+        return Counter.builder("asustec.jwt.cache")
+                .description("Jetons présentés au décodeur")
+                .tag("resultat", resultat)
+                .register(registry);
+    }
+}
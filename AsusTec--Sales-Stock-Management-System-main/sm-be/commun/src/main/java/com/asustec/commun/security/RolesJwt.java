@@ -0,0 +1,24 @@
+package com.asustec.commun.security;
+
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+/**
+ * Autorités tirées du claim {@code role} des jetons : ADMIN pour /auth/login, SERVICE pour
+ * le jeton de service de gestion-vente. Elles deviennent {@code ROLE_ADMIN} et
+ * {@code ROLE_SERVICE}, utilisables avec {@code hasRole} dans les SecurityConfig.
+ */
+public final class RolesJwt {
+
+    private RolesJwt() {
+    }
+
+    public static JwtAuthenticationConverter convertisseur() {
+        JwtGrantedAuthoritiesConverter roles = new JwtGrantedAuthoritiesConverter();
+        roles.setAuthoritiesClaimName("role");
+        roles.setAuthorityPrefix("ROLE_");
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(roles);
+        return converter;
+    }
+}
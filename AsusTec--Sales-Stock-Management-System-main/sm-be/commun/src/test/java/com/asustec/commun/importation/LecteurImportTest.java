@@ -0,0 +1,116 @@
+package com.asustec.commun.importation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LecteurImportTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvQuotedFieldsFollowRfc4180() throws IOException {
+        List<LecteurImport.Enregistrement> lus = lire(LecteurImport.Format.CSV, """
+                codepdt,nompdt,descpdt
+                1,"Clavier, AZERTY","dit ""pro""\"
+                2,"Souris
+                sans fil",
+                3,,""
+                """);
+
+        assertThat(lus).hasSize(3);
+        assertThat(lus.get(0).champ("nompdt")).isEqualTo("Clavier, AZERTY");
+        assertThat(lus.get(0).champ("descpdt")).isEqualTo("dit \"pro\"");
+        assertThat(lus.get(1).champ("nompdt")).isEqualTo("Souris\nsans fil");
+        assertThat(lus.get(1).champ("descpdt")).isNull();
+        assertThat(lus.get(2).champ("nompdt")).isNull();
+        // numéros de ligne physiques, en-tête compris : l'enregistrement 2 occupe les lignes 3 et 4
+        assertThat(lus).extracting(LecteurImport.Enregistrement::getLigne).containsExactly(2L, 3L, 5L);
+    }
+
+    @Test
+    void csvSemicolonSeparatorIsDetectedFromHeader() throws IOException {
+        List<LecteurImport.Enregistrement> lus = lire(LecteurImport.Format.CSV, """
+                CodePdt;QtePdt
+                7;"1,5"
+                8;12
+                """);
+
+        assertThat(lus).extracting(e -> e.champ("codepdt")).containsExactly("7", "8");
+        assertThat(lus.get(0).champ("qtepdt")).isEqualTo("1,5");
+    }
+
+    @Test
+    void byteOrderMarkIsSkipped() throws IOException {
+        List<LecteurImport.Enregistrement> csv = lire(LecteurImport.Format.CSV, "\uFEFFcodepdt,qtepdt\r\n1,2\r\n");
+        List<LecteurImport.Enregistrement> ndjson = lire(LecteurImport.Format.NDJSON, "\uFEFF{\"codepdt\": 1}\n");
+
+        assertThat(csv.get(0).champ("codepdt")).isEqualTo("1");
+        assertThat(ndjson.get(0).getErreur()).isNull();
+        assertThat(ndjson.get(0).champ("codepdt")).isEqualTo("1");
+    }
+
+    @Test
+    void csvLineErrorsDoNotStopTheFile() throws IOException {
+        List<LecteurImport.Enregistrement> lus = lire(LecteurImport.Format.CSV, """
+                codepdt,qtepdt
+                1,2,3
+
+                4,5
+                6,"7
+                """);
+
+        assertThat(lus).hasSize(3);
+        assertThat(lus.get(0).getLigne()).isEqualTo(2);
+        assertThat(lus.get(0).getErreur()).isEqualTo("2 colonnes attendues, 3 trouvées");
+        assertThat(lus.get(1).getErreur()).isNull();
+        assertThat(lus.get(1).getLigne()).isEqualTo(4);
+        assertThat(lus.get(2).getLigne()).isEqualTo(5);
+        assertThat(lus.get(2).getErreur()).isEqualTo("Guillemet non fermé");
+    }
+
+    @Test
+    void ndjsonLineErrorsDoNotStopTheFile() throws IOException {
+        List<LecteurImport.Enregistrement> lus = lire(LecteurImport.Format.NDJSON, """
+                {"codepdt": 1, "qtepdt": 2}
+                {"codepdt": 2,
+                [1, 2]
+
+                {"CodePdt": 3, "qtepdt": null, "tags": ["a"]}
+                """);
+
+        assertThat(lus).hasSize(4);
+        assertThat(lus.get(1).getErreur()).startsWith("JSON invalide");
+        assertThat(lus.get(2).getErreur()).isEqualTo("Objet JSON attendu");
+        assertThat(lus.get(3).getLigne()).isEqualTo(5);
+        assertThat(lus.get(3).champ("codepdt")).isEqualTo("3");
+        assertThat(lus.get(3).champ("qtepdt")).isNull();
+        assertThat(lus.get(3).champ("tags")).isEqualTo("[\"a\"]");
+    }
+
+    @Test
+    void unreadableCsvHeaderFailsTheImport() {
+        assertThatThrownBy(() -> lire(LecteurImport.Format.CSV, "\"codepdt,qtepdt\n1,2\n"))
+                .hasMessage("En-tête CSV illisible : guillemet non fermé");
+    }
+
+    private List<LecteurImport.Enregistrement> lire(LecteurImport.Format format, String contenu) throws IOException {
+        List<LecteurImport.Enregistrement> lus = new ArrayList<>();
+        try (LecteurImport lecteur = new LecteurImport(
+                new ByteArrayInputStream(contenu.getBytes(StandardCharsets.UTF_8)), format, objectMapper)) {
+            LecteurImport.Enregistrement e;
+            while ((e = lecteur.suivant()) != null) {
+                lus.add(e);
+            }
+        }
+        return lus;
+    }
+}
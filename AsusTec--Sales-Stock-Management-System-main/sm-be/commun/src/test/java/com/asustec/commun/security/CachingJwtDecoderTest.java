@@ -0,0 +1,130 @@
+package com.asustec.commun.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Jetons HS256 signés comme ceux de /auth/login : un jeton revu est servi par le cache,
+ * jamais au-delà de son exp, et un jeton rejeté n'y entre pas. Le gain de temps se voit sur
+ * le compteur hit de /actuator/prometheus, pas dans ce test.
+ */
+class CachingJwtDecoderTest {
+
+    private static final byte[] SECRET = "sm-be-2025-super-secure-jwt-secret-key-very-long!!".getBytes(StandardCharsets.UTF_8);
+
+    private final JwtDecoder nimbus = NimbusJwtDecoder
+            .withSecretKey(new SecretKeySpec(SECRET, "HmacSHA256"))
+            .macAlgorithm(MacAlgorithm.HS256)
+            .build();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger appels = new AtomicInteger();
+    private final JwtDecoder compteur = token -> {
+        appels.incrementAndGet();
+        return nimbus.decode(token);
+    };
+
+    @Test
+    void cachedTokenIsVerifiedOnce() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(compteur, 100, registry);
+        String token = jeton(Duration.ofHours(1));
+
+        Jwt premier = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertThat(second).isSameAs(premier);
+        assertThat(appels).hasValue(1);
+        assertThat(compte("hit")).isEqualTo(1);
+        assertThat(compte("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void cacheIsKeyedByTokenDigest() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(compteur, 100, registry);
+        String token = jeton(Duration.ofHours(1));
+        decoder.decode(token);
+
+        String empreinte = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        assertThat(decoder.cles()).containsExactly(empreinte);
+    }
+
+    @Test
+    void expiredEntryIsNotServed() {
+        String token = jeton(Duration.ofMinutes(10));
+        Clock apresExp = Clock.fixed(Instant.now().plus(Duration.ofMinutes(11)), ZoneOffset.UTC);
+        CachingJwtDecoder decoder = new CachingJwtDecoder(compteur, 100, registry, apresExp);
+
+        decoder.decode(token);
+        decoder.decode(token);
+
+        assertThat(appels).hasValue(2);
+        assertThat(decoder.cles()).isEmpty();
+        assertThat(registry.get("asustec.jwt.cache.entrees").gauge().value()).isZero();
+    }
+
+    @Test
+    void rejectedTokenIsNotCached() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(compteur, 100, registry);
+        String token = jeton(Duration.ofHours(1));
+        String falsifie = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> decoder.decode(falsifie)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(falsifie)).isInstanceOf(JwtException.class);
+
+        assertThat(appels).hasValue(2);
+        assertThat(compte("rejet")).isEqualTo(2);
+        assertThat(decoder.cles()).isEmpty();
+    }
+
+    @Test
+    void fullCacheStaysBounded() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(compteur, 10, registry);
+        for (int i = 0; i < 25; i++) {
+            decoder.decode(jeton(Duration.ofHours(1).plusSeconds(i)));
+        }
+
+        assertThat(decoder.cles().size()).isLessThanOrEqualTo(10);
+        assertThat(registry.get("asustec.jwt.cache.purges").counter().count()).isPositive();
+    }
+
+    private static String jeton(Duration ttl) {
+        OctetSequenceKey jwk = new OctetSequenceKey.Builder(SECRET)
+                .algorithm(JWSAlgorithm.HS256)
+                .keyID("sm-be-hs256")
+                .build();
+        JwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("sm-be")
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .subject("client")
+                .build();
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).keyId("sm-be-hs256").build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+
+    private double compte(String resultat) {
+        return registry.get("asustec.jwt.cache").tag("resultat", resultat).counter().count();
+    }
+}
@@ -0,0 +1,38 @@
+package com.asustec.commun.sql;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans PostgreSQL des QueryPlanTest des trois services (jar de test du module commun).
+ * <p>
+ * Le plan est celui de la requête de production, paramètres liés, avec les réglages par
+ * défaut du planificateur : chaque QueryPlanTest charge d'abord un volume réaliste et lance
+ * ANALYZE, le test échoue donc si PostgreSQL préfère un Seq Scan ou un tri à l'index prévu.
+ */
+public final class PlansRequetes {
+
+    private final JdbcTemplate jdbc;
+
+    public PlansRequetes(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public String plan(String sql, Object... args) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    /** {@code table} est lue par {@code index} ; les petites tables jointes peuvent être parcourues. */
+    public void assertIndexChoisi(String sql, String table, String index, Object... args) {
+        String plan = plan(sql, args);
+        assertThat(plan).as(plan).contains(index).doesNotContain("Seq Scan on " + table + " ");
+    }
+
+    /** Page par clé : l'index fournit l'ordre, aucune ligne n'est triée avant le LIMIT. */
+    public void assertPageSansTri(String sql, String index, Object... args) {
+        String plan = plan(sql, args);
+        assertThat(plan).as(plan).startsWith("Limit").contains(index)
+                .doesNotContain("Seq Scan").doesNotContain("Sort");
+    }
+}
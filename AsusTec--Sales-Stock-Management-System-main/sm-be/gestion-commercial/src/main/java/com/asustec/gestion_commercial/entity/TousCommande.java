@@ -7,8 +7,10 @@ import java.time.LocalDate;
 @Table(name = "tous_commandes")
 public class TousCommande {
 
+    // blocs de 50 identifiants par nextval (migration V3) : INSERT groupés en lots JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tous_commandes_codetouscmd_seq")
+    @SequenceGenerator(name = "tous_commandes_codetouscmd_seq", sequenceName = "tous_commandes_codetouscmd_seq", allocationSize = 50)
     private Integer codetouscmd;
 
     private Integer codecmd;
@@ -0,0 +1,103 @@
+package com.asustec.gestion_commercial.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Agrégat des ventes par jour et par produit, tenu à jour à chaque commande reçue.
+ */
+@Entity
+@Table(name = "ventes_jour_produit")
+@IdClass(VentesJourProduit.Cle.class)
+public class VentesJourProduit {
+
+    @Id
+    private LocalDate jour;
+
+    @Id
+    private Integer codepdt;
+
+    @Column(name = "nb_commandes")
+    private long nbCommandes;
+
+    private long quantite;
+
+    // quantité × prix du produit au moment de l'enregistrement
+    @Column(name = "chiffre_affaires")
+    private long chiffreAffaires;
+
+    public LocalDate getJour() {
+        return jour;
+    }
+
+    public void setJour(LocalDate jour) {
+        this.jour = jour;
+    }
+
+    public Integer getCodepdt() {
+        return codepdt;
+    }
+
+    public void setCodepdt(Integer codepdt) {
+        this.codepdt = codepdt;
+    }
+
+    public long getNbCommandes() {
+        return nbCommandes;
+    }
+
+    public void setNbCommandes(long nbCommandes) {
+        this.nbCommandes = nbCommandes;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public void setQuantite(long quantite) {
+        this.quantite = quantite;
+    }
+
+    public long getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+
+    public void setChiffreAffaires(long chiffreAffaires) {
+        this.chiffreAffaires = chiffreAffaires;
+    }
+
+    public static class Cle implements Serializable {
+
+        private LocalDate jour;
+        private Integer codepdt;
+
+        public Cle() {
+        }
+
+        public Cle(LocalDate jour, Integer codepdt) {
+            this.jour = jour;
+            this.codepdt = codepdt;
+        }
+
+        public LocalDate getJour() {
+            return jour;
+        }
+
+        public Integer getCodepdt() {
+            return codepdt;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cle c && Objects.equals(jour, c.jour) && Objects.equals(codepdt, c.codepdt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jour, codepdt);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.asustec.gestion_commercial.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Agrégat des ventes par mois et par client, tenu à jour à chaque commande reçue.
+ */
+@Entity
+@Table(name = "ventes_mois_client")
+@IdClass(VentesMoisClient.Cle.class)
+public class VentesMoisClient {
+
+    // premier jour du mois
+    @Id
+    private LocalDate mois;
+
+    // chaîne vide pour les commandes sans client
+    @Id
+    private String client;
+
+    @Column(name = "nb_commandes")
+    private long nbCommandes;
+
+    private long quantite;
+
+    // quantité × prix du produit au moment de l'enregistrement
+    @Column(name = "chiffre_affaires")
+    private long chiffreAffaires;
+
+    public LocalDate getMois() {
+        return mois;
+    }
+
+    public void setMois(LocalDate mois) {
+        this.mois = mois;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public void setClient(String client) {
+        this.client = client;
+    }
+
+    public long getNbCommandes() {
+        return nbCommandes;
+    }
+
+    public void setNbCommandes(long nbCommandes) {
+        this.nbCommandes = nbCommandes;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public void setQuantite(long quantite) {
+        this.quantite = quantite;
+    }
+
+    public long getChiffreAffaires() {
+        return chiffreAffaires;
+    }
+
+    public void setChiffreAffaires(long chiffreAffaires) {
+        this.chiffreAffaires = chiffreAffaires;
+    }
+
+    public static class Cle implements Serializable {
+
+        private LocalDate mois;
+        private String client;
+
+        public Cle() {
+        }
+
+        public Cle(LocalDate mois, String client) {
+            this.mois = mois;
+            this.client = client;
+        }
+
+        public LocalDate getMois() {
+            return mois;
+        }
+
+        public String getClient() {
+            return client;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cle c && Objects.equals(mois, c.mois) && Objects.equals(client, c.client);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mois, client);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.asustec.gestion_commercial.observation;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exporteur local : chaque span terminé est écrit sur le logger {@code asustec.traces},
+ * une ligne par span, avec l'identifiant de trace partagé par les trois services.
+ * Un appender logback sur ce logger suffit pour en faire un fichier.
+ */
+@Component
+public class JournalSpans extends SpanHandler {
+
+    private static final Logger journal = LoggerFactory.getLogger("asustec.traces");
+
+    private final boolean actif;
+
+    public JournalSpans(@Value("${asustec.traces.journal:false}") boolean actif) {
+        this.actif = actif;
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (actif && cause == Cause.FINISHED && journal.isInfoEnabled()) {
+            journal.info("trace={} span={} parent={} nom=\"{}\" kind={} dureeMicros={} tags={}{}",
+                    context.traceIdString(), context.spanIdString(), context.parentIdString(),
+                    span.name(), span.kind(), span.finishTimestamp() - span.startTimestamp(),
+                    span.tags(), span.error() == null ? "" : " erreur=" + span.error());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.asustec.gestion_commercial.observation;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Une observation {@code asustec.repository} autour de chaque appel de repository, Spring Data
+ * ou JDBC : un span enfant de la requête en cours et un timer par repository et méthode.
+ * <p>
+ * Le registre est résolu au premier appel : ce post-processeur est créé avant les beans de
+ * traçage et ne doit pas les instancier trop tôt.
+ */
+@Component
+public class RepositoryObservation implements BeanPostProcessor {
+
+    private final ObjectProvider<ObservationRegistry> registryProvider;
+    private volatile ObservationRegistry registry;
+
+    public RepositoryObservation(ObjectProvider<ObservationRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!estRepository(bean)) {
+            return bean;
+        }
+        MethodInterceptor mesure = invocation -> {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            String methode = invocation.getMethod().getName();
+            return Observation.createNotStarted("asustec.repository", registre())
+                    .contextualName(beanName + "." + methode)
+                    .lowCardinalityKeyValue("repository", beanName)
+                    .lowCardinalityKeyValue("methode", methode)
+                    .observeChecked(invocation::proceed);
+        };
+
+        // proxys Spring Data et @Repository déjà enveloppés pour la traduction des exceptions
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, mesure);
+            return bean;
+        }
+        ProxyFactory proxy = new ProxyFactory(bean);
+        proxy.setProxyTargetClass(proxy.getProxiedInterfaces().length == 0);
+        proxy.addAdvice(mesure);
+        return proxy.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static boolean estRepository(Object bean) {
+        return bean instanceof org.springframework.data.repository.Repository
+                || AnnotationUtils.findAnnotation(AopUtils.getTargetClass(bean), Repository.class) != null;
+    }
+
+    private ObservationRegistry registre() {
+        ObservationRegistry r = registry;
+        if (r == null) {
+            r = registryProvider.getIfAvailable(() -> ObservationRegistry.NOOP);
+            registry = r;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,118 @@
+package com.asustec.gestion_commercial.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mise à jour de ventes_jour_produit et ventes_mois_client, hors JPA.
+ * <p>
+ * Chaque mois est protégé par un verrou consultatif de transaction : les enregistrements
+ * de commandes le prennent en partagé, la reconstruction d'un mois en exclusif. Une
+ * reconstruction ne voit donc jamais une transaction de commandes à moitié comptée.
+ */
+@Repository
+public class AgregatsVentesJdbcRepository {
+
+    // premier argument de pg_advisory_xact_lock(int, int), propre à ces tables
+    private static final int CLASSE_VERROU = 7301;
+
+    private static final String UPSERT_JOUR = "INSERT INTO ventes_jour_produit "
+            + "(jour, codepdt, nb_commandes, quantite, chiffre_affaires) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (jour, codepdt) DO UPDATE SET "
+            + "nb_commandes = ventes_jour_produit.nb_commandes + EXCLUDED.nb_commandes, "
+            + "quantite = ventes_jour_produit.quantite + EXCLUDED.quantite, "
+            + "chiffre_affaires = ventes_jour_produit.chiffre_affaires + EXCLUDED.chiffre_affaires";
+
+    private static final String UPSERT_MOIS = "INSERT INTO ventes_mois_client "
+            + "(mois, client, nb_commandes, quantite, chiffre_affaires) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (mois, client) DO UPDATE SET "
+            + "nb_commandes = ventes_mois_client.nb_commandes + EXCLUDED.nb_commandes, "
+            + "quantite = ventes_mois_client.quantite + EXCLUDED.quantite, "
+            + "chiffre_affaires = ventes_mois_client.chiffre_affaires + EXCLUDED.chiffre_affaires";
+
+    // reconstruction d'un mois : commandes lues par idx_tous_commandes_datecmd
+    static final String RECONSTRUIRE_JOURS = "INSERT INTO ventes_jour_produit (jour, codepdt, nb_commandes, quantite, chiffre_affaires) "
+            + "SELECT c.datecmd, c.codepdt, COUNT(*), COALESCE(SUM(c.qtecmd), 0), "
+            + "COALESCE(SUM(c.qtecmd::bigint * p.prixpdt), 0) "
+            + "FROM tous_commandes c LEFT JOIN produits_prix p ON p.codepdt = c.codepdt "
+            + "WHERE c.datecmd >= ? AND c.datecmd < ? AND c.codepdt IS NOT NULL "
+            + "GROUP BY c.datecmd, c.codepdt";
+
+    static final String RECONSTRUIRE_MOIS = "INSERT INTO ventes_mois_client (mois, client, nb_commandes, quantite, chiffre_affaires) "
+            + "SELECT ?, COALESCE(c.client, ''), COUNT(*), COALESCE(SUM(c.qtecmd), 0), "
+            + "COALESCE(SUM(c.qtecmd::bigint * p.prixpdt), 0) "
+            + "FROM tous_commandes c LEFT JOIN produits_prix p ON p.codepdt = c.codepdt "
+            + "WHERE c.datecmd >= ? AND c.datecmd < ? AND c.codepdt IS NOT NULL "
+            + "GROUP BY COALESCE(c.client, '')";
+
+    private final JdbcTemplate jdbc;
+
+    public AgregatsVentesJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Verrou partagé sur chaque mois, à prendre dans la transaction qui enregistre les
+     * commandes. Les mois doivent être triés pour que deux transactions les prennent dans
+     * le même ordre.
+     */
+    public void verrouillerPartage(Collection<LocalDate> mois) {
+        for (LocalDate m : mois) {
+            jdbc.queryForList("SELECT pg_advisory_xact_lock_shared(?, ?)", CLASSE_VERROU, cleVerrou(m));
+        }
+    }
+
+    /**
+     * Ajoute les lignes {jour, codepdt, nb, quantité, CA}. Lignes triées par clé : les
+     * upserts concurrents verrouillent les lignes dans le même ordre.
+     */
+    public void ajouterJours(List<Object[]> lignes) {
+        jdbc.batchUpdate(UPSERT_JOUR, lignes);
+    }
+
+    /**
+     * Ajoute les lignes {mois, client, nb, quantité, CA}, triées par clé.
+     */
+    public void ajouterMois(List<Object[]> lignes) {
+        jdbc.batchUpdate(UPSERT_MOIS, lignes);
+    }
+
+    /**
+     * Mois présents dans tous_commandes ou dans les agrégats, entre {@code du} et {@code au} inclus.
+     */
+    public List<LocalDate> mois(LocalDate du, LocalDate au) {
+        return jdbc.queryForList("SELECT m FROM ("
+                        + "SELECT date_trunc('month', datecmd)::date AS m FROM tous_commandes WHERE datecmd IS NOT NULL "
+                        + "UNION SELECT date_trunc('month', jour)::date FROM ventes_jour_produit "
+                        + "UNION SELECT mois FROM ventes_mois_client) t "
+                        + "WHERE m BETWEEN ? AND ? ORDER BY m",
+                LocalDate.class, du, au);
+    }
+
+    /**
+     * Recalcule les deux agrégats d'un mois depuis tous_commandes, au prix actuel des produits.
+     * Renvoie le nombre de commandes prises en compte.
+     */
+    public long reconstruireMois(LocalDate mois) {
+        LocalDate fin = mois.plusMonths(1);
+        jdbc.queryForList("SELECT pg_advisory_xact_lock(?, ?)", CLASSE_VERROU, cleVerrou(mois));
+
+        jdbc.update("DELETE FROM ventes_jour_produit WHERE jour >= ? AND jour < ?", mois, fin);
+        jdbc.update("DELETE FROM ventes_mois_client WHERE mois = ?", mois);
+
+        jdbc.update(RECONSTRUIRE_JOURS, mois, fin);
+        jdbc.update(RECONSTRUIRE_MOIS, mois, mois, fin);
+
+        Long n = jdbc.queryForObject("SELECT COALESCE(SUM(nb_commandes), 0) FROM ventes_mois_client WHERE mois = ?",
+                Long.class, mois);
+        return n == null ? 0 : n;
+    }
+
+    private static int cleVerrou(LocalDate mois) {
+        return mois.getYear() * 12 + mois.getMonthValue() - 1;
+    }
+}
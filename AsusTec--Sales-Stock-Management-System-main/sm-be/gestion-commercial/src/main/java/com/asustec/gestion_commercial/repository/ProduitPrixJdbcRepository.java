@@ -0,0 +1,51 @@
+package com.asustec.gestion_commercial.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Écritures en lot sur produits_prix, hors JPA (import de catalogue).
+ */
+@Repository
+public class ProduitPrixJdbcRepository {
+
+    private static final String UPSERT = "INSERT INTO produits_prix (codepdt, nompdt, descpdt, prixpdt) "
+            + "VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (codepdt) DO UPDATE SET "
+            + "nompdt = EXCLUDED.nompdt, descpdt = EXCLUDED.descpdt, prixpdt = EXCLUDED.prixpdt";
+
+    private static final String INSERT = "INSERT INTO produits_prix (nompdt, descpdt, prixpdt) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+
+    public ProduitPrixJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Crée ou remplace les lignes {codepdt, nompdt, descpdt, prixpdt}. Un codepdt ne doit
+     * apparaître qu'une fois par appel : le lot part en un seul INSERT multi-lignes.
+     */
+    public void remplacer(List<Object[]> lignes) {
+        jdbc.batchUpdate(UPSERT, lignes);
+    }
+
+    /**
+     * Crée les lignes {nompdt, descpdt, prixpdt}, codepdt pris dans la séquence.
+     */
+    public void inserer(List<Object[]> lignes) {
+        jdbc.batchUpdate(INSERT, lignes);
+    }
+
+    /**
+     * Amène la séquence de codepdt au-delà du plus grand codepdt importé : sinon les
+     * prochains POST /produits tomberaient sur des codes déjà pris.
+     */
+    public void avancerSequence() {
+        jdbc.queryForList("SELECT setval(pg_get_serial_sequence('produits_prix', 'codepdt'), MAX(codepdt)) "
+                + "FROM produits_prix "
+                + "HAVING MAX(codepdt) >= (SELECT last_value FROM produits_prix_codepdt_seq)");
+    }
+}
@@ -0,0 +1,78 @@
+package com.asustec.gestion_commercial.repository;
+
+import com.asustec.gestion_commercial.entity.TousCommande;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Insertion des commandes reçues de gestion-vente, hors JPA : un seul INSERT multi-lignes
+ * par lot, les codecmd déjà présents sont ignorés par l'index unique (ON CONFLICT DO NOTHING),
+ * même si deux envois du même lot arrivent en même temps.
+ */
+@Repository
+public class TousCommandeJdbcRepository {
+
+    // allocationSize de TousCommande : chaque nextval réserve les 50 identifiants qui le précèdent
+    private static final int TAILLE_BLOC = 50;
+    // 6 paramètres par ligne, sous la limite de 65 535 paramètres par requête
+    private static final int LIGNES_PAR_REQUETE = 5_000;
+
+    private final JdbcTemplate jdbc;
+
+    public TousCommandeJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Insère les commandes dont le codecmd n'est pas encore en base et renvoie celles-ci, avec
+     * leur identifiant. Un codecmd ne doit apparaître qu'une fois par appel.
+     */
+    public List<TousCommande> insererNouvelles(List<TousCommande> commandes) {
+        List<TousCommande> inserees = new ArrayList<>();
+        for (int debut = 0; debut < commandes.size(); debut += LIGNES_PAR_REQUETE) {
+            inserees.addAll(inserer(commandes.subList(debut, Math.min(debut + LIGNES_PAR_REQUETE, commandes.size()))));
+        }
+        return inserees;
+    }
+
+    private List<TousCommande> inserer(List<TousCommande> commandes) {
+        List<Integer> ids = identifiants(commandes.size());
+        Object[] args = new Object[commandes.size() * 6];
+        for (int i = 0; i < commandes.size(); i++) {
+            TousCommande c = commandes.get(i);
+            c.setCodetouscmd(ids.get(i));
+            args[i * 6] = c.getCodetouscmd();
+            args[i * 6 + 1] = c.getCodecmd();
+            args[i * 6 + 2] = c.getClient();
+            args[i * 6 + 3] = c.getCodepdt();
+            args[i * 6 + 4] = c.getQtecmd();
+            args[i * 6 + 5] = c.getDatecmd();
+        }
+        String valeurs = commandes.stream().map(c -> "(?, ?, ?, ?, ?, ?)").collect(Collectors.joining(", "));
+
+        Set<Integer> inserees = new HashSet<>(jdbc.queryForList(
+                "INSERT INTO tous_commandes (codetouscmd, codecmd, client, codepdt, qtecmd, datecmd) VALUES "
+                        + valeurs + " ON CONFLICT (codecmd) DO NOTHING RETURNING codetouscmd",
+                Integer.class, args));
+        return commandes.stream().filter(c -> inserees.contains(c.getCodetouscmd())).toList();
+    }
+
+    // identifiants pris dans la séquence comme le ferait Hibernate, par blocs de TAILLE_BLOC
+    private List<Integer> identifiants(int n) {
+        int blocs = (n + TAILLE_BLOC - 1) / TAILLE_BLOC;
+        List<Integer> ids = new ArrayList<>(blocs * TAILLE_BLOC);
+        for (Integer haut : jdbc.queryForList("SELECT nextval('tous_commandes_codetouscmd_seq')::int "
+                + "FROM generate_series(1, ?)", Integer.class, blocs)) {
+            for (int id = haut - TAILLE_BLOC + 1; id <= haut; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
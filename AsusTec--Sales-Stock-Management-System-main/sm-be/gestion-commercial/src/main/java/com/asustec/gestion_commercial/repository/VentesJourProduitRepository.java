@@ -0,0 +1,14 @@
+package com.asustec.gestion_commercial.repository;
+
+import com.asustec.gestion_commercial.entity.VentesJourProduit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VentesJourProduitRepository extends JpaRepository<VentesJourProduit, VentesJourProduit.Cle> {
+
+    List<VentesJourProduit> findByJourBetweenOrderByJourAscCodepdtAsc(LocalDate du, LocalDate au);
+
+    List<VentesJourProduit> findByCodepdtAndJourBetweenOrderByJourAsc(Integer codepdt, LocalDate du, LocalDate au);
+}
@@ -0,0 +1,14 @@
+package com.asustec.gestion_commercial.repository;
+
+import com.asustec.gestion_commercial.entity.VentesMoisClient;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VentesMoisClientRepository extends JpaRepository<VentesMoisClient, VentesMoisClient.Cle> {
+
+    List<VentesMoisClient> findByMoisBetweenOrderByMoisAscClientAsc(LocalDate du, LocalDate au);
+
+    List<VentesMoisClient> findByClientAndMoisBetweenOrderByMoisAsc(String client, LocalDate du, LocalDate au);
+}
@@ -0,0 +1,171 @@
+package com.asustec.gestion_commercial.service;
+
+import com.asustec.gestion_commercial.entity.ProduitPrix;
+import com.asustec.gestion_commercial.entity.TousCommande;
+import com.asustec.gestion_commercial.entity.VentesJourProduit;
+import com.asustec.gestion_commercial.entity.VentesMoisClient;
+import com.asustec.gestion_commercial.repository.AgregatsVentesJdbcRepository;
+import com.asustec.gestion_commercial.repository.ProduitPrixRepository;
+import com.asustec.gestion_commercial.repository.VentesJourProduitRepository;
+import com.asustec.gestion_commercial.repository.VentesMoisClientRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Agrégats de ventes (jour × produit, mois × client) tenus à jour dans la transaction qui
+ * enregistre les commandes, pour ne plus parcourir tous_commandes à chaque question.
+ * <p>
+ * Le chiffre d'affaires est valorisé au prix du produit au moment de l'enregistrement ;
+ * une reconstruction revalorise les mois concernés au prix actuel.
+ */
+@Service
+public class AgregatsVentesService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgregatsVentesService.class);
+
+    private final AgregatsVentesJdbcRepository jdbcRepo;
+    private final VentesJourProduitRepository jourRepo;
+    private final VentesMoisClientRepository moisRepo;
+    private final ProduitPrixRepository produitRepo;
+    private final TransactionTemplate tx;
+    // partagé par les reconstructions, qui ne s'exécutent qu'une à la fois
+    private final ExecutorService pool;
+    private final AtomicBoolean reconstructionEnCours = new AtomicBoolean();
+
+    public AgregatsVentesService(AgregatsVentesJdbcRepository jdbcRepo,
+                                 VentesJourProduitRepository jourRepo,
+                                 VentesMoisClientRepository moisRepo,
+                                 ProduitPrixRepository produitRepo,
+                                 TransactionTemplate tx,
+                                 @Value("${asustec.agregats.reconstruction-parallelisme:4}") int parallelisme) {
+        this.jdbcRepo = jdbcRepo;
+        this.jourRepo = jourRepo;
+        this.moisRepo = moisRepo;
+        this.produitRepo = produitRepo;
+        this.tx = tx;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelisme));
+    }
+
+    /**
+     * Ajoute les commandes aux agrégats. Doit être appelé dans la transaction qui les insère
+     * dans tous_commandes : les deux sont validés ou annulés ensemble.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrer(List<TousCommande> commandes) {
+        List<TousCommande> valides = commandes.stream()
+                .filter(c -> c.getCodepdt() != null && c.getDatecmd() != null)
+                .toList();
+        if (valides.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> prix = produitRepo.findAllById(
+                        valides.stream().map(TousCommande::getCodepdt).distinct().toList())
+                .stream()
+                .filter(p -> p.getPrixpdt() != null)
+                .collect(Collectors.toMap(ProduitPrix::getCodepdt, ProduitPrix::getPrixpdt));
+
+        // Clés triées : verrous et lignes toujours pris dans le même ordre
+        Map<VentesJourProduit.Cle, long[]> jours = new TreeMap<>(
+                Comparator.comparing(VentesJourProduit.Cle::getJour).thenComparing(VentesJourProduit.Cle::getCodepdt));
+        Map<VentesMoisClient.Cle, long[]> mois = new TreeMap<>(
+                Comparator.comparing(VentesMoisClient.Cle::getMois).thenComparing(VentesMoisClient.Cle::getClient));
+        for (TousCommande c : valides) {
+            long qte = c.getQtecmd() == null ? 0 : c.getQtecmd();
+            long ca = qte * prix.getOrDefault(c.getCodepdt(), 0);
+            cumuler(jours.computeIfAbsent(new VentesJourProduit.Cle(c.getDatecmd(), c.getCodepdt()), k -> new long[3]), qte, ca);
+            cumuler(mois.computeIfAbsent(new VentesMoisClient.Cle(c.getDatecmd().withDayOfMonth(1),
+                    Objects.requireNonNullElse(c.getClient(), "")), k -> new long[3]), qte, ca);
+        }
+
+        jdbcRepo.verrouillerPartage(new TreeSet<>(mois.keySet().stream().map(VentesMoisClient.Cle::getMois).toList()));
+        jdbcRepo.ajouterJours(lignes(jours, k -> new Object[]{k.getJour(), k.getCodepdt()}));
+        jdbcRepo.ajouterMois(lignes(mois, k -> new Object[]{k.getMois(), k.getClient()}));
+    }
+
+    public List<VentesJourProduit> ventesParJour(LocalDate du, LocalDate au, Integer codepdt) {
+        return codepdt == null
+                ? jourRepo.findByJourBetweenOrderByJourAscCodepdtAsc(du, au)
+                : jourRepo.findByCodepdtAndJourBetweenOrderByJourAsc(codepdt, du, au);
+    }
+
+    public List<VentesMoisClient> ventesParMois(LocalDate du, LocalDate au, String client) {
+        return client == null
+                ? moisRepo.findByMoisBetweenOrderByMoisAscClientAsc(du, au)
+                : moisRepo.findByClientAndMoisBetweenOrderByMoisAsc(client, du, au);
+    }
+
+    /**
+     * Recalcule les agrégats depuis tous_commandes, un mois par transaction et plusieurs mois
+     * en parallèle. Les commandes peuvent continuer d'arriver pendant la reconstruction.
+     * Une seule reconstruction à la fois : un second appel simultané est refusé.
+     */
+    public Map<String, Object> reconstruire(LocalDate du, LocalDate au) {
+        if (!reconstructionEnCours.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reconstruction des agrégats déjà en cours");
+        }
+        try {
+            long debut = System.nanoTime();
+            List<LocalDate> mois = jdbcRepo.mois(du.withDayOfMonth(1), au);
+
+            List<CompletableFuture<Long>> taches = new ArrayList<>();
+            for (LocalDate m : mois) {
+                taches.add(CompletableFuture.supplyAsync(() -> tx.execute(status -> jdbcRepo.reconstruireMois(m)), pool));
+            }
+            long commandes = taches.stream().mapToLong(CompletableFuture::join).sum();
+
+            long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+            log.info("Agrégats de ventes reconstruits : {} mois, {} commandes en {} ms", mois.size(), commandes, dureeMs);
+
+            Map<String, Object> rapport = new LinkedHashMap<>();
+            rapport.put("mois", mois.size());
+            rapport.put("commandes", commandes);
+            rapport.put("dureeMs", dureeMs);
+            return rapport;
+        } finally {
+            reconstructionEnCours.set(false);
+        }
+    }
+
+    @PreDestroy
+    void arreter() {
+        pool.shutdown();
+    }
+
+    private static void cumuler(long[] totaux, long qte, long ca) {
+        totaux[0]++;
+        totaux[1] += qte;
+        totaux[2] += ca;
+    }
+
+    private static <K> List<Object[]> lignes(Map<K, long[]> totaux, Function<K, Object[]> cle) {
+        List<Object[]> lignes = new ArrayList<>(totaux.size());
+        totaux.forEach((k, t) -> {
+            Object[] c = cle.apply(k);
+            lignes.add(new Object[]{c[0], c[1], t[0], t[1], t[2]});
+        });
+        return lignes;
+    }
+}
@@ -1,34 +1,75 @@
 package com.asustec.gestion_commercial.service;
 
+import com.asustec.commun.cache.VersionTable;
 import com.asustec.gestion_commercial.entity.ProduitPrix;
 import com.asustec.gestion_commercial.entity.TousCommande;
 import com.asustec.gestion_commercial.repository.ProduitPrixRepository;
-import com.asustec.gestion_commercial.repository.TousCommandeRepository;
+import com.asustec.gestion_commercial.repository.TousCommandeJdbcRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CommercialService {
 
     private final ProduitPrixRepository produitRepo;
-    private final TousCommandeRepository commandeRepo;
+    private final TousCommandeJdbcRepository commandeJdbcRepo;
+    private final AgregatsVentesService agregats;
+    private final VersionTable versionProduits = new VersionTable();
 
     public CommercialService(ProduitPrixRepository produitRepo,
-                             TousCommandeRepository commandeRepo) {
+                             TousCommandeJdbcRepository commandeJdbcRepo,
+                             AgregatsVentesService agregats) {
         this.produitRepo = produitRepo;
-        this.commandeRepo = commandeRepo;
+        this.commandeJdbcRepo = commandeJdbcRepo;
+        this.agregats = agregats;
+    }
+
+    public VersionTable versionProduits() {
+        return versionProduits;
     }
 
     public List<ProduitPrix> findAllProduits() {
         return produitRepo.findAll();
     }
 
+    public Optional<ProduitPrix> findProduit(Integer codepdt) {
+        return produitRepo.findById(codepdt);
+    }
+
+    public List<ProduitPrix> findProduits(List<Integer> codepdts) {
+        return produitRepo.findAllById(codepdts);
+    }
+
     public ProduitPrix saveProduit(ProduitPrix produit) {
-        return produitRepo.save(produit);
+        ProduitPrix saved = produitRepo.save(produit);
+        versionProduits.incrementer();
+        return saved;
     }
 
+    @Transactional
     public TousCommande saveCommande(TousCommande commande) {
-        return commandeRepo.save(commande);
+        List<TousCommande> saved = saveCommandes(List.of(commande));
+        if (saved.isEmpty()) {
+            throw new RuntimeException("Commande déjà reçue : " + commande.getCodecmd());
+        }
+        return saved.get(0);
+    }
+
+    // Les codecmd déjà reçus sont ignorés (index unique, ON CONFLICT DO NOTHING) : gestion-vente
+    // peut renvoyer un lot, même pendant qu'un premier envoi est en cours, sans doublon
+    @Transactional
+    public List<TousCommande> saveCommandes(List<TousCommande> commandes) {
+        Set<Integer> vus = new HashSet<>();
+        List<TousCommande> uniques = commandes.stream()
+                .filter(c -> c.getCodecmd() == null || vus.add(c.getCodecmd()))
+                .toList();
+        List<TousCommande> saved = commandeJdbcRepo.insererNouvelles(uniques);
+        agregats.enregistrer(saved);
+        return saved;
     }
 }
@@ -0,0 +1,142 @@
+package com.asustec.gestion_commercial.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Export ligne à ligne d'une table vers un flux (NDJSON ou CSV).
+ * <p>
+ * Les lignes sont lues par un curseur JDBC en avance seule ({@code fetchSize}, dans une
+ * transaction en lecture seule pour que le pilote PostgreSQL ne charge pas tout le résultat)
+ * et écrites directement dans la réponse : la mémoire utilisée ne dépend pas du nombre de lignes.
+ */
+@Service
+public class ExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${asustec.export.fetch-size:1000}") int fetchSize) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public void exporterCommandes(Format format, OutputStream out) throws IOException {
+        exporter("SELECT codetouscmd, codecmd, client, codepdt, qtecmd, datecmd FROM tous_commandes ORDER BY codetouscmd", format, out);
+    }
+
+    private void exporter(String sql, Format format, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        final JsonGenerator json = format == Format.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (json != null) {
+            // une ligne par objet : le saut de ligne est écrit après chaque ligne
+            json.setRootValueSeparator(null);
+        }
+        try {
+            tx.executeWithoutResult(status -> jdbc.query(sql, (ResultSetExtractor<Void>) rs -> {
+                try {
+                    if (format == Format.CSV) {
+                        ecrireEnteteCsv(rs.getMetaData(), writer);
+                    }
+                    while (rs.next()) {
+                        if (json != null) {
+                            ecrireJson(rs, json);
+                        } else {
+                            ecrireCsv(rs, writer);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private static void ecrireJson(ResultSet rs, JsonGenerator json) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        json.writeStartObject();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            json.writeFieldName(meta.getColumnLabel(i));
+            Object v = valeur(rs, i);
+            if (v == null) {
+                json.writeNull();
+            } else if (v instanceof Number n) {
+                json.writeNumber(n.longValue());
+            } else {
+                json.writeString(v.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void ecrireEnteteCsv(ResultSetMetaData meta, Writer writer) throws SQLException, IOException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writer.write(meta.getColumnLabel(i));
+        }
+        writer.write('\n');
+    }
+
+    private static void ecrireCsv(ResultSet rs, Writer writer) throws SQLException, IOException {
+        int colonnes = rs.getMetaData().getColumnCount();
+        for (int i = 1; i <= colonnes; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            Object v = valeur(rs, i);
+            if (v != null) {
+                writer.write(echapperCsv(v.toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static Object valeur(ResultSet rs, int i) throws SQLException {
+        Object v = rs.getObject(i);
+        return v instanceof Date d ? d.toLocalDate() : v;
+    }
+
+    private static String echapperCsv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,210 @@
+package com.asustec.gestion_commercial.service;
+
+import com.asustec.commun.importation.LecteurImport;
+import com.asustec.commun.importation.RapportImport;
+import com.asustec.gestion_commercial.repository.ProduitPrixJdbcRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Import du catalogue depuis un fichier CSV ou NDJSON (colonnes codepdt, nompdt, descpdt,
+ * prixpdt).
+ * <p>
+ * Le fichier est lu au fil de l'eau et écrit par lots de {@code taille-lot} lignes, un lot par
+ * transaction : la mémoire ne dépend pas de la taille du fichier. Une ligne avec codepdt crée
+ * ou remplace ce produit, une ligne sans codepdt crée un produit. Si la base refuse un lot, il
+ * est rejoué ligne par ligne pour n'écarter que les lignes fautives. Les lots déjà validés
+ * restent en base si l'import s'interrompt.
+ */
+@Service
+public class ImportProduitsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportProduitsService.class);
+
+    private final ProduitPrixJdbcRepository repo;
+    private final CommercialService commercial;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final int tailleLot;
+    private final int maxErreurs;
+
+    public ImportProduitsService(ProduitPrixJdbcRepository repo,
+                                 CommercialService commercial,
+                                 TransactionTemplate tx,
+                                 ObjectMapper objectMapper,
+                                 @Value("${asustec.import.taille-lot:5000}") int tailleLot,
+                                 @Value("${asustec.import.max-erreurs:1000}") int maxErreurs) {
+        this.repo = repo;
+        this.commercial = commercial;
+        this.tx = tx;
+        this.objectMapper = objectMapper;
+        this.tailleLot = tailleLot;
+        this.maxErreurs = maxErreurs;
+    }
+
+    public RapportImport importer(InputStream in, LecteurImport.Format format) throws IOException {
+        long debut = System.nanoTime();
+        RapportImport rapport = new RapportImport(maxErreurs);
+        // un codepdt par lot : l'upsert multi-lignes ne peut pas toucher deux fois la même ligne
+        Map<Integer, Ligne> aRemplacer = new LinkedHashMap<>();
+        List<Ligne> aCreer = new ArrayList<>();
+
+        try (LecteurImport lecteur = new LecteurImport(in, format, objectMapper)) {
+            LecteurImport.Enregistrement e;
+            while ((e = lecteur.suivant()) != null) {
+                rapport.ligneLue();
+                Ligne l;
+                try {
+                    l = lire(e);
+                } catch (IllegalArgumentException ex) {
+                    rapport.rejeter(e.getLigne(), ex.getMessage());
+                    continue;
+                }
+
+                if (l.codepdt == null) {
+                    aCreer.add(l);
+                } else if (aRemplacer.put(l.codepdt, l) != null) {
+                    // codepdt répété dans le lot : la dernière ligne l'emporte
+                    rapport.doublon();
+                }
+                if (aRemplacer.size() + aCreer.size() >= tailleLot) {
+                    ecrire(aRemplacer.values(), aCreer, rapport);
+                    aRemplacer.clear();
+                    aCreer.clear();
+                }
+            }
+            ecrire(aRemplacer.values(), aCreer, rapport);
+        } finally {
+            if (rapport.getImportees() > 0) {
+                commercial.versionProduits().incrementer();
+            }
+            rapport.setDureeMillis(Duration.ofNanos(System.nanoTime() - debut).toMillis());
+            log.info("Import du catalogue : {} lignes, {} importées, {} rejetées, {} doublons en {} ms",
+                    rapport.getLignes(), rapport.getImportees(), rapport.getRejetees(), rapport.getDoublons(),
+                    rapport.getDureeMillis());
+        }
+        return rapport;
+    }
+
+    private void ecrire(Collection<Ligne> aRemplacer, List<Ligne> aCreer, RapportImport rapport) {
+        if (aRemplacer.isEmpty() && aCreer.isEmpty()) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> {
+                if (!aRemplacer.isEmpty()) {
+                    repo.remplacer(valeurs(aRemplacer, true));
+                    repo.avancerSequence();
+                }
+                if (!aCreer.isEmpty()) {
+                    repo.inserer(valeurs(aCreer, false));
+                }
+            });
+            rapport.importees(aRemplacer.size() + aCreer.size());
+        } catch (DataAccessException e) {
+            log.warn("Lot d'import refusé, reprise ligne par ligne : {}", e.getMostSpecificCause().getMessage());
+            for (Ligne l : aRemplacer) {
+                rejouer(l, rapport);
+            }
+            repo.avancerSequence();
+            for (Ligne l : aCreer) {
+                rejouer(l, rapport);
+            }
+        }
+    }
+
+    private void rejouer(Ligne l, RapportImport rapport) {
+        try {
+            if (l.codepdt != null) {
+                repo.remplacer(valeurs(List.of(l), true));
+            } else {
+                repo.inserer(valeurs(List.of(l), false));
+            }
+            rapport.importees(1);
+        } catch (DataAccessException e) {
+            rapport.rejeter(l.ligne, e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private static List<Object[]> valeurs(Collection<Ligne> lignes, boolean avecCode) {
+        List<Object[]> valeurs = new ArrayList<>(lignes.size());
+        for (Ligne l : lignes) {
+            valeurs.add(avecCode
+                    ? new Object[]{l.codepdt, l.nompdt, l.descpdt, l.prixpdt}
+                    : new Object[]{l.nompdt, l.descpdt, l.prixpdt});
+        }
+        return valeurs;
+    }
+
+    private static Ligne lire(LecteurImport.Enregistrement e) {
+        if (e.getErreur() != null) {
+            throw new IllegalArgumentException(e.getErreur());
+        }
+        Integer codepdt = entier(e, "codepdt", 1, false);
+        String nompdt = texte(e, "nompdt", true);
+        String descpdt = texte(e, "descpdt", false);
+        Integer prixpdt = entier(e, "prixpdt", 0, true);
+        return new Ligne(e.getLigne(), codepdt, nompdt, descpdt, prixpdt);
+    }
+
+    private static Integer entier(LecteurImport.Enregistrement e, String nom, int min, boolean obligatoire) {
+        String v = e.champ(nom);
+        if (v == null) {
+            if (obligatoire) {
+                throw new IllegalArgumentException(nom + " obligatoire");
+            }
+            return null;
+        }
+        int n;
+        try {
+            n = Integer.parseInt(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(nom + " n'est pas un entier : " + v);
+        }
+        if (n < min) {
+            throw new IllegalArgumentException(nom + " doit être au moins " + min + " : " + v);
+        }
+        return n;
+    }
+
+    private static String texte(LecteurImport.Enregistrement e, String nom, boolean obligatoire) {
+        String v = e.champ(nom);
+        if (v == null && obligatoire) {
+            throw new IllegalArgumentException(nom + " obligatoire");
+        }
+        if (v != null && v.length() > 255) {
+            throw new IllegalArgumentException(nom + " dépasse 255 caractères");
+        }
+        return v;
+    }
+
+    private static final class Ligne {
+        final long ligne;
+        final Integer codepdt;
+        final String nompdt;
+        final String descpdt;
+        final Integer prixpdt;
+
+        Ligne(long ligne, Integer codepdt, String nompdt, String descpdt, Integer prixpdt) {
+            this.ligne = ligne;
+            this.codepdt = codepdt;
+            this.nompdt = nompdt;
+            this.descpdt = descpdt;
+            this.prixpdt = prixpdt;
+        }
+    }
+}
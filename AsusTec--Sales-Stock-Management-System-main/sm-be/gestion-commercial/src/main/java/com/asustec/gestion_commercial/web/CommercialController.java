@@ -1,27 +1,77 @@
 package com.asustec.gestion_commercial.web;
 
+import com.asustec.commun.cache.CorpsEnCache;
+import com.asustec.commun.importation.LecteurImport;
+import com.asustec.commun.importation.RapportImport;
 import com.asustec.gestion_commercial.entity.ProduitPrix;
 import com.asustec.gestion_commercial.entity.TousCommande;
 import com.asustec.gestion_commercial.service.CommercialService;
+import com.asustec.gestion_commercial.service.ExportService;
+import com.asustec.gestion_commercial.service.ImportProduitsService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/commercial")
 public class CommercialController {
 
     private final CommercialService service;
+    private final ExportService exportService;
+    private final ImportProduitsService importService;
+    private final CorpsEnCache produits;
+    private final ObjectMapper objectMapper;
+    private final int maxLookupOctets;
 
-    public CommercialController(CommercialService service) {
+    public CommercialController(CommercialService service,
+                                ExportService exportService,
+                                ImportProduitsService importService,
+                                ObjectMapper objectMapper,
+                                MappingJackson2CborHttpMessageConverter cbor,
+                                @Value("${asustec.lookup.max-octets:65536}") int maxLookupOctets) {
         this.service = service;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+        this.maxLookupOctets = maxLookupOctets;
+        this.produits = new CorpsEnCache(service.versionProduits(), objectMapper, cbor.getObjectMapper());
     }
 
-    // GET /api/commercial/produits
+    // GET /api/commercial/produits  (JSON ou CBOR, ETag : 304 si If-None-Match correspond)
     @GetMapping("/produits")
-    public List<ProduitPrix> getAllProduits() {
-        return service.findAllProduits();
+    public ResponseEntity<byte[]> getAllProduits(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return produits.reponse(service::findAllProduits, accept, acceptEncoding);
+    }
+
+    // GET /api/commercial/produits/{codepdt}
+    @GetMapping("/produits/{codepdt}")
+    public ResponseEntity<ProduitPrix> getProduit(@PathVariable Integer codepdt) {
+        return ResponseEntity.of(service.findProduit(codepdt));
+    }
+
+    // POST /api/commercial/produits/lookup  body: [1, 2, 3]  (au plus asustec.lookup.max-octets)
+    @PostMapping("/produits/lookup")
+    public List<ProduitPrix> lookupProduits(InputStream body) throws IOException {
+        return service.findProduits(lireCodepdts(body));
     }
 
     @PostMapping("/produits")
@@ -29,6 +79,20 @@ public class CommercialController {
         return service.saveProduit(pdt);
     }
 
+    // POST /api/commercial/produits/import?format=csv|ndjson  (corps lu en flux, Content-Encoding: gzip accepté)
+    // colonnes codepdt (facultatif : produit créé ou remplacé), nompdt, descpdt, prixpdt ;
+    // réponse : compteurs et erreurs par numéro de ligne
+    @PostMapping("/produits/import")
+    public RapportImport importerProduits(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body
+    ) throws IOException {
+        LecteurImport.Format f = formatImport(format);
+        InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+        return importService.importer(in, f);
+    }
+
     // POST /api/commercial/commandes
     @PostMapping("/commandes")
     public TousCommande addCommande(@RequestBody TousCommande commande) {
@@ -37,4 +101,72 @@ public class CommercialController {
         }
         return service.saveCommande(commande);
     }
+
+    // POST /api/commercial/commandes/lot
+    @PostMapping("/commandes/lot")
+    public List<TousCommande> addCommandes(@RequestBody List<TousCommande> commandes) {
+        LocalDate today = LocalDate.now();
+        commandes.stream()
+                .filter(c -> c.getDatecmd() == null)
+                .forEach(c -> c.setDatecmd(today));
+        return service.saveCommandes(commandes);
+    }
+
+    // GET /api/commercial/commandes/export?format=ndjson|csv&gzip=false
+    @GetMapping("/commandes/export")
+    public ResponseEntity<StreamingResponseBody> exportCommandes(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        ExportService.Format f = formatExport(format);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zip = new GZIPOutputStream(out, 64 * 1024);
+                exportService.exporterCommandes(f, zip);
+                zip.finish();
+            } else {
+                exportService.exporterCommandes(f, out);
+            }
+        };
+
+        MediaType type = gzip ? MediaType.parseMediaType("application/gzip")
+                : f == ExportService.Format.CSV ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"tous_commandes." + f.name().toLowerCase() + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
+    // 400 plutôt que 500 pour un format inconnu
+    private static ExportService.Format formatExport(String format) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'export inconnu : " + format);
+        }
+    }
+
+    // 400 plutôt que 500 pour un format inconnu
+    private static LecteurImport.Format formatImport(String format) {
+        try {
+            return LecteurImport.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'import inconnu : " + format);
+        }
+    }
+
+    // corps lu au plus maxLookupOctets + 1 octets : 413 au-delà, 400 si ce n'est pas un tableau d'entiers
+    private List<Integer> lireCodepdts(InputStream body) throws IOException {
+        byte[] octets = body.readNBytes(maxLookupOctets + 1);
+        if (octets.length > maxLookupOctets) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Recherche limitée à " + maxLookupOctets + " octets");
+        }
+        try {
+            return Arrays.asList(objectMapper.readValue(octets, Integer[].class));
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tableau de codepdt attendu");
+        }
+    }
 }
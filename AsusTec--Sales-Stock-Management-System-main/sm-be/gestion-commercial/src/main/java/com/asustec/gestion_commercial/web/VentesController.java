@@ -0,0 +1,71 @@
+package com.asustec.gestion_commercial.web;
+
+import com.asustec.gestion_commercial.entity.VentesJourProduit;
+import com.asustec.gestion_commercial.entity.VentesMoisClient;
+import com.asustec.gestion_commercial.service.AgregatsVentesService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/commercial/ventes")
+public class VentesController {
+
+    private final AgregatsVentesService agregats;
+    private final int maxMoisReconstruction;
+
+    public VentesController(AgregatsVentesService agregats,
+                            @Value("${asustec.agregats.reconstruction-max-mois:120}") int maxMoisReconstruction) {
+        this.agregats = agregats;
+        this.maxMoisReconstruction = maxMoisReconstruction;
+    }
+
+    // GET /api/commercial/ventes/jours?du=2025-06-01&au=2025-06-30&codepdt=
+    @GetMapping("/jours")
+    public List<VentesJourProduit> ventesParJour(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au,
+            @RequestParam(required = false) Integer codepdt
+    ) {
+        return agregats.ventesParJour(du, au, codepdt);
+    }
+
+    // GET /api/commercial/ventes/mois?du=2025-01&au=2025-06&client=
+    @GetMapping("/mois")
+    public List<VentesMoisClient> ventesParMois(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth du,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth au,
+            @RequestParam(required = false) String client
+    ) {
+        return agregats.ventesParMois(du.atDay(1), au.atDay(1), client);
+    }
+
+    // POST /api/commercial/ventes/reconstruire?du=2025-01&au=2025-06  (au plus asustec.agregats.reconstruction-max-mois mois)
+    @PostMapping("/reconstruire")
+    public Map<String, Object> reconstruire(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth du,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth au
+    ) {
+        long mois = ChronoUnit.MONTHS.between(du, au) + 1;
+        if (mois < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Période vide : " + du + " après " + au);
+        }
+        if (mois > maxMoisReconstruction) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Période trop longue : " + mois + " mois, " + maxMoisReconstruction + " au plus");
+        }
+        try {
+            return agregats.reconstruire(du.atDay(1), au.atEndOfMonth());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+-- Schéma tel que créé jusqu'ici par ddl-auto=update ; sans effet sur une base existante.
+CREATE TABLE IF NOT EXISTS produits_prix (
+    codepdt integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nompdt  varchar(255),
+    descpdt varchar(255),
+    prixpdt integer
+);
+
+CREATE TABLE IF NOT EXISTS tous_commandes (
+    codetouscmd integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codecmd     integer,
+    client      varchar(255),
+    codepdt     integer,
+    qtecmd      integer,
+    datecmd     date
+);
+
+CREATE TABLE IF NOT EXISTS ventes_jour_produit (
+    jour             date    NOT NULL,
+    codepdt          integer NOT NULL,
+    nb_commandes     bigint  NOT NULL,
+    quantite         bigint  NOT NULL,
+    chiffre_affaires bigint  NOT NULL,
+    PRIMARY KEY (jour, codepdt)
+);
+
+CREATE TABLE IF NOT EXISTS ventes_mois_client (
+    mois             date         NOT NULL,
+    client           varchar(255) NOT NULL,
+    nb_commandes     bigint       NOT NULL,
+    quantite         bigint       NOT NULL,
+    chiffre_affaires bigint       NOT NULL,
+    PRIMARY KEY (mois, client)
+);
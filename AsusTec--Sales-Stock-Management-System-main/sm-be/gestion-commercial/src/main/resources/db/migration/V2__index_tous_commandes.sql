@@ -0,0 +1,10 @@
+-- Déduplication des lots reçus de gestion-vente (findExistingCodecmds). Pas d'unicité :
+-- les commandes reçues avant la déduplication peuvent contenir des doublons.
+CREATE INDEX IF NOT EXISTS idx_tous_commandes_codecmd ON tous_commandes (codecmd);
+
+-- Reconstruction des agrégats mois par mois
+CREATE INDEX IF NOT EXISTS idx_tous_commandes_datecmd ON tous_commandes (datecmd);
+
+-- Agrégats filtrés par produit ou par client (la clé primaire commence par la date)
+CREATE INDEX IF NOT EXISTS idx_ventes_jour_produit_codepdt_jour ON ventes_jour_produit (codepdt, jour);
+CREATE INDEX IF NOT EXISTS idx_ventes_mois_client_client_mois ON ventes_mois_client (client, mois);
@@ -0,0 +1,10 @@
+-- Identifiants réservés par blocs de 50 (allocationSize de TousCommande) : un nextval par bloc,
+-- et Hibernate peut regrouper les INSERT des lots reçus de gestion-vente en lots JDBC.
+-- La colonne d'identité devient une colonne à valeur par défaut sur une séquence ordinaire :
+-- la validation du schéma par Hibernate ne voit pas les séquences d'identité. Un INSERT sans
+-- identifiant prend lui aussi un nextval, qui n'appartient à aucun bloc réservé.
+ALTER TABLE tous_commandes ALTER COLUMN codetouscmd DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS tous_commandes_codetouscmd_seq AS integer;
+ALTER SEQUENCE tous_commandes_codetouscmd_seq INCREMENT BY 50 OWNED BY tous_commandes.codetouscmd;
+SELECT setval('tous_commandes_codetouscmd_seq', COALESCE(MAX(codetouscmd), 0) + 50) FROM tous_commandes;
+ALTER TABLE tous_commandes ALTER COLUMN codetouscmd SET DEFAULT nextval('tous_commandes_codetouscmd_seq');
@@ -0,0 +1,41 @@
+-- Un codecmd reçu de gestion-vente n'est enregistré qu'une fois (TousCommandeJdbcRepository :
+-- ON CONFLICT (codecmd) DO NOTHING). Les doublons reçus avant cette migration sont supprimés,
+-- la plus ancienne ligne est gardée, et les agrégats des mois concernés sont recalculés comme
+-- le fait AgregatsVentesJdbcRepository.reconstruireMois.
+CREATE TEMP TABLE mois_doublons ON COMMIT DROP AS
+SELECT DISTINCT date_trunc('month', t.datecmd)::date AS mois
+FROM tous_commandes t
+WHERE t.datecmd IS NOT NULL
+  AND EXISTS (SELECT 1 FROM tous_commandes d WHERE d.codecmd = t.codecmd AND d.codetouscmd < t.codetouscmd);
+
+DELETE FROM tous_commandes t
+USING tous_commandes d
+WHERE t.codecmd = d.codecmd AND t.codetouscmd > d.codetouscmd;
+
+DELETE FROM ventes_jour_produit v
+USING mois_doublons m
+WHERE v.jour >= m.mois AND v.jour < m.mois + interval '1 month';
+
+DELETE FROM ventes_mois_client v
+USING mois_doublons m
+WHERE v.mois = m.mois;
+
+INSERT INTO ventes_jour_produit (jour, codepdt, nb_commandes, quantite, chiffre_affaires)
+SELECT c.datecmd, c.codepdt, COUNT(*), COALESCE(SUM(c.qtecmd), 0), COALESCE(SUM(c.qtecmd::bigint * p.prixpdt), 0)
+FROM tous_commandes c
+JOIN mois_doublons m ON c.datecmd >= m.mois AND c.datecmd < m.mois + interval '1 month'
+LEFT JOIN produits_prix p ON p.codepdt = c.codepdt
+WHERE c.codepdt IS NOT NULL
+GROUP BY c.datecmd, c.codepdt;
+
+INSERT INTO ventes_mois_client (mois, client, nb_commandes, quantite, chiffre_affaires)
+SELECT m.mois, COALESCE(c.client, ''), COUNT(*), COALESCE(SUM(c.qtecmd), 0), COALESCE(SUM(c.qtecmd::bigint * p.prixpdt), 0)
+FROM tous_commandes c
+JOIN mois_doublons m ON c.datecmd >= m.mois AND c.datecmd < m.mois + interval '1 month'
+LEFT JOIN produits_prix p ON p.codepdt = c.codepdt
+WHERE c.codepdt IS NOT NULL
+GROUP BY m.mois, COALESCE(c.client, '');
+
+-- L'index unique remplace celui de V2
+DROP INDEX IF EXISTS idx_tous_commandes_codecmd;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_tous_commandes_codecmd ON tous_commandes (codecmd);
@@ -0,0 +1,79 @@
+package com.asustec.gestion_commercial.repository;
+
+import com.asustec.commun.sql.PlansRequetes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+/**
+ * Chaque recherche fréquente utilise l'index prévu dans les migrations, sur les volumes
+ * réels.
+ * <p>
+ * Le schéma vient de Flyway et Hibernate le valide au démarrage. Chaque test charge
+ * 200 000 commandes sur deux ans, 1 000 produits et les agrégats mensuels de 5 000 clients,
+ * puis lance ANALYZE : les plans sont ceux que choisit PostgreSQL avec ses réglages par
+ * défaut (voir PlansRequetes).
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    private static final LocalDate MOIS = LocalDate.of(2025, 3, 1);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private PlansRequetes plans;
+
+    @BeforeEach
+    void charger() {
+        jdbc.update("TRUNCATE tous_commandes, produits_prix, ventes_jour_produit, ventes_mois_client");
+        jdbc.update("INSERT INTO produits_prix (codepdt, nompdt, descpdt, prixpdt) "
+                + "SELECT g, 'produit-' || g, NULL, 100 + g FROM generate_series(1, 1000) g");
+        jdbc.update("INSERT INTO tous_commandes (codetouscmd, codecmd, client, codepdt, qtecmd, datecmd) "
+                + "SELECT g, g, 'client-' || g % 5000, 1 + g % 1000, 1 + g % 5, DATE '2024-01-01' + g * 730 / 200001 "
+                + "FROM generate_series(1, 200000) g");
+        jdbc.update("INSERT INTO ventes_mois_client (mois, client, nb_commandes, quantite, chiffre_affaires) "
+                + "SELECT (DATE '2024-01-01' + m * interval '1 month')::date, 'client-' || c, 2, 6, 1200 "
+                + "FROM generate_series(0, 23) m, generate_series(0, 4999) c");
+        jdbc.execute("ANALYZE tous_commandes");
+        jdbc.execute("ANALYZE produits_prix");
+        jdbc.execute("ANALYZE ventes_mois_client");
+        plans = new PlansRequetes(jdbc);
+    }
+
+    @Test
+    void codecmdDeduplicationUsesUniqueIndex() {
+        plans.assertIndexChoisi("INSERT INTO tous_commandes (codetouscmd, codecmd, client, codepdt, qtecmd, datecmd) "
+                        + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (codecmd) DO NOTHING RETURNING codetouscmd",
+                "tous_commandes", "uk_tous_commandes_codecmd", 300_000, 42, "client-1", 1, 1, MOIS);
+    }
+
+    @Test
+    void monthlyRebuildReadsOneMonthByDate() {
+        LocalDate fin = MOIS.plusMonths(1);
+        plans.assertIndexChoisi(AgregatsVentesJdbcRepository.RECONSTRUIRE_JOURS, "tous_commandes",
+                "idx_tous_commandes_datecmd", MOIS, fin);
+        plans.assertIndexChoisi(AgregatsVentesJdbcRepository.RECONSTRUIRE_MOIS, "tous_commandes",
+                "idx_tous_commandes_datecmd", MOIS, MOIS, fin);
+    }
+
+    @Test
+    void rollupByClientUsesClientIndex() {
+        // VentesMoisClientRepository.findByClientAndMoisBetweenOrderByMoisAsc
+        plans.assertIndexChoisi("SELECT * FROM ventes_mois_client WHERE client = ? AND mois BETWEEN ? AND ? ORDER BY mois",
+                "ventes_mois_client", "idx_ventes_mois_client_client_mois", "client-42", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 1));
+    }
+}
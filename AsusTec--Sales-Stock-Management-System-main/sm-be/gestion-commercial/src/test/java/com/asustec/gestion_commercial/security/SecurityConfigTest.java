@@ -0,0 +1,79 @@
+package com.asustec.gestion_commercial.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * La reconstruction des agrégats est réservée aux jetons ADMIN (/auth/login) ; leur lecture
+ * reste ouverte à tout jeton, y compris celui de service.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class SecurityConfigTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Test
+    void rebuildNeedsAdminRole() throws Exception {
+        String url = "/api/commercial/ventes/reconstruire?du=2026-01&au=2026-02";
+        mvc.perform(post(url))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post(url).header(HttpHeaders.AUTHORIZATION, jeton("CLIENT")))
+                .andExpect(status().isForbidden());
+        mvc.perform(post(url).header(HttpHeaders.AUTHORIZATION, jeton("SERVICE")))
+                .andExpect(status().isForbidden());
+        mvc.perform(post(url).header(HttpHeaders.AUTHORIZATION, jeton(null)))
+                .andExpect(status().isForbidden());
+        mvc.perform(post(url).header(HttpHeaders.AUTHORIZATION, jeton("ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void aggregatesNeedOnlyAToken() throws Exception {
+        mvc.perform(get("/api/commercial/ventes/mois?du=2026-01&au=2026-02").header(HttpHeaders.AUTHORIZATION, jeton("SERVICE")))
+                .andExpect(status().isOk());
+    }
+
+    private String jeton(String role) {
+        Instant now = Instant.now();
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
+                .issuer("sm-be")
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofMinutes(5)))
+                .subject("test");
+        if (role != null) {
+            claims.claim("role", role);
+        }
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).keyId("sm-be-hs256").build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(header, claims.build())).getTokenValue();
+    }
+}
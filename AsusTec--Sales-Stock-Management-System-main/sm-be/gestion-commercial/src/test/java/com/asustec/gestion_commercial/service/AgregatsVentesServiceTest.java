@@ -0,0 +1,153 @@
+package com.asustec.gestion_commercial.service;
+
+import com.asustec.gestion_commercial.entity.TousCommande;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Les agrégats tenus à jour lot par lot donnent les mêmes totaux qu'une reconstruction depuis
+ * tous_commandes ; une reconstruction attend les transactions de commandes en cours sur le
+ * mois (verrou consultatif) au lieu de les compter à moitié, et une seule tourne à la fois.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class AgregatsVentesServiceTest {
+
+    private static final String AGREGATS =
+            "SELECT 'j', jour, codepdt::text, nb_commandes, quantite, chiffre_affaires FROM ventes_jour_produit "
+                    + "UNION ALL SELECT 'm', mois, client, nb_commandes, quantite, chiffre_affaires FROM ventes_mois_client "
+                    + "ORDER BY 1, 2, 3";
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private AgregatsVentesService agregats;
+
+    @Autowired
+    private CommercialService commercial;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void vider() {
+        jdbc.update("TRUNCATE tous_commandes, ventes_jour_produit, ventes_mois_client, produits_prix");
+        for (int codepdt = 1; codepdt <= 5; codepdt++) {
+            jdbc.update("INSERT INTO produits_prix (codepdt, nompdt, prixpdt) VALUES (?, ?, ?)",
+                    codepdt, "produit-" + codepdt, 10 * codepdt + 3);
+        }
+    }
+
+    @Test
+    void incrementalTotalsMatchARebuild() {
+        commercial.saveCommandes(lot(1, 400, 2026, 1));
+        commercial.saveCommandes(lot(401, 250, 2026, 2));
+        commercial.saveCommandes(lot(651, 300, 2026, 1));
+        commercial.saveCommandes(lot(951, 120, 2026, 3));
+        List<Map<String, Object>> incrementaux = jdbc.queryForList(AGREGATS);
+
+        Map<String, Object> rapport = agregats.reconstruire(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31));
+
+        assertThat(rapport).containsEntry("mois", 3).containsEntry("commandes", 1070L);
+        assertThat(incrementaux).isNotEmpty();
+        assertThat(jdbc.queryForList(AGREGATS)).isEqualTo(incrementaux);
+    }
+
+    @Test
+    void rebuildWaitsForOrdersInFlightOnTheMonth() throws Exception {
+        commercial.saveCommandes(lot(1, 200, 2026, 9));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch enregistre = new CountDownLatch(1);
+        CountDownLatch valider = new CountDownLatch(1);
+        try {
+            // lot enregistré mais pas encore validé : sa transaction garde le verrou partagé de septembre
+            Future<?> envoi = pool.submit(() -> tx.executeWithoutResult(status -> {
+                commercial.saveCommandes(lot(201, 100, 2026, 9));
+                enregistre.countDown();
+                attendre(valider);
+            }));
+            assertThat(enregistre.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<Map<String, Object>> reconstruction = pool.submit(
+                    () -> agregats.reconstruire(LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30)));
+            attendreVerrouEnAttente();
+
+            assertThat(reconstruction).isNotDone();
+            assertThatThrownBy(() -> agregats.reconstruire(LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Reconstruction des agrégats déjà en cours");
+
+            valider.countDown();
+            envoi.get(10, TimeUnit.SECONDS);
+            assertThat(reconstruction.get(10, TimeUnit.SECONDS)).containsEntry("commandes", 300L);
+        } finally {
+            valider.countDown();
+            pool.shutdown();
+        }
+        assertThat(jdbc.queryForObject("SELECT SUM(nb_commandes) FROM ventes_jour_produit", Long.class)).isEqualTo(300);
+    }
+
+    // la reconstruction est bloquée sur pg_advisory_xact_lock tant que le lot n'est pas validé
+    private void attendreVerrouEnAttente() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            Long enAttente = jdbc.queryForObject(
+                    "SELECT count(*) FROM pg_locks WHERE locktype = 'advisory' AND NOT granted", Long.class);
+            if (enAttente != null && enAttente > 0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("La reconstruction n'attend pas le verrou du mois");
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<TousCommande> lot(int premier, int n, int annee, int mois) {
+        List<TousCommande> lot = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            TousCommande c = new TousCommande();
+            c.setCodecmd(premier + i);
+            // quelques commandes sans client, comptées sous ''
+            c.setClient(i % 11 == 0 ? null : "client-" + (i % 7));
+            c.setCodepdt(1 + i % 5);
+            c.setQtecmd(1 + i % 4);
+            c.setDatecmd(LocalDate.of(annee, mois, 1 + i % 28));
+            lot.add(c);
+        }
+        return lot;
+    }
+}
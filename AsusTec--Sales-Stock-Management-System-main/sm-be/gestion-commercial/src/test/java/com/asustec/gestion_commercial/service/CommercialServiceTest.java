@@ -0,0 +1,104 @@
+package com.asustec.gestion_commercial.service;
+
+import com.asustec.gestion_commercial.entity.TousCommande;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Les lots de gestion-vente peuvent être renvoyés, y compris pendant qu'un premier envoi est
+ * en cours : chaque codecmd n'est enregistré et compté dans les agrégats qu'une fois.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class CommercialServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private CommercialService service;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void vider() {
+        jdbc.update("TRUNCATE tous_commandes, ventes_jour_produit, ventes_mois_client");
+    }
+
+    @Test
+    void redeliveredBatchIsIgnored() {
+        assertThat(service.saveCommandes(lot(1, 120))).hasSize(120);
+        assertThat(service.saveCommandes(lot(61, 120))).hasSize(60);
+
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM tous_commandes", Long.class)).isEqualTo(180);
+        assertThat(commandesAgregees()).isEqualTo(180);
+    }
+
+    @Test
+    void duplicateInsideABatchIsInsertedOnce() {
+        List<TousCommande> lot = lot(1, 3);
+        lot.addAll(lot(2, 1));
+
+        assertThat(service.saveCommandes(lot)).extracting(TousCommande::getCodecmd).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void concurrentDeliveriesInsertOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Integer>> envois = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            envois.add(pool.submit(() -> {
+                depart.await();
+                return service.saveCommandes(lot(1, 500)).size();
+            }));
+        }
+        depart.countDown();
+        int inserees = 0;
+        for (Future<Integer> f : envois) {
+            inserees += f.get();
+        }
+        pool.shutdown();
+
+        assertThat(inserees).isEqualTo(500);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM tous_commandes", Long.class)).isEqualTo(500);
+        assertThat(commandesAgregees()).isEqualTo(500);
+    }
+
+    private long commandesAgregees() {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(nb_commandes), 0) FROM ventes_mois_client", Long.class);
+    }
+
+    private static List<TousCommande> lot(int premier, int n) {
+        List<TousCommande> lot = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            TousCommande c = new TousCommande();
+            c.setCodecmd(premier + i);
+            c.setClient("client-" + (i % 7));
+            c.setCodepdt(1 + i % 5);
+            c.setQtecmd(1);
+            c.setDatecmd(LocalDate.of(2026, 9, 1 + i % 28));
+            lot.add(c);
+        }
+        return lot;
+    }
+}
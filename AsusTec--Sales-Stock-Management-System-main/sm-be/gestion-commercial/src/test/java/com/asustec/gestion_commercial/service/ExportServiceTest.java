@@ -0,0 +1,77 @@
+package com.asustec.gestion_commercial.service;
+
+import com.asustec.gestion_commercial.web.CommercialController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Export de quelques lignes de tous_commandes en NDJSON et en CSV, curseur plus petit que le résultat.
+ */
+class ExportServiceTest {
+
+    private ExportService export;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:export-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE tous_commandes (codetouscmd integer PRIMARY KEY, codecmd integer, client varchar(255), "
+                + "codepdt integer, qtecmd integer, datecmd date)");
+        jdbc.update("INSERT INTO tous_commandes VALUES (1, 101, 'alice', 10, 2, DATE '2025-01-15')");
+        jdbc.update("INSERT INTO tous_commandes VALUES (2, 102, 'Dupont, \"fils\"', 11, 1, DATE '2025-02-01')");
+        jdbc.update("INSERT INTO tous_commandes VALUES (3, 103, NULL, 12, 5, NULL)");
+        export = new ExportService(ds, new DataSourceTransactionManager(ds), new ObjectMapper(), 2);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLine() throws Exception {
+        assertThat(exporter(ExportService.Format.NDJSON)).isEqualTo("""
+                {"codetouscmd":1,"codecmd":101,"client":"alice","codepdt":10,"qtecmd":2,"datecmd":"2025-01-15"}
+                {"codetouscmd":2,"codecmd":102,"client":"Dupont, \\"fils\\"","codepdt":11,"qtecmd":1,"datecmd":"2025-02-01"}
+                {"codetouscmd":3,"codecmd":103,"client":null,"codepdt":12,"qtecmd":5,"datecmd":null}
+                """);
+    }
+
+    @Test
+    void csvHasHeaderAndQuotedFields() throws Exception {
+        assertThat(exporter(ExportService.Format.CSV)).isEqualTo("""
+                codetouscmd,codecmd,client,codepdt,qtecmd,datecmd
+                1,101,alice,10,2,2025-01-15
+                2,102,"Dupont, ""fils""\",11,1,2025-02-01
+                3,103,,12,5,
+                """);
+    }
+
+    @Test
+    void unknownFormatIsBadRequest() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(
+                new CommercialController(mock(CommercialService.class), export, mock(ImportProduitsService.class),
+                        new ObjectMapper(), new MappingJackson2CborHttpMessageConverter(), 65536)).build();
+
+        mvc.perform(get("/api/commercial/commandes/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String exporter(ExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.exporterCommandes(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
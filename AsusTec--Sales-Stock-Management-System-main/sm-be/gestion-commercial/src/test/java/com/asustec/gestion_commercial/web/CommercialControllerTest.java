@@ -0,0 +1,139 @@
+package com.asustec.gestion_commercial.web;
+
+import com.asustec.commun.cache.VersionTable;
+import com.asustec.gestion_commercial.entity.ProduitPrix;
+import com.asustec.gestion_commercial.service.CommercialService;
+import com.asustec.gestion_commercial.service.ExportService;
+import com.asustec.gestion_commercial.service.ImportProduitsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CommercialControllerTest {
+
+    private final CommercialService service = mock(CommercialService.class);
+    private final VersionTable version = new VersionTable();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void construire() {
+        when(service.versionProduits()).thenReturn(version);
+        CommercialController controller = new CommercialController(service, mock(ExportService.class),
+                mock(ImportProduitsService.class), new ObjectMapper(), new MappingJackson2CborHttpMessageConverter(), 64);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void unchangedListIsNotModified() throws Exception {
+        when(service.findAllProduits()).thenReturn(List.of(produit(1)));
+
+        String etag = mvc.perform(get("/api/commercial/produits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].prixpdt").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/commercial/produits").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        verify(service, times(1)).findAllProduits();
+    }
+
+    @Test
+    void eachFormatHasItsOwnEtag() throws Exception {
+        when(service.findAllProduits()).thenReturn(List.of(produit(1)));
+
+        String json = mvc.perform(get("/api/commercial/produits").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mvc.perform(get("/api/commercial/produits").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(cbor).isNotEqualTo(json);
+        // l'ETag JSON ne valide pas le corps CBOR : le client reçoit le format qu'il demande
+        mvc.perform(get("/api/commercial/produits").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mvc.perform(get("/api/commercial/produits").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void writeInvalidatesTheEtag() throws Exception {
+        when(service.findAllProduits()).thenReturn(List.of(produit(1)), List.of(produit(2)));
+        String etag = mvc.perform(get("/api/commercial/produits")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        version.incrementer();
+
+        mvc.perform(get("/api/commercial/produits").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$[0].prixpdt").value(2));
+    }
+
+    @Test
+    void lookupReturnsRequestedProducts() throws Exception {
+        ProduitPrix ps = new ProduitPrix();
+        ps.setCodepdt(2);
+        ps.setPrixpdt(5);
+        when(service.findProduits(List.of(1, 2))).thenReturn(List.of(ps));
+
+        mvc.perform(post("/api/commercial/produits/lookup").contentType(MediaType.APPLICATION_JSON).content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].prixpdt").value(5));
+    }
+
+    @Test
+    void lookupBodyIsCapped() throws Exception {
+        String corps = "[" + String.join(",", Collections.nCopies(40, "1")) + "]";
+
+        mvc.perform(post("/api/commercial/produits/lookup").contentType(MediaType.APPLICATION_JSON).content(corps))
+                .andExpect(status().isPayloadTooLarge());
+        verify(service).versionProduits();
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    void lookupRejectsAnythingButAnArrayOfIds() throws Exception {
+        mvc.perform(post("/api/commercial/produits/lookup").contentType(MediaType.APPLICATION_JSON).content("{\"codepdt\": 1}"))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).findProduits(anyList());
+    }
+
+    @Test
+    void unknownImportFormatIsBadRequest() throws Exception {
+        mvc.perform(post("/api/commercial/produits/import").param("format", "xlsx").content("codepdt\n1\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static ProduitPrix produit(int prixpdt) {
+        ProduitPrix p = new ProduitPrix();
+        p.setCodepdt(1);
+        p.setPrixpdt(prixpdt);
+        return p;
+    }
+}
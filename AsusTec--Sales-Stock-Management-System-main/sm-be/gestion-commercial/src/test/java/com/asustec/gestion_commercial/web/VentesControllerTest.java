@@ -0,0 +1,60 @@
+package com.asustec.gestion_commercial.web;
+
+import com.asustec.gestion_commercial.service.AgregatsVentesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class VentesControllerTest {
+
+    private final AgregatsVentesService agregats = mock(AgregatsVentesService.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void construire() {
+        mvc = MockMvcBuilders.standaloneSetup(new VentesController(agregats, 12)).build();
+    }
+
+    @Test
+    void rebuildCoversWholeMonths() throws Exception {
+        when(agregats.reconstruire(any(), any())).thenReturn(Map.of("mois", 2));
+
+        mvc.perform(post("/api/commercial/ventes/reconstruire").param("du", "2026-01").param("au", "2026-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mois").value(2));
+        verify(agregats).reconstruire(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 28));
+    }
+
+    @Test
+    void rebuildPeriodIsRequiredAndBounded() throws Exception {
+        mvc.perform(post("/api/commercial/ventes/reconstruire"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/commercial/ventes/reconstruire").param("du", "2026-03").param("au", "2026-02"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/commercial/ventes/reconstruire").param("du", "2025-01").param("au", "2026-01"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(agregats);
+    }
+
+    @Test
+    void concurrentRebuildIsAConflict() throws Exception {
+        when(agregats.reconstruire(any(), any()))
+                .thenThrow(new IllegalStateException("Reconstruction des agrégats déjà en cours"));
+
+        mvc.perform(post("/api/commercial/ventes/reconstruire").param("du", "2026-01").param("au", "2026-12"))
+                .andExpect(status().isConflict());
+    }
+}
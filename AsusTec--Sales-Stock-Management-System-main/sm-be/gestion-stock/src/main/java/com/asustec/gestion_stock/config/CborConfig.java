@@ -0,0 +1,23 @@
+package com.asustec.gestion_stock.config;
+
+import com.asustec.commun.cbor.MappersCbor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Réponses CBOR pour les clients qui envoient {@code Accept: application/cbor} (gestion-vente).
+ * Le JSON reste la représentation par défaut, donc celle du navigateur.
+ * <p>
+ * Les noms de champs répétés à chaque ligne sont écrits une fois puis référencés (STRINGREF,
+ * voir {@link MappersCbor}).
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(MappersCbor.reponses(builder));
+    }
+}
@@ -1,9 +1,12 @@
 package com.asustec.gestion_stock.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "produits_stock")
+// une seule ligne par produit (migration V2)
+@Table(name = "produits_stock",
+        uniqueConstraints = @UniqueConstraint(name = "uk_produits_stock_codepdt", columnNames = "codepdt"))
 public class ProduitStock {
 
     @Id
@@ -13,6 +16,11 @@ public class ProduitStock {
     private Integer codepdt;
     private Integer qtepdt;
 
+    // incrémentée par chaque écriture SQL sur la ligne (migration V3), jamais par JPA
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long version;
+
 
     public Integer getCodestock() {
         return codestock;
@@ -37,5 +45,13 @@ public class ProduitStock {
     public void setQtepdt(Integer qtepdt) {
         this.qtepdt = qtepdt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
 
@@ -0,0 +1,110 @@
+package com.asustec.gestion_stock.repository;
+
+import com.asustec.gestion_stock.entity.ProduitStock;
+import com.asustec.gestion_stock.web.ResumeStockResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Requêtes ensemblistes sur produits_stock, hors JPA.
+ */
+@Repository
+public class ProduitStockJdbcRepository {
+
+    // une ligne créée part en version 1, comme après saveProduitStock
+    private static final String UPSERT = "INSERT INTO produits_stock (codepdt, qtepdt, version) VALUES (?, ?, 1) "
+            + "ON CONFLICT (codepdt) DO UPDATE SET qtepdt = EXCLUDED.qtepdt, version = produits_stock.version + 1";
+
+    private final JdbcTemplate jdbc;
+
+    public ProduitStockJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Décrémente en une seule requête chaque produit dont le stock couvre la quantité demandée.
+     * Renvoie les lignes effectivement décrémentées, avec leur nouvelle quantité et version.
+     */
+    public List<ProduitStock> decrementerSiSuffisant(Map<Integer, Integer> quantites) {
+        List<Object> args = new ArrayList<>();
+        quantites.forEach((codepdt, qte) -> {
+            args.add(codepdt);
+            args.add(qte);
+        });
+
+        return jdbc.query(sqlDecrementer(quantites.size()), (rs, i) -> {
+            ProduitStock ps = new ProduitStock();
+            ps.setCodestock(rs.getInt(1));
+            ps.setCodepdt(rs.getInt(2));
+            ps.setQtepdt(rs.getInt(3));
+            ps.setVersion(rs.getLong(4));
+            return ps;
+        }, args.toArray());
+    }
+
+    // une paire (codepdt, quantité) liée par ligne de la liste VALUES
+    static String sqlDecrementer(int lignes) {
+        String values = String.join(", ", Collections.nCopies(lignes, "(?::int, ?::int)"));
+        return "UPDATE produits_stock s SET qtepdt = s.qtepdt - v.qte, version = s.version + 1 "
+                + "FROM (VALUES " + values + ") AS v(codepdt, qte) "
+                + "WHERE s.codepdt = v.codepdt AND s.qtepdt >= v.qte "
+                + "RETURNING s.codestock, s.codepdt, s.qtepdt, s.version";
+    }
+
+    /**
+     * Fixe la quantité de chaque ligne {codepdt, qtepdt}, en créant les produits absents. Un
+     * codepdt ne doit apparaître qu'une fois par appel : le lot part en un seul INSERT multi-lignes.
+     */
+    public void remplacerQuantites(List<Object[]> lignes) {
+        jdbc.batchUpdate(UPSERT, lignes);
+    }
+
+    public Map<Integer, Integer> quantitesDisponibles(Collection<Integer> codepdts) {
+        String in = codepdts.stream().map(k -> "?").collect(Collectors.joining(", "));
+        Map<Integer, Integer> dispo = new HashMap<>();
+        jdbc.query("SELECT codepdt, SUM(qtepdt) FROM produits_stock WHERE codepdt IN (" + in + ") GROUP BY codepdt",
+                rs -> {
+                    dispo.put(rs.getInt(1), rs.getInt(2));
+                },
+                codepdts.toArray());
+        return dispo;
+    }
+
+    /**
+     * Totaux du stock et produits dont la quantité est au plus {@code seuil}, les plus bas
+     * d'abord, limités à {@code limite} lignes. Tout est calculé par la base.
+     */
+    public ResumeStockResponse resume(int seuil, int limite) {
+        String parProduit = "SELECT codepdt, SUM(qtepdt) AS qte FROM produits_stock GROUP BY codepdt";
+
+        ResumeStockResponse resume = new ResumeStockResponse();
+        resume.setSeuil(seuil);
+        jdbc.query("SELECT COUNT(*), COALESCE(SUM(qte), 0), COUNT(*) FILTER (WHERE qte <= ?) "
+                        + "FROM (" + parProduit + ") t",
+                rs -> {
+                    resume.setNbProduits(rs.getLong(1));
+                    resume.setQteTotale(rs.getLong(2));
+                    resume.setNbStockBas(rs.getLong(3));
+                },
+                seuil);
+
+        resume.setStockBas(jdbc.query("SELECT codepdt, qte FROM (" + parProduit + ") t "
+                        + "WHERE qte <= ? ORDER BY qte, codepdt LIMIT ?",
+                (rs, i) -> {
+                    ProduitStock ps = new ProduitStock();
+                    ps.setCodepdt(rs.getInt(1));
+                    ps.setQtepdt(rs.getInt(2));
+                    return ps;
+                },
+                seuil, limite));
+        return resume;
+    }
+}
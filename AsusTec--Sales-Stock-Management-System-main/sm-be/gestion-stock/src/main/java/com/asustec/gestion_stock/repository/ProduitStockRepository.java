@@ -2,9 +2,21 @@ package com.asustec.gestion_stock.repository;
 
 import com.asustec.gestion_stock.entity.ProduitStock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProduitStockRepository extends JpaRepository<ProduitStock, Integer> {
     Optional<ProduitStock> findByCodepdt(Integer codepdt);
+
+    List<ProduitStock> findByCodepdtIn(Collection<Integer> codepdts);
+
+    // SQL natif : version n'est pas modifiable par JPA
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE produits_stock SET version = version + 1 WHERE codestock = :codestock", nativeQuery = true)
+    int incrementerVersion(@Param("codestock") Integer codestock);
 }
@@ -0,0 +1,188 @@
+package com.asustec.gestion_stock.service;
+
+import com.asustec.commun.importation.LecteurImport;
+import com.asustec.commun.importation.RapportImport;
+import com.asustec.gestion_stock.repository.ProduitStockJdbcRepository;
+import com.asustec.gestion_stock.web.ChangementsStock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Import du stock depuis un fichier CSV ou NDJSON (colonnes codepdt, qtepdt) : la quantité
+ * de chaque produit est remplacée, les produits absents sont créés.
+ * <p>
+ * Le fichier est lu au fil de l'eau et écrit par lots de {@code taille-lot} lignes, un lot par
+ * transaction : la mémoire ne dépend pas de la taille du fichier. Si la base refuse un lot, il
+ * est rejoué ligne par ligne pour n'écarter que les lignes fautives. Les lignes importées ne
+ * sont pas publiées une à une sur /api/stock/changements : les abonnés reçoivent "resync" à
+ * la fin de l'import.
+ */
+@Service
+public class ImportStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportStockService.class);
+
+    private final ProduitStockJdbcRepository jdbcRepo;
+    private final StockService stock;
+    private final TransactionTemplate tx;
+    // null sauf si asustec.stock.reservation-mode=ledger
+    private final ReservationLedger ledger;
+    private final ChangementsStock changements;
+    private final ObjectMapper objectMapper;
+    private final int tailleLot;
+    private final int maxErreurs;
+
+    public ImportStockService(ProduitStockJdbcRepository jdbcRepo,
+                              StockService stock,
+                              TransactionTemplate tx,
+                              ObjectProvider<ReservationLedger> ledger,
+                              ChangementsStock changements,
+                              ObjectMapper objectMapper,
+                              @Value("${asustec.import.taille-lot:5000}") int tailleLot,
+                              @Value("${asustec.import.max-erreurs:1000}") int maxErreurs) {
+        this.jdbcRepo = jdbcRepo;
+        this.stock = stock;
+        this.tx = tx;
+        this.ledger = ledger.getIfAvailable();
+        this.changements = changements;
+        this.objectMapper = objectMapper;
+        this.tailleLot = tailleLot;
+        this.maxErreurs = maxErreurs;
+    }
+
+    public RapportImport importer(InputStream in, LecteurImport.Format format) throws IOException {
+        long debut = System.nanoTime();
+        RapportImport rapport = new RapportImport(maxErreurs);
+        // un codepdt par lot : l'upsert multi-lignes ne peut pas toucher deux fois la même ligne
+        Map<Integer, Ligne> lot = new LinkedHashMap<>();
+
+        try (LecteurImport lecteur = new LecteurImport(in, format, objectMapper)) {
+            LecteurImport.Enregistrement e;
+            while ((e = lecteur.suivant()) != null) {
+                rapport.ligneLue();
+                Ligne l;
+                try {
+                    l = lire(e);
+                } catch (IllegalArgumentException ex) {
+                    rapport.rejeter(e.getLigne(), ex.getMessage());
+                    continue;
+                }
+
+                if (lot.put(l.codepdt, l) != null) {
+                    // codepdt répété dans le lot : la dernière ligne l'emporte
+                    rapport.doublon();
+                }
+                if (lot.size() >= tailleLot) {
+                    ecrire(lot.values(), rapport);
+                    lot.clear();
+                }
+            }
+            ecrire(lot.values(), rapport);
+        } finally {
+            if (rapport.getImportees() > 0) {
+                stock.versionStock().incrementer();
+                changements.resynchroniser();
+            }
+            rapport.setDureeMillis(Duration.ofNanos(System.nanoTime() - debut).toMillis());
+            log.info("Import du stock : {} lignes, {} importées, {} rejetées, {} doublons en {} ms",
+                    rapport.getLignes(), rapport.getImportees(), rapport.getRejetees(), rapport.getDoublons(),
+                    rapport.getDureeMillis());
+        }
+        return rapport;
+    }
+
+    private void ecrire(Collection<Ligne> lot, RapportImport rapport) {
+        if (lot.isEmpty()) {
+            return;
+        }
+        try {
+            remplacer(lot);
+            rapport.importees(lot.size());
+        } catch (DataAccessException e) {
+            log.warn("Lot d'import refusé, reprise ligne par ligne : {}", e.getMostSpecificCause().getMessage());
+            for (Ligne l : lot) {
+                try {
+                    remplacer(List.of(l));
+                    rapport.importees(1);
+                } catch (DataAccessException ex) {
+                    rapport.rejeter(l.ligne, ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // la quantité importée remplace aussi les réservations pas encore écrites, comme
+    // saveProduitStock : aucun passage d'écriture du registre entre la base et le registre
+    private void remplacer(Collection<Ligne> lignes) {
+        Runnable ecriture = () -> tx.executeWithoutResult(status -> jdbcRepo.remplacerQuantites(valeurs(lignes)));
+        if (ledger == null) {
+            ecriture.run();
+            return;
+        }
+        List<Integer> codes = lignes.stream().map(l -> l.codepdt).toList();
+        ledger.exclusif(codes, () -> {
+            ecriture.run();
+            lignes.forEach(l -> ledger.remplacer(l.codepdt, l.qtepdt, 1));
+            return null;
+        });
+    }
+
+    private static List<Object[]> valeurs(Collection<Ligne> lignes) {
+        List<Object[]> valeurs = new ArrayList<>(lignes.size());
+        for (Ligne l : lignes) {
+            valeurs.add(new Object[]{l.codepdt, l.qtepdt});
+        }
+        return valeurs;
+    }
+
+    private static Ligne lire(LecteurImport.Enregistrement e) {
+        if (e.getErreur() != null) {
+            throw new IllegalArgumentException(e.getErreur());
+        }
+        return new Ligne(e.getLigne(), entier(e, "codepdt", 1), entier(e, "qtepdt", 0));
+    }
+
+    private static int entier(LecteurImport.Enregistrement e, String nom, int min) {
+        String v = e.champ(nom);
+        if (v == null) {
+            throw new IllegalArgumentException(nom + " obligatoire");
+        }
+        int n;
+        try {
+            n = Integer.parseInt(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(nom + " n'est pas un entier : " + v);
+        }
+        if (n < min) {
+            throw new IllegalArgumentException(nom + " doit être au moins " + min + " : " + v);
+        }
+        return n;
+    }
+
+    private static final class Ligne {
+        final long ligne;
+        final int codepdt;
+        final int qtepdt;
+
+        Ligne(long ligne, int codepdt, int qtepdt) {
+            this.ligne = ligne;
+            this.codepdt = codepdt;
+            this.qtepdt = qtepdt;
+        }
+    }
+}
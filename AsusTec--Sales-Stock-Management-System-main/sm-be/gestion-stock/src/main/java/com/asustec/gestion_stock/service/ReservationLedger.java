@@ -0,0 +1,283 @@
+package com.asustec.gestion_stock.service;
+
+import com.asustec.gestion_stock.entity.ProduitStock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Registre de réservations en mémoire pour les produits très demandés
+ * ({@code asustec.stock.reservation-mode=ledger}).
+ * <p>
+ * Chaque produit a son propre compteur, réservé par compare-and-set : les commandes sur
+ * des produits différents ne se gênent pas et aucune ne touche la base. La quantité et la
+ * version du produit changent ensemble, dans le même compare-and-set. Ce n'est pas un
+ * compteur réparti : toutes les commandes d'un même produit se disputent ce seul
+ * compare-and-set. Les compteurs modifiés depuis le dernier passage sont écrits dans
+ * produits_stock par lots périodiques, avec leur quantité courante. Le registre est chargé
+ * depuis la table au démarrage.
+ * <p>
+ * Un passage d'écriture et une mise à jour de l'administration ({@link #exclusif}) prennent
+ * les mêmes verrous, répartis par codepdt : la quantité fixée par l'administration ne peut
+ * pas être écrasée par un passage commencé avant elle.
+ * <p>
+ * Une seule instance de gestion-stock doit tourner dans ce mode, et produits_stock ne
+ * doit pas être modifiée en dehors du service.
+ */
+@Component
+@ConditionalOnProperty(name = "asustec.stock.reservation-mode", havingValue = "ledger")
+public class ReservationLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationLedger.class);
+
+    private static final int VERROUS = 64;
+
+    private final JdbcTemplate jdbc;
+    private final Map<Integer, Compteur> compteurs = new ConcurrentHashMap<>();
+    private final ReentrantLock[] verrous = new ReentrantLock[VERROUS];
+
+    public ReservationLedger(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        for (int i = 0; i < VERROUS; i++) {
+            verrous[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Recharge les compteurs depuis la table sans les retirer du registre : les commandes en
+     * cours continuent d'être servies. Chaque compteur repart de la ligne relue, plus les
+     * réservations pas encore écrites ; deux rechargements de suite donnent le même état.
+     * Les produits absents de la table sont retirés.
+     */
+    @PostConstruct
+    public synchronized void recharger() {
+        for (ReentrantLock v : verrous) {
+            v.lock();
+        }
+        try {
+            charger();
+        } finally {
+            for (ReentrantLock v : verrous) {
+                v.unlock();
+            }
+        }
+        log.info("Registre de réservations chargé : {} produits", compteurs.size());
+    }
+
+    private void charger() {
+        Set<Integer> charges = new HashSet<>();
+        jdbc.query("SELECT codepdt, qtepdt, version FROM produits_stock WHERE codepdt IS NOT NULL", rs -> {
+            Integer codepdt = rs.getInt(1);
+            long lu = etat(rs.getLong(3), rs.getInt(2));
+            charges.add(codepdt);
+            Compteur c = compteurs.putIfAbsent(codepdt, new Compteur(lu));
+            if (c != null) {
+                // tous les verrous sont pris : ecrit ne bouge pas, seules les réservations
+                // concurrentes modifient etat
+                long ecrit = c.ecrit;
+                c.etat.updateAndGet(e -> etat(version(lu) + version(e) - version(ecrit),
+                        quantite(lu) + quantite(e) - quantite(ecrit)));
+                c.ecrit = lu;
+            }
+        });
+        compteurs.keySet().retainAll(charges);
+    }
+
+    /**
+     * Réserve {@code qte} unités. Renvoie la quantité restante et la nouvelle version, ou
+     * null si le stock est insuffisant.
+     */
+    public ProduitStock reserver(Integer codepdt, int qte) {
+        Compteur c = compteur(codepdt);
+        while (true) {
+            long etat = c.etat.get();
+            int dispo = quantite(etat);
+            if (dispo < qte) {
+                return null;
+            }
+            long suivant = etat(version(etat) + 1, dispo - qte);
+            if (c.etat.compareAndSet(etat, suivant)) {
+                return vue(codepdt, suivant);
+            }
+        }
+    }
+
+    public void liberer(Integer codepdt, int qte) {
+        Compteur c = compteur(codepdt);
+        c.etat.updateAndGet(etat -> etat(version(etat) + 1, quantite(etat) + qte));
+    }
+
+    public boolean connait(Integer codepdt) {
+        return compteurs.containsKey(codepdt);
+    }
+
+    public Integer disponible(Integer codepdt) {
+        Compteur c = compteurs.get(codepdt);
+        return c == null ? null : quantite(c.etat.get());
+    }
+
+    /**
+     * Exécute {@code ecriture}, qui écrit ces produits en base puis appelle
+     * {@link #remplacer}, sans qu'un passage d'écriture des réservations ne s'intercale.
+     */
+    public <T> T exclusif(Collection<Integer> codepdts, Supplier<T> ecriture) {
+        List<ReentrantLock> pris = verrouiller(codepdts);
+        try {
+            return ecriture.get();
+        } finally {
+            pris.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * Quantité fixée par l'administration, déjà écrite en base : elle remplace la valeur
+     * courante, y compris les réservations pas encore écrites. Renvoie la nouvelle version,
+     * au moins {@code versionBase} (celle de la ligne en base). À appeler dans
+     * {@link #exclusif}.
+     */
+    public long remplacer(Integer codepdt, int qtepdt, long versionBase) {
+        if (!verrou(codepdt).isHeldByCurrentThread()) {
+            throw new IllegalStateException("remplacer() doit être appelé dans exclusif()");
+        }
+        Compteur c = compteurs.computeIfAbsent(codepdt, k -> new Compteur(etat(versionBase, qtepdt)));
+        long etat = c.etat.updateAndGet(e -> etat(Math.max(version(e) + 1, versionBase), qtepdt));
+        // la quantité est en base, seule la version peut y être en retard
+        c.ecrit = etat;
+        return version(etat);
+    }
+
+    public ProduitStock avecDisponible(ProduitStock ps) {
+        Compteur c = compteurs.get(ps.getCodepdt());
+        if (c == null) {
+            return ps;
+        }
+        ProduitStock vue = vue(ps.getCodepdt(), c.etat.get());
+        vue.setCodestock(ps.getCodestock());
+        return vue;
+    }
+
+    @Scheduled(fixedDelayString = "${asustec.stock.ledger.flush-interval:200ms}")
+    public synchronized void ecrire() {
+        List<Integer> modifies = new ArrayList<>();
+        compteurs.forEach((codepdt, c) -> {
+            if (c.etat.get() != c.ecrit) {
+                modifies.add(codepdt);
+            }
+        });
+        if (modifies.isEmpty()) {
+            return;
+        }
+
+        List<ReentrantLock> pris = verrouiller(modifies);
+        try {
+            List<Compteur> ecrits = new ArrayList<>(modifies.size());
+            List<Long> etats = new ArrayList<>(modifies.size());
+            List<Object[]> lot = new ArrayList<>(modifies.size());
+            for (Integer codepdt : modifies) {
+                Compteur c = compteurs.get(codepdt);
+                if (c == null) {
+                    continue;
+                }
+                long etat = c.etat.get();
+                ecrits.add(c);
+                etats.add(etat);
+                lot.add(new Object[]{quantite(etat), version(etat), codepdt});
+            }
+            jdbc.batchUpdate("UPDATE produits_stock SET qtepdt = ?, version = GREATEST(version, ?) "
+                    + "WHERE codepdt = ?", lot);
+            for (int i = 0; i < ecrits.size(); i++) {
+                ecrits.get(i).ecrit = etats.get(i);
+            }
+        } catch (RuntimeException e) {
+            // les compteurs restent à écrire : nouvel essai au prochain passage
+            log.error("Écriture des réservations en base impossible, nouvel essai au prochain passage", e);
+        } finally {
+            pris.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    @PreDestroy
+    void arreter() {
+        ecrire();
+    }
+
+    // dans l'ordre des index : deux appelants ne peuvent pas s'attendre mutuellement
+    private List<ReentrantLock> verrouiller(Collection<Integer> codepdts) {
+        Set<Integer> index = new TreeSet<>();
+        for (Integer codepdt : codepdts) {
+            index.add(index(codepdt));
+        }
+        List<ReentrantLock> pris = new ArrayList<>(index.size());
+        for (Integer i : index) {
+            verrous[i].lock();
+            pris.add(verrous[i]);
+        }
+        return pris;
+    }
+
+    private ReentrantLock verrou(Integer codepdt) {
+        return verrous[index(codepdt)];
+    }
+
+    private static int index(Integer codepdt) {
+        return Math.floorMod(Objects.hashCode(codepdt), VERROUS);
+    }
+
+    private Compteur compteur(Integer codepdt) {
+        Compteur c = compteurs.get(codepdt);
+        if (c == null) {
+            throw new RuntimeException("Produit non trouvé dans le stock");
+        }
+        return c;
+    }
+
+    private static ProduitStock vue(Integer codepdt, long etat) {
+        ProduitStock ps = new ProduitStock();
+        ps.setCodepdt(codepdt);
+        ps.setQtepdt(quantite(etat));
+        ps.setVersion(version(etat));
+        return ps;
+    }
+
+    // version sur les 32 bits hauts, quantité disponible sur les 32 bits bas
+    private static long etat(long version, int quantite) {
+        return (version << 32) | (quantite & 0xFFFFFFFFL);
+    }
+
+    private static int quantite(long etat) {
+        return (int) etat;
+    }
+
+    private static long version(long etat) {
+        return etat >>> 32;
+    }
+
+    private static final class Compteur {
+        final AtomicLong etat;
+        // dernier état écrit dans produits_stock, modifié sous verrou
+        volatile long ecrit;
+
+        Compteur(long etat) {
+            this.etat = new AtomicLong(etat);
+            this.ecrit = etat;
+        }
+    }
+}
@@ -1,37 +1,244 @@
 package com.asustec.gestion_stock.service;
 
+import com.asustec.commun.cache.VersionTable;
 import com.asustec.gestion_stock.entity.ProduitStock;
+import com.asustec.gestion_stock.repository.ProduitStockJdbcRepository;
 import com.asustec.gestion_stock.repository.ProduitStockRepository;
+import com.asustec.gestion_stock.web.ChangementsStock;
+import com.asustec.gestion_stock.web.ResumeStockResponse;
+import com.asustec.gestion_stock.web.SoustractionLotResponse;
+import com.asustec.gestion_stock.web.SoustractionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class StockService {
 
     private final ProduitStockRepository repo;
+    private final ProduitStockJdbcRepository jdbcRepo;
+    private final TransactionTemplate tx;
+    // null sauf si asustec.stock.reservation-mode=ledger
+    private final ReservationLedger ledger;
+    private final VersionTable versionStock = new VersionTable();
+    private final ChangementsStock changements;
+    // asustec.stock.refus{motif} : une ligne par produit refusé
+    private final Counter stockInsuffisant;
+    private final Counter produitIntrouvable;
 
-    public StockService(ProduitStockRepository repo) {
+    public StockService(ProduitStockRepository repo,
+                        ProduitStockJdbcRepository jdbcRepo,
+                        TransactionTemplate tx,
+                        ObjectProvider<ReservationLedger> ledger,
+                        ChangementsStock changements,
+                        MeterRegistry registry) {
         this.repo = repo;
+        this.jdbcRepo = jdbcRepo;
+        this.tx = tx;
+        this.ledger = ledger.getIfAvailable();
+        this.changements = changements;
+        this.stockInsuffisant = refus(registry, "stock_insuffisant");
+        this.produitIntrouvable = refus(registry, "produit_introuvable");
+    }
+
+    private static Counter refus(MeterRegistry registry, String motif) {
+        return Counter.builder("asustec.stock.refus")
+                .description("Soustractions refusées")
+                .tag("motif", motif)
+                .register(registry);
+    }
+
+    public VersionTable versionStock() {
+        return versionStock;
     }
 
     public List<ProduitStock> getAll() {
-        return repo.findAll();
+        return vue(repo.findAll());
+    }
+
+    public Optional<ProduitStock> findByCodepdt(Integer codepdt) {
+        return repo.findByCodepdt(codepdt).map(ps -> ledger == null ? ps : ledger.avecDisponible(ps));
+    }
+
+    public List<ProduitStock> findByCodepdts(List<Integer> codepdts) {
+        return vue(repo.findByCodepdtIn(codepdts));
+    }
+
+    public ResumeStockResponse resume(int seuil, int limite) {
+        if (ledger != null) {
+            // les réservations en attente doivent être en base avant l'agrégation
+            ledger.ecrire();
+        }
+        return jdbcRepo.resume(seuil, limite);
     }
 
     public ProduitStock saveProduitStock(ProduitStock ps) {
-        return repo.save(ps);
+        ProduitStock saved;
+        if (ledger == null) {
+            saved = enregistrer(ps);
+        } else {
+            // pas de passage d'écriture du registre entre la transaction et le remplacement
+            saved = ledger.exclusif(Collections.singletonList(ps.getCodepdt()), () -> {
+                ProduitStock s = enregistrer(ps);
+                s.setVersion(ledger.remplacer(s.getCodepdt(), s.getQtepdt(), s.getVersion()));
+                return s;
+            });
+        }
+        versionStock.incrementer();
+        changements.publier(saved);
+        return saved;
+    }
+
+    private ProduitStock enregistrer(ProduitStock ps) {
+        return tx.execute(status -> {
+            ProduitStock s = repo.save(ps);
+            repo.incrementerVersion(s.getCodestock());
+            return repo.findById(s.getCodestock()).orElseThrow();
+        });
     }
 
-    @Transactional
+    /**
+     * @throws IllegalArgumentException si codepdt manque ou si qteCmd n'est pas strictement positive
+     */
     public ProduitStock subtractQuantity(Integer codepdt, Integer qteCmd) {
-        ProduitStock ps = repo.findByCodepdt(codepdt)
-                .orElseThrow(() -> new RuntimeException("Produit non trouvé dans le stock"));
-        if (ps.getQtepdt() < qteCmd) {
+        verifierLigne(codepdt, qteCmd);
+        if (ledger != null) {
+            if (!ledger.connait(codepdt)) {
+                produitIntrouvable.increment();
+                throw new RuntimeException("Produit non trouvé dans le stock");
+            }
+            ProduitStock ps = ledger.reserver(codepdt, qteCmd);
+            if (ps == null) {
+                stockInsuffisant.increment();
+                throw new RuntimeException("Stock insuffisant");
+            }
+            versionStock.incrementer();
+            changements.publier(ps);
+            return ps;
+        }
+
+        // la ligne décrémentée revient par RETURNING : pas de relecture après l'UPDATE
+        List<ProduitStock> lignes = jdbcRepo.decrementerSiSuffisant(Map.of(codepdt, qteCmd));
+        if (lignes.isEmpty()) {
+            if (repo.findByCodepdt(codepdt).isEmpty()) {
+                produitIntrouvable.increment();
+                throw new RuntimeException("Produit non trouvé dans le stock");
+            }
+            stockInsuffisant.increment();
             throw new RuntimeException("Stock insuffisant");
         }
-        ps.setQtepdt(ps.getQtepdt() - qteCmd);
+        ProduitStock ps = lignes.get(0);
+        versionStock.incrementer();
+        changements.publier(ps);
         return ps;
     }
+
+    /**
+     * Soustraction en lot, tout ou rien : un seul UPDATE conditionnel pour toutes les lignes.
+     * Si un produit manque ou n'a pas assez de stock, la transaction est annulée et la
+     * réponse liste chaque ligne en défaut.
+     *
+     * @throws IllegalArgumentException pour une ligne invalide ou un cumul qui dépasse un int,
+     *                                  avant tout accès au stock
+     */
+    public SoustractionLotResponse subtractQuantities(List<SoustractionRequest> lignes) {
+        Map<Integer, Integer> quantites = new LinkedHashMap<>();
+        for (SoustractionRequest l : lignes) {
+            verifierLigne(l.getCodePdt(), l.getQteCmd());
+            try {
+                quantites.merge(l.getCodePdt(), l.getQteCmd(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Quantité trop grande pour le produit " + l.getCodePdt());
+            }
+        }
+        if (quantites.isEmpty()) {
+            return new SoustractionLotResponse(true, List.of());
+        }
+        List<ProduitStock> modifies = new ArrayList<>();
+        SoustractionLotResponse response = ledger != null
+                ? reserverLot(quantites, modifies)
+                : soustraireEnBase(quantites, modifies);
+        if (response.isOk()) {
+            versionStock.incrementer();
+            modifies.forEach(changements::publier);
+        } else {
+            response.getManques().forEach(m ->
+                    (m.getQteDisponible() == null ? produitIntrouvable : stockInsuffisant).increment());
+        }
+        return response;
+    }
+
+    private SoustractionLotResponse soustraireEnBase(Map<Integer, Integer> quantites, List<ProduitStock> modifies) {
+        return tx.execute(status -> {
+            List<ProduitStock> lignes = jdbcRepo.decrementerSiSuffisant(quantites);
+            if (lignes.size() == quantites.size()) {
+                modifies.addAll(lignes);
+                return new SoustractionLotResponse(true, List.of());
+            }
+
+            status.setRollbackOnly();
+
+            Set<Integer> decrementes = lignes.stream().map(ProduitStock::getCodepdt).collect(Collectors.toSet());
+            List<Integer> enDefaut = quantites.keySet().stream()
+                    .filter(codepdt -> !decrementes.contains(codepdt))
+                    .toList();
+            Map<Integer, Integer> dispo = jdbcRepo.quantitesDisponibles(enDefaut);
+            List<SoustractionLotResponse.Manque> manques = new ArrayList<>();
+            for (Integer codepdt : enDefaut) {
+                manques.add(new SoustractionLotResponse.Manque(codepdt, quantites.get(codepdt), dispo.get(codepdt)));
+            }
+            return new SoustractionLotResponse(false, manques);
+        });
+    }
+
+    private SoustractionLotResponse reserverLot(Map<Integer, Integer> quantites, List<ProduitStock> modifies) {
+        Map<Integer, Integer> reserves = new LinkedHashMap<>();
+        List<ProduitStock> etats = new ArrayList<>();
+        List<SoustractionLotResponse.Manque> manques = new ArrayList<>();
+        quantites.forEach((codepdt, qte) -> {
+            if (!ledger.connait(codepdt)) {
+                manques.add(new SoustractionLotResponse.Manque(codepdt, qte, null));
+                return;
+            }
+            ProduitStock etat = ledger.reserver(codepdt, qte);
+            if (etat == null) {
+                manques.add(new SoustractionLotResponse.Manque(codepdt, qte, ledger.disponible(codepdt)));
+            } else {
+                reserves.put(codepdt, qte);
+                etats.add(etat);
+            }
+        });
+
+        if (manques.isEmpty()) {
+            modifies.addAll(etats);
+            return new SoustractionLotResponse(true, List.of());
+        }
+        reserves.forEach(ledger::liberer);
+        return new SoustractionLotResponse(false, manques);
+    }
+
+    // une quantité négative ou nulle augmenterait le stock ou ne ferait qu'incrémenter la version
+    private static void verifierLigne(Integer codepdt, Integer qteCmd) {
+        if (codepdt == null || qteCmd == null || qteCmd <= 0) {
+            throw new IllegalArgumentException("Ligne de soustraction invalide : " + codepdt);
+        }
+    }
+
+    private List<ProduitStock> vue(List<ProduitStock> stocks) {
+        if (ledger == null) {
+            return stocks;
+        }
+        return stocks.stream().map(ledger::avecDisponible).toList();
+    }
 }
@@ -0,0 +1,35 @@
+package com.asustec.gestion_stock.web;
+
+import com.asustec.gestion_stock.entity.ProduitStock;
+
+/**
+ * Nouvel état d'un produit, envoyé sur /api/stock/changements après chaque écriture.
+ */
+public class ChangementStock {
+
+    private final Integer codepdt;
+    private final Integer qtepdt;
+    private final long version;
+
+    public ChangementStock(Integer codepdt, Integer qtepdt, long version) {
+        this.codepdt = codepdt;
+        this.qtepdt = qtepdt;
+        this.version = version;
+    }
+
+    public static ChangementStock of(ProduitStock ps) {
+        return new ChangementStock(ps.getCodepdt(), ps.getQtepdt(), ps.getVersion() == null ? 0 : ps.getVersion());
+    }
+
+    public Integer getCodepdt() {
+        return codepdt;
+    }
+
+    public Integer getQtepdt() {
+        return qtepdt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,158 @@
+package com.asustec.gestion_stock.web;
+
+import com.asustec.gestion_stock.entity.ProduitStock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux des changements de stock en server-sent events (GET /api/stock/changements).
+ * <p>
+ * StockService publie chaque ligne modifiée une fois la transaction validée. Les événements
+ * passent par une file bornée vidée par un seul thread : une commande n'attend jamais un
+ * abonné lent. Si la file déborde, les événements en trop sont abandonnés et les abonnés
+ * reçoivent "resync" pour recharger l'état complet, comme après un import en masse dont
+ * les lignes ne sont pas publiées une à une. Un commentaire part à intervalle
+ * régulier quand rien ne se passe, pour garder les connexions ouvertes.
+ * <p>
+ * La version est propre à chaque produit et croît à chaque écriture : un abonné garde, par
+ * codepdt, l'état de plus grande version, quel que soit l'ordre d'arrivée des événements.
+ */
+@Component
+public class ChangementsStock {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangementsStock.class);
+
+    // réveille le diffuseur pour qu'il envoie "resync" sans attendre le prochain événement
+    private static final Object RESYNC = new Object();
+
+    // file commune : ChangementStock à diffuser, SseEmitter à inscrire ou RESYNC
+    private final BlockingQueue<Object> file = new LinkedBlockingQueue<>();
+    private final AtomicInteger enAttente = new AtomicInteger();
+    private final AtomicBoolean debordement = new AtomicBoolean();
+    private final AtomicBoolean resync = new AtomicBoolean();
+    private final List<SseEmitter> abonnes = new CopyOnWriteArrayList<>();
+    private final int capacite;
+    private final Duration heartbeat;
+    private final Thread diffuseur = new Thread(this::diffuser, "changements-stock");
+
+    private volatile boolean actif = true;
+
+    public ChangementsStock(@Value("${asustec.stock.changements.capacite:10000}") int capacite,
+                            @Value("${asustec.stock.changements.heartbeat:15s}") Duration heartbeat) {
+        this.capacite = capacite;
+        this.heartbeat = heartbeat;
+    }
+
+    @PostConstruct
+    void demarrer() {
+        diffuseur.setDaemon(true);
+        diffuseur.start();
+    }
+
+    /**
+     * Inscrit un abonné. Il reçoit d'abord "connecte" : tout changement validé avant cet
+     * événement est visible dans GET /api/stock/produits, tout changement validé après lui
+     * sera envoyé.
+     */
+    public SseEmitter abonner() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> abonnes.remove(emitter));
+        emitter.onTimeout(() -> abonnes.remove(emitter));
+        emitter.onError(e -> abonnes.remove(emitter));
+        file.add(emitter);
+        return emitter;
+    }
+
+    public void publier(ProduitStock ps) {
+        if (abonnes.isEmpty() && file.isEmpty()) {
+            return;
+        }
+        if (enAttente.incrementAndGet() > capacite) {
+            enAttente.decrementAndGet();
+            debordement.set(true);
+            return;
+        }
+        file.add(ChangementStock.of(ps));
+    }
+
+    /**
+     * Demande aux abonnés de recharger l'état complet, après des écritures validées qui
+     * n'ont pas été publiées.
+     */
+    public void resynchroniser() {
+        resync.set(true);
+        file.add(RESYNC);
+    }
+
+    public int nbAbonnes() {
+        return abonnes.size();
+    }
+
+    private void diffuser() {
+        while (actif) {
+            Object suivant;
+            try {
+                suivant = file.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (debordement.getAndSet(false)) {
+                log.warn("File des changements de stock pleine, les abonnés doivent se resynchroniser");
+                resync.set(true);
+            }
+            if (resync.getAndSet(false)) {
+                abonnes.forEach(a -> envoyer(a, SseEmitter.event().name("resync")));
+            }
+            if (suivant == RESYNC) {
+                continue;
+            }
+            if (suivant == null) {
+                abonnes.forEach(a -> envoyer(a, SseEmitter.event().comment("ping")));
+            } else if (suivant instanceof SseEmitter nouveau) {
+                if (envoyer(nouveau, SseEmitter.event().name("connecte"))) {
+                    abonnes.add(nouveau);
+                }
+            } else {
+                enAttente.decrementAndGet();
+                abonnes.forEach(a -> envoyer(a, SseEmitter.event().name("stock").data(suivant, MediaType.APPLICATION_JSON)));
+            }
+        }
+    }
+
+    private boolean envoyer(SseEmitter emitter, SseEmitter.SseEventBuilder evenement) {
+        try {
+            emitter.send(evenement);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // connexion fermée par le client
+            abonnes.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void arreter() {
+        actif = false;
+        diffuseur.interrupt();
+        abonnes.forEach(SseEmitter::complete);
+    }
+}
@@ -0,0 +1,55 @@
+package com.asustec.gestion_stock.web;
+
+import com.asustec.gestion_stock.entity.ProduitStock;
+
+import java.util.List;
+
+public class ResumeStockResponse {
+
+    private long nbProduits;
+    private long qteTotale;
+    private int seuil;
+    private long nbStockBas;
+    // codestock non renseigné : une ligne par produit, quantités cumulées
+    private List<ProduitStock> stockBas;
+
+    public long getNbProduits() {
+        return nbProduits;
+    }
+
+    public void setNbProduits(long nbProduits) {
+        this.nbProduits = nbProduits;
+    }
+
+    public long getQteTotale() {
+        return qteTotale;
+    }
+
+    public void setQteTotale(long qteTotale) {
+        this.qteTotale = qteTotale;
+    }
+
+    public int getSeuil() {
+        return seuil;
+    }
+
+    public void setSeuil(int seuil) {
+        this.seuil = seuil;
+    }
+
+    public long getNbStockBas() {
+        return nbStockBas;
+    }
+
+    public void setNbStockBas(long nbStockBas) {
+        this.nbStockBas = nbStockBas;
+    }
+
+    public List<ProduitStock> getStockBas() {
+        return stockBas;
+    }
+
+    public void setStockBas(List<ProduitStock> stockBas) {
+        this.stockBas = stockBas;
+    }
+}
@@ -0,0 +1,74 @@
+package com.asustec.gestion_stock.web;
+
+import java.util.List;
+
+public class SoustractionLotResponse {
+
+    private boolean ok;
+    private List<Manque> manques;
+
+    public SoustractionLotResponse() {
+    }
+
+    public SoustractionLotResponse(boolean ok, List<Manque> manques) {
+        this.ok = ok;
+        this.manques = manques;
+    }
+
+    public boolean isOk() {
+        return ok;
+    }
+
+    public void setOk(boolean ok) {
+        this.ok = ok;
+    }
+
+    public List<Manque> getManques() {
+        return manques;
+    }
+
+    public void setManques(List<Manque> manques) {
+        this.manques = manques;
+    }
+
+    public static class Manque {
+
+        private Integer codePdt;
+        private Integer qteDemandee;
+        // null si le produit n'existe pas dans le stock
+        private Integer qteDisponible;
+
+        public Manque() {
+        }
+
+        public Manque(Integer codePdt, Integer qteDemandee, Integer qteDisponible) {
+            this.codePdt = codePdt;
+            this.qteDemandee = qteDemandee;
+            this.qteDisponible = qteDisponible;
+        }
+
+        public Integer getCodePdt() {
+            return codePdt;
+        }
+
+        public void setCodePdt(Integer codePdt) {
+            this.codePdt = codePdt;
+        }
+
+        public Integer getQteDemandee() {
+            return qteDemandee;
+        }
+
+        public void setQteDemandee(Integer qteDemandee) {
+            this.qteDemandee = qteDemandee;
+        }
+
+        public Integer getQteDisponible() {
+            return qteDisponible;
+        }
+
+        public void setQteDisponible(Integer qteDisponible) {
+            this.qteDisponible = qteDisponible;
+        }
+    }
+}
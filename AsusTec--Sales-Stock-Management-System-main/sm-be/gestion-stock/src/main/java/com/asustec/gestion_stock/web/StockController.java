@@ -1,19 +1,55 @@
 package com.asustec.gestion_stock.web;
 
+import com.asustec.commun.cache.CorpsEnCache;
+import com.asustec.commun.importation.LecteurImport;
+import com.asustec.commun.importation.RapportImport;
 import com.asustec.gestion_stock.entity.ProduitStock;
+import com.asustec.gestion_stock.service.ImportStockService;
 import com.asustec.gestion_stock.service.StockService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/stock")
 public class StockController {
 
     private final StockService service;
+    private final ImportStockService importService;
+    private final CorpsEnCache stock;
+    private final ChangementsStock changements;
+    private final ObjectMapper objectMapper;
+    private final int maxLookupOctets;
+    private final int maxLignesSoustraction;
 
-    public StockController(StockService service) {
+    public StockController(StockService service,
+                           ImportStockService importService,
+                           ChangementsStock changements,
+                           ObjectMapper objectMapper,
+                           MappingJackson2CborHttpMessageConverter cbor,
+                           @Value("${asustec.lookup.max-octets:65536}") int maxLookupOctets,
+                           @Value("${asustec.soustraction.max-lignes:1000}") int maxLignesSoustraction) {
         this.service = service;
+        this.importService = importService;
+        this.changements = changements;
+        this.objectMapper = objectMapper;
+        this.maxLookupOctets = maxLookupOctets;
+        this.maxLignesSoustraction = maxLignesSoustraction;
+        this.stock = new CorpsEnCache(service.versionStock(), objectMapper, cbor.getObjectMapper());
     }
 
     @PostMapping("/produits")
@@ -21,18 +57,109 @@ public class StockController {
         return service.saveProduitStock(produitStock);
     }
 
+    // POST /api/stock/produits/import?format=csv|ndjson  (corps lu en flux, Content-Encoding: gzip accepté)
+    // colonnes codepdt, qtepdt : quantité remplacée, produit créé s'il n'a pas de stock ;
+    // réponse : compteurs et erreurs par numéro de ligne
+    @PostMapping("/produits/import")
+    public RapportImport importerStock(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body
+    ) throws IOException {
+        LecteurImport.Format f = formatImport(format);
+        InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+        return importService.importer(in, f);
+    }
+
 
-    // GET /api/stock/produits
+    // GET /api/stock/produits  (JSON ou CBOR, ETag : 304 si If-None-Match correspond)
     @GetMapping("/produits")
-    public List<ProduitStock> getStock() {
-        return service.getAll();
+    public ResponseEntity<byte[]> getStock(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return stock.reponse(service::getAll, accept, acceptEncoding);
+    }
+
+    // GET /api/stock/produits/{codepdt}
+    @GetMapping("/produits/{codepdt}")
+    public ResponseEntity<ProduitStock> getStockProduit(@PathVariable Integer codepdt) {
+        return ResponseEntity.of(service.findByCodepdt(codepdt));
+    }
+
+    // POST /api/stock/produits/lookup  body: [1, 2, 3]  (au plus asustec.lookup.max-octets)
+    @PostMapping("/produits/lookup")
+    public List<ProduitStock> lookupStock(InputStream body) throws IOException {
+        return service.findByCodepdts(lireCodepdts(body));
+    }
+
+    // GET /api/stock/changements  (text/event-stream)
+    // "connecte" à l'inscription, "stock" {codepdt, qtepdt, version} après chaque écriture,
+    // "resync" si des événements ont été perdus : l'abonné recharge alors /produits
+    @GetMapping(path = "/changements", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changements() {
+        return changements.abonner();
     }
 
-    // POST /api/stock/soustraire?codePdt=X&qteCmd=Y
+    // GET /api/stock/resume?seuil=10&limite=50
+    @GetMapping("/resume")
+    public ResumeStockResponse resume(
+            @RequestParam(defaultValue = "10") int seuil,
+            @RequestParam(defaultValue = "50") int limite
+    ) {
+        return service.resume(seuil, Math.min(Math.max(limite, 0), 500));
+    }
+
+    // POST /api/stock/soustraire?codePdt=X&qteCmd=Y  (400 si qteCmd manque ou n'est pas positive)
     @PostMapping("/soustraire")
     public ProduitStock soustraire(@RequestBody SoustractionRequest request) {
-        return service.subtractQuantity(request.getCodePdt(), request.getQteCmd());
+        try {
+            return service.subtractQuantity(request.getCodePdt(), request.getQteCmd());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // POST /api/stock/soustraire/lot  body: [{"codePdt": 1, "qteCmd": 2}, ...], tout ou rien
+    // 409 avec la liste des manques si une ligne ne peut pas être servie ; 400 pour une ligne
+    // invalide, un cumul qui déborde ou plus de asustec.soustraction.max-lignes lignes
+    // (le lot part en un seul UPDATE, deux paramètres par ligne)
+    @PostMapping("/soustraire/lot")
+    public ResponseEntity<SoustractionLotResponse> soustraireLot(@RequestBody List<SoustractionRequest> requests) {
+        if (requests.size() > maxLignesSoustraction) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Lot limité à " + maxLignesSoustraction + " lignes");
+        }
+        SoustractionLotResponse response;
+        try {
+            response = service.subtractQuantities(requests);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.status(response.isOk() ? 200 : 409).body(response);
     }
 
+    // 400 plutôt que 500 pour un format inconnu
+    private static LecteurImport.Format formatImport(String format) {
+        try {
+            return LecteurImport.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'import inconnu : " + format);
+        }
+    }
+
+    // corps lu au plus maxLookupOctets + 1 octets : 413 au-delà, 400 si ce n'est pas un tableau d'entiers
+    private List<Integer> lireCodepdts(InputStream body) throws IOException {
+        byte[] octets = body.readNBytes(maxLookupOctets + 1);
+        if (octets.length > maxLookupOctets) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Recherche limitée à " + maxLookupOctets + " octets");
+        }
+        try {
+            return Arrays.asList(objectMapper.readValue(octets, Integer[].class));
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tableau de codepdt attendu");
+        }
+    }
 
 }
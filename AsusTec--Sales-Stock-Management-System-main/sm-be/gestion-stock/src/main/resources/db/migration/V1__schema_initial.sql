@@ -0,0 +1,6 @@
+-- Schéma tel que créé jusqu'ici par ddl-auto=update ; sans effet sur une base existante.
+CREATE TABLE IF NOT EXISTS produits_stock (
+    codestock integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codepdt   integer,
+    qtepdt    integer
+);
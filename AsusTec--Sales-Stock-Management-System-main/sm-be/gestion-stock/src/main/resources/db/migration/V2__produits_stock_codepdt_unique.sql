@@ -0,0 +1,19 @@
+-- Une seule ligne de stock par produit : les doublons sont fusionnés dans la plus ancienne
+-- ligne, qui reçoit la somme des quantités.
+WITH doublons AS (
+    SELECT codepdt, MIN(codestock) AS garde, SUM(qtepdt) AS total
+    FROM produits_stock
+    WHERE codepdt IS NOT NULL
+    GROUP BY codepdt
+    HAVING COUNT(*) > 1
+)
+UPDATE produits_stock s SET qtepdt = d.total
+FROM doublons d
+WHERE s.codestock = d.garde;
+
+DELETE FROM produits_stock s
+USING (SELECT codepdt, MIN(codestock) AS garde FROM produits_stock GROUP BY codepdt) d
+WHERE s.codepdt = d.codepdt AND s.codestock <> d.garde;
+
+-- L'index de la contrainte sert aussi findByCodepdt et les décréments par codepdt
+ALTER TABLE produits_stock ADD CONSTRAINT uk_produits_stock_codepdt UNIQUE (codepdt);
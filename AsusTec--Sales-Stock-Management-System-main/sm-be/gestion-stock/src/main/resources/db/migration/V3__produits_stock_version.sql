@@ -0,0 +1,3 @@
+-- Version par ligne, incrémentée à chaque écriture : les abonnés de /api/stock/changements
+-- gardent pour chaque produit l'état de plus grande version, quel que soit l'ordre d'arrivée.
+ALTER TABLE produits_stock ADD COLUMN version bigint NOT NULL DEFAULT 0;
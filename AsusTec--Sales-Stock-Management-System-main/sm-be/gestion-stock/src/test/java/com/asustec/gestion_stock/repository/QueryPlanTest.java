@@ -0,0 +1,72 @@
+package com.asustec.gestion_stock.repository;
+
+import com.asustec.commun.sql.PlansRequetes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chaque recherche fréquente utilise l'index prévu dans les migrations, sur les volumes
+ * réels.
+ * <p>
+ * Le schéma vient de Flyway et Hibernate le valide au démarrage. Chaque test charge
+ * 50 000 produits en stock puis lance ANALYZE : les plans sont ceux que choisit PostgreSQL
+ * avec ses réglages par défaut (voir PlansRequetes).
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private PlansRequetes plans;
+
+    @BeforeEach
+    void charger() {
+        jdbc.update("TRUNCATE produits_stock");
+        jdbc.update("INSERT INTO produits_stock (codepdt, qtepdt, version) "
+                + "SELECT g, g % 500, 1 FROM generate_series(1, 50000) g");
+        jdbc.execute("ANALYZE produits_stock");
+        plans = new PlansRequetes(jdbc);
+    }
+
+    @Test
+    void stockLookupByCodepdtUsesUniqueIndex() {
+        plans.assertIndexChoisi("SELECT * FROM produits_stock WHERE codepdt = ?", "produits_stock",
+                "uk_produits_stock_codepdt", 42);
+        plans.assertIndexChoisi("SELECT * FROM produits_stock WHERE codepdt IN (?, ?, ?)", "produits_stock",
+                "uk_produits_stock_codepdt", 1, 2, 3);
+    }
+
+    @Test
+    void conditionalDecrementUsesUniqueIndex() {
+        plans.assertIndexChoisi(ProduitStockJdbcRepository.sqlDecrementer(1), "produits_stock",
+                "uk_produits_stock_codepdt", 42, 1);
+        plans.assertIndexChoisi(ProduitStockJdbcRepository.sqlDecrementer(20), "produits_stock",
+                "uk_produits_stock_codepdt", lot(20).toArray());
+    }
+
+    // 20 produits répartis sur la table, une unité chacun
+    private static List<Object> lot(int lignes) {
+        List<Object> args = new ArrayList<>();
+        for (int i = 1; i <= lignes; i++) {
+            args.add(i * 2_400);
+            args.add(1);
+        }
+        return args;
+    }
+}
@@ -0,0 +1,66 @@
+package com.asustec.gestion_stock.service;
+
+import com.asustec.commun.importation.LecteurImport;
+import com.asustec.commun.importation.RapportImport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compteurs du rapport d'import : une ligne n'est comptée importée qu'une fois écrite.
+ */
+@SpringBootTest(properties = "asustec.import.taille-lot=3")
+@Testcontainers(disabledWithoutDocker = true)
+class ImportStockServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ImportStockService service;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void vider() {
+        jdbc.update("DELETE FROM produits_stock");
+    }
+
+    @Test
+    void repeatedProductInALotIsCountedAsDuplicate() throws Exception {
+        RapportImport rapport = importer("""
+                codepdt;qtepdt
+                1;10
+                1;11
+                2;x
+                2;20
+                3;30
+                """);
+
+        assertThat(rapport.getLignes()).isEqualTo(5);
+        assertThat(rapport.getImportees()).isEqualTo(3);
+        assertThat(rapport.getDoublons()).isEqualTo(1);
+        assertThat(rapport.getRejetees()).isEqualTo(1);
+        assertThat(rapport.getErreurs()).singleElement()
+                .satisfies(e -> assertThat(e.getLigne()).isEqualTo(4));
+        assertThat(jdbc.queryForObject("SELECT qtepdt FROM produits_stock WHERE codepdt = 1", Integer.class)).isEqualTo(11);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM produits_stock", Integer.class)).isEqualTo(3);
+    }
+
+    private RapportImport importer(String csv) throws Exception {
+        return service.importer(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), LecteurImport.Format.CSV);
+    }
+}
@@ -0,0 +1,66 @@
+package com.asustec.gestion_stock.service;
+
+import com.asustec.gestion_stock.repository.ProduitStockJdbcRepository;
+import com.asustec.gestion_stock.repository.ProduitStockRepository;
+import com.asustec.gestion_stock.web.ChangementsStock;
+import com.asustec.gestion_stock.web.SoustractionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Lignes de soustraction refusées avant tout accès au stock : quantité absente, nulle ou
+ * négative (qui augmenterait le stock), cumul d'un même produit qui dépasse un int.
+ */
+class StockServiceTest {
+
+    private final ProduitStockRepository repo = mock(ProduitStockRepository.class);
+    private final ProduitStockJdbcRepository jdbcRepo = mock(ProduitStockJdbcRepository.class);
+    private final TransactionTemplate tx = mock(TransactionTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final StockService service = new StockService(repo, jdbcRepo, tx, mock(ObjectProvider.class),
+            mock(ChangementsStock.class), new SimpleMeterRegistry());
+
+    @Test
+    void nonPositiveQuantityIsRejected() {
+        assertThatThrownBy(() -> service.subtractQuantity(1, -5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.subtractQuantity(1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.subtractQuantities(List.of(ligne(1, 2), ligne(2, -1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repo, jdbcRepo, tx);
+    }
+
+    @Test
+    void missingQuantityIsRejected() {
+        assertThatThrownBy(() -> service.subtractQuantity(1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.subtractQuantities(List.of(ligne(1, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repo, jdbcRepo, tx);
+    }
+
+    @Test
+    void overflowingMergeIsRejected() {
+        assertThatThrownBy(() -> service.subtractQuantities(List.of(ligne(1, Integer.MAX_VALUE), ligne(1, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Quantité trop grande pour le produit 1");
+        verifyNoInteractions(repo, jdbcRepo, tx);
+    }
+
+    private static SoustractionRequest ligne(Integer codepdt, Integer qte) {
+        SoustractionRequest l = new SoustractionRequest();
+        l.setCodePdt(codepdt);
+        l.setQteCmd(qte);
+        return l;
+    }
+}
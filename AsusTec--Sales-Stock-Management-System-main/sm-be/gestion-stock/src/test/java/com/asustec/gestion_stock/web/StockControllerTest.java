@@ -0,0 +1,160 @@
+package com.asustec.gestion_stock.web;
+
+import com.asustec.commun.cache.VersionTable;
+import com.asustec.gestion_stock.entity.ProduitStock;
+import com.asustec.gestion_stock.service.ImportStockService;
+import com.asustec.gestion_stock.service.StockService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StockControllerTest {
+
+    private final StockService service = mock(StockService.class);
+    private final VersionTable version = new VersionTable();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void construire() {
+        when(service.versionStock()).thenReturn(version);
+        StockController controller = new StockController(service, mock(ImportStockService.class),
+                mock(ChangementsStock.class), new ObjectMapper(), new MappingJackson2CborHttpMessageConverter(), 64, 3);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void unchangedListIsNotModified() throws Exception {
+        when(service.getAll()).thenReturn(List.of(stock(1)));
+
+        String etag = mvc.perform(get("/api/stock/produits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].qtepdt").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/stock/produits").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        verify(service, times(1)).getAll();
+    }
+
+    @Test
+    void eachFormatHasItsOwnEtag() throws Exception {
+        when(service.getAll()).thenReturn(List.of(stock(1)));
+
+        String json = mvc.perform(get("/api/stock/produits").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mvc.perform(get("/api/stock/produits").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(cbor).isNotEqualTo(json);
+        // l'ETag JSON ne valide pas le corps CBOR : le client reçoit le format qu'il demande
+        mvc.perform(get("/api/stock/produits").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mvc.perform(get("/api/stock/produits").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void writeInvalidatesTheEtag() throws Exception {
+        when(service.getAll()).thenReturn(List.of(stock(1)), List.of(stock(2)));
+        String etag = mvc.perform(get("/api/stock/produits")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        version.incrementer();
+
+        mvc.perform(get("/api/stock/produits").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$[0].qtepdt").value(2));
+    }
+
+    @Test
+    void lookupReturnsRequestedProducts() throws Exception {
+        ProduitStock ps = new ProduitStock();
+        ps.setCodepdt(2);
+        ps.setQtepdt(5);
+        when(service.findByCodepdts(List.of(1, 2))).thenReturn(List.of(ps));
+
+        mvc.perform(post("/api/stock/produits/lookup").contentType(MediaType.APPLICATION_JSON).content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].qtepdt").value(5));
+    }
+
+    @Test
+    void lookupBodyIsCapped() throws Exception {
+        String corps = "[" + String.join(",", Collections.nCopies(40, "1")) + "]";
+
+        mvc.perform(post("/api/stock/produits/lookup").contentType(MediaType.APPLICATION_JSON).content(corps))
+                .andExpect(status().isPayloadTooLarge());
+        verify(service).versionStock();
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    void lookupRejectsAnythingButAnArrayOfIds() throws Exception {
+        mvc.perform(post("/api/stock/produits/lookup").contentType(MediaType.APPLICATION_JSON).content("{\"codepdt\": 1}"))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).findByCodepdts(anyList());
+    }
+
+    @Test
+    void oversizedSubtractionBatchIsBadRequest() throws Exception {
+        String ligne = "{\"codePdt\": 1, \"qteCmd\": 1}";
+        mvc.perform(post("/api/stock/soustraire/lot").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", Collections.nCopies(4, ligne)) + "]"))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).subtractQuantities(anyList());
+    }
+
+    @Test
+    void invalidSubtractionIsBadRequest() throws Exception {
+        when(service.subtractQuantity(1, -2)).thenThrow(new IllegalArgumentException("Ligne de soustraction invalide : 1"));
+        when(service.subtractQuantities(anyList())).thenThrow(new IllegalArgumentException("Ligne de soustraction invalide : 1"));
+
+        mvc.perform(post("/api/stock/soustraire").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codePdt\": 1, \"qteCmd\": -2}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/stock/soustraire/lot").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"codePdt\": 1, \"qteCmd\": -2}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownImportFormatIsBadRequest() throws Exception {
+        mvc.perform(post("/api/stock/produits/import").param("format", "xlsx").content("codepdt\n1\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static ProduitStock stock(int qtepdt) {
+        ProduitStock p = new ProduitStock();
+        p.setCodepdt(1);
+        p.setQtepdt(qtepdt);
+        return p;
+    }
+}
@@ -0,0 +1,42 @@
+package com.asustec.gestion_vente.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Ordonnanceurs du travail bloquant de gestion-vente : appels au catalogue pendant le listing et
+ * rechargement du cache du catalogue.
+ * <p>
+ * En threads virtuels (spring.threads.virtual.enabled sur un JRE 21+), chaque tâche a son
+ * thread virtuel. Sinon on garde Schedulers.boundedElastic() et un thread dédié au
+ * rechargement : l'applicationTaskExecutor en threads plateforme n'a que 8 threads et une file
+ * non bornée, les listings et les rechargements y attendraient les uns derrière les autres.
+ * Ce sont des Scheduler et non des Executor : un bean Executor ferait disparaître
+ * l'applicationTaskExecutor auto-configuré.
+ */
+@Configuration
+public class ExecuteursConfig {
+
+    // pas de destroyMethod : boundedElastic() est partagé par tout Reactor
+    @Bean(destroyMethod = "")
+    public Scheduler blockingScheduler(Environment env) {
+        return Threading.VIRTUAL.isActive(env) ? virtuel("vente-bloquant-") : Schedulers.boundedElastic();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler catalogueRefresh(Environment env) {
+        // les rechargements sont fusionnés : un seul thread suffit
+        return Threading.VIRTUAL.isActive(env) ? virtuel("catalogue-refresh-") : Schedulers.newSingle("catalogue-refresh", true);
+    }
+
+    private static Scheduler virtuel(String prefixe) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefixe);
+        executor.setVirtualThreads(true);
+        return Schedulers.fromExecutor(executor);
+    }
+}
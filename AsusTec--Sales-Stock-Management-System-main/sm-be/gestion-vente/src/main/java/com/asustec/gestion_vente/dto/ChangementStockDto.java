@@ -0,0 +1,17 @@
+package com.asustec.gestion_vente.dto;
+
+public class ChangementStockDto {
+
+    private Integer codepdt;
+    private Integer qtepdt;
+    private long version;
+
+    public Integer getCodepdt() { return codepdt; }
+    public void setCodepdt(Integer codepdt) { this.codepdt = codepdt; }
+
+    public Integer getQtepdt() { return qtepdt; }
+    public void setQtepdt(Integer qtepdt) { this.qtepdt = qtepdt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
@@ -0,0 +1,49 @@
+package com.asustec.gestion_vente.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class DashboardDto {
+
+    // du plus ancien au mois courant, mois sans vente inclus
+    private List<VentesMoisDto> mois;
+    private Integer nbProduitsCatalogue;
+
+    // false si gestion-stock n'a pas répondu à temps (champs stock à null)
+    private boolean stockConnu;
+    private Long nbProduitsStock;
+    private Long qteStockTotale;
+    private Integer seuil;
+    private Long nbStockBas;
+    // les plus bas d'abord, qteStock renseignée
+    private List<ProduitDto> stockBas;
+
+    private Instant calculeLe;
+
+    public List<VentesMoisDto> getMois() { return mois; }
+    public void setMois(List<VentesMoisDto> mois) { this.mois = mois; }
+
+    public Integer getNbProduitsCatalogue() { return nbProduitsCatalogue; }
+    public void setNbProduitsCatalogue(Integer nbProduitsCatalogue) { this.nbProduitsCatalogue = nbProduitsCatalogue; }
+
+    public boolean isStockConnu() { return stockConnu; }
+    public void setStockConnu(boolean stockConnu) { this.stockConnu = stockConnu; }
+
+    public Long getNbProduitsStock() { return nbProduitsStock; }
+    public void setNbProduitsStock(Long nbProduitsStock) { this.nbProduitsStock = nbProduitsStock; }
+
+    public Long getQteStockTotale() { return qteStockTotale; }
+    public void setQteStockTotale(Long qteStockTotale) { this.qteStockTotale = qteStockTotale; }
+
+    public Integer getSeuil() { return seuil; }
+    public void setSeuil(Integer seuil) { this.seuil = seuil; }
+
+    public Long getNbStockBas() { return nbStockBas; }
+    public void setNbStockBas(Long nbStockBas) { this.nbStockBas = nbStockBas; }
+
+    public List<ProduitDto> getStockBas() { return stockBas; }
+    public void setStockBas(List<ProduitDto> stockBas) { this.stockBas = stockBas; }
+
+    public Instant getCalculeLe() { return calculeLe; }
+    public void setCalculeLe(Instant calculeLe) { this.calculeLe = calculeLe; }
+}
@@ -0,0 +1,24 @@
+package com.asustec.gestion_vente.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class FactureDto {
+
+    private String client;
+    private LocalDate datecmd;
+    private List<LigneFactureDto> lignes;
+    private Integer total;
+
+    public String getClient() { return client; }
+    public void setClient(String client) { this.client = client; }
+
+    public LocalDate getDatecmd() { return datecmd; }
+    public void setDatecmd(LocalDate datecmd) { this.datecmd = datecmd; }
+
+    public List<LigneFactureDto> getLignes() { return lignes; }
+    public void setLignes(List<LigneFactureDto> lignes) { this.lignes = lignes; }
+
+    public Integer getTotal() { return total; }
+    public void setTotal(Integer total) { this.total = total; }
+}
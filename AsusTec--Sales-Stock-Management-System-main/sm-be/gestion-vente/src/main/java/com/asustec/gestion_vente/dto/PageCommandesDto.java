@@ -0,0 +1,18 @@
+package com.asustec.gestion_vente.dto;
+
+import com.asustec.gestion_vente.entity.Commande;
+
+import java.util.List;
+
+public class PageCommandesDto {
+
+    private List<Commande> commandes;
+    // codecmd à passer en "apres" pour la page suivante, null en fin de liste
+    private Integer suivant;
+
+    public List<Commande> getCommandes() { return commandes; }
+    public void setCommandes(List<Commande> commandes) { this.commandes = commandes; }
+
+    public Integer getSuivant() { return suivant; }
+    public void setSuivant(Integer suivant) { this.suivant = suivant; }
+}
@@ -9,6 +9,8 @@ public class ProduitDto {
 
     // + champ optionnel pour quantité dispo
     private Integer qteStock;
+    // false si gestion-stock n'a pas répondu à temps (qteStock est alors null)
+    private Boolean stockConnu;
 
     public Integer getCodepdt() { return codepdt; }
     public void setCodepdt(Integer codepdt) { this.codepdt = codepdt; }
@@ -24,4 +26,7 @@ public class ProduitDto {
 
     public Integer getQteStock() { return qteStock; }
     public void setQteStock(Integer qteStock) { this.qteStock = qteStock; }
+
+    public Boolean getStockConnu() { return stockConnu; }
+    public void setStockConnu(Boolean stockConnu) { this.stockConnu = stockConnu; }
 }
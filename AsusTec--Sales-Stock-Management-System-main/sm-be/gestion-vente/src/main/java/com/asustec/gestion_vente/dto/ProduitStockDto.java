@@ -5,6 +5,8 @@ public class ProduitStockDto {
     private Integer codestock;
     private Integer codepdt;
     private Integer qtepdt;
+    // version de la ligne, croissante à chaque écriture
+    private Long version;
 
     public Integer getCodestock() { return codestock; }
     public void setCodestock(Integer codestock) { this.codestock = codestock; }
@@ -14,4 +16,7 @@ public class ProduitStockDto {
 
     public Integer getQtepdt() { return qtepdt; }
     public void setQtepdt(Integer qtepdt) { this.qtepdt = qtepdt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
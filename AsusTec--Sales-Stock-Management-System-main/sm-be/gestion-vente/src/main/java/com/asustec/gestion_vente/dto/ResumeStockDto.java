@@ -0,0 +1,27 @@
+package com.asustec.gestion_vente.dto;
+
+import java.util.List;
+
+public class ResumeStockDto {
+
+    private long nbProduits;
+    private long qteTotale;
+    private int seuil;
+    private long nbStockBas;
+    private List<ProduitStockDto> stockBas;
+
+    public long getNbProduits() { return nbProduits; }
+    public void setNbProduits(long nbProduits) { this.nbProduits = nbProduits; }
+
+    public long getQteTotale() { return qteTotale; }
+    public void setQteTotale(long qteTotale) { this.qteTotale = qteTotale; }
+
+    public int getSeuil() { return seuil; }
+    public void setSeuil(int seuil) { this.seuil = seuil; }
+
+    public long getNbStockBas() { return nbStockBas; }
+    public void setNbStockBas(long nbStockBas) { this.nbStockBas = nbStockBas; }
+
+    public List<ProduitStockDto> getStockBas() { return stockBas; }
+    public void setStockBas(List<ProduitStockDto> stockBas) { this.stockBas = stockBas; }
+}
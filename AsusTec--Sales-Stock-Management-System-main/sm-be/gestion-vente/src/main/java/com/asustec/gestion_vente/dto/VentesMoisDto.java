@@ -0,0 +1,22 @@
+package com.asustec.gestion_vente.dto;
+
+public class VentesMoisDto {
+
+    // "2025-06"
+    private String mois;
+    private long commandes;
+    private long quantite;
+    private long chiffreAffaires;
+
+    public String getMois() { return mois; }
+    public void setMois(String mois) { this.mois = mois; }
+
+    public long getCommandes() { return commandes; }
+    public void setCommandes(long commandes) { this.commandes = commandes; }
+
+    public long getQuantite() { return quantite; }
+    public void setQuantite(long quantite) { this.quantite = quantite; }
+
+    public long getChiffreAffaires() { return chiffreAffaires; }
+    public void setChiffreAffaires(long chiffreAffaires) { this.chiffreAffaires = chiffreAffaires; }
+}
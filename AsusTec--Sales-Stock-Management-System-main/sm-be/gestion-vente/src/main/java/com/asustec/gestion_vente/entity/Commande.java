@@ -4,11 +4,18 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "commandes")
+@Table(name = "commandes", indexes = {
+        // pagination par clé (codecmd) filtrée par client, produit ou date
+        @Index(name = "idx_commandes_client_codecmd", columnList = "client, codecmd"),
+        @Index(name = "idx_commandes_codepdt_codecmd", columnList = "codepdt, codecmd"),
+        @Index(name = "idx_commandes_datecmd_codecmd", columnList = "datecmd, codecmd")
+})
 public class Commande {
 
+    // blocs de 50 identifiants par nextval (migration V3) : INSERT groupés en lots JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commandes_codecmd_seq")
+    @SequenceGenerator(name = "commandes_codecmd_seq", sequenceName = "commandes_codecmd_seq", allocationSize = 50)
     private Integer codecmd;
 
     private String client;
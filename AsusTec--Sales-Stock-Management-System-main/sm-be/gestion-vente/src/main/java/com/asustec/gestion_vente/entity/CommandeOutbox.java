@@ -0,0 +1,77 @@
+package com.asustec.gestion_vente.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Commande en attente d'envoi vers gestion-commercial, écrite dans la même transaction
+ * que la {@link Commande}. Supprimée une fois l'envoi confirmé.
+ */
+@Entity
+@Table(name = "commandes_outbox")
+public class CommandeOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commandes_outbox_id_seq")
+    @SequenceGenerator(name = "commandes_outbox_id_seq", sequenceName = "commandes_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    private Integer codecmd;
+    private String client;
+    private Integer codepdt;
+    private Integer qtecmd;
+    private LocalDate datecmd;
+
+    private Integer tentatives = 0;
+    private Instant prochainEssai;
+    private Instant verrouJusqua;
+    @Column(length = 1000)
+    private String derniereErreur;
+    // renseignée quand le relais abandonne la ligne après max-tentatives échecs
+    private Instant abandonneeLe;
+
+    public static CommandeOutbox of(Commande cmd) {
+        CommandeOutbox o = new CommandeOutbox();
+        o.setCodecmd(cmd.getCodecmd());
+        o.setClient(cmd.getClient());
+        o.setCodepdt(cmd.getCodepdt());
+        o.setQtecmd(cmd.getQtecmd());
+        o.setDatecmd(cmd.getDatecmd());
+        o.setProchainEssai(Instant.now());
+        return o;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getCodecmd() { return codecmd; }
+    public void setCodecmd(Integer codecmd) { this.codecmd = codecmd; }
+
+    public String getClient() { return client; }
+    public void setClient(String client) { this.client = client; }
+
+    public Integer getCodepdt() { return codepdt; }
+    public void setCodepdt(Integer codepdt) { this.codepdt = codepdt; }
+
+    public Integer getQtecmd() { return qtecmd; }
+    public void setQtecmd(Integer qtecmd) { this.qtecmd = qtecmd; }
+
+    public LocalDate getDatecmd() { return datecmd; }
+    public void setDatecmd(LocalDate datecmd) { this.datecmd = datecmd; }
+
+    public Integer getTentatives() { return tentatives; }
+    public void setTentatives(Integer tentatives) { this.tentatives = tentatives; }
+
+    public Instant getProchainEssai() { return prochainEssai; }
+    public void setProchainEssai(Instant prochainEssai) { this.prochainEssai = prochainEssai; }
+
+    public Instant getVerrouJusqua() { return verrouJusqua; }
+    public void setVerrouJusqua(Instant verrouJusqua) { this.verrouJusqua = verrouJusqua; }
+
+    public String getDerniereErreur() { return derniereErreur; }
+    public void setDerniereErreur(String derniereErreur) { this.derniereErreur = derniereErreur; }
+
+    public Instant getAbandonneeLe() { return abandonneeLe; }
+    public void setAbandonneeLe(Instant abandonneeLe) { this.abandonneeLe = abandonneeLe; }
+}
@@ -0,0 +1,53 @@
+package com.asustec.gestion_vente.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disjoncteur minimal : s'ouvre après {@code seuil} échecs consécutifs, laisse passer un
+ * seul appel d'essai une fois {@code dureeOuverture} écoulée, se referme s'il réussit.
+ */
+public class CircuitBreaker {
+
+    private static final long FERME = 0;
+
+    private final int seuil;
+    private final long dureeOuvertureNanos;
+    private final AtomicInteger echecs = new AtomicInteger();
+    // 0 = fermé, sinon instant (nanoTime) d'ouverture
+    private final AtomicLong ouvertDepuis = new AtomicLong(FERME);
+
+    public CircuitBreaker(int seuil, long dureeOuvertureNanos) {
+        this.seuil = seuil;
+        this.dureeOuvertureNanos = dureeOuvertureNanos;
+    }
+
+    public boolean autorise() {
+        long depuis = ouvertDepuis.get();
+        if (depuis == FERME) {
+            return true;
+        }
+        long now = System.nanoTime();
+        // un seul appelant gagne l'essai, la fenêtre suivante repart de maintenant
+        return now - depuis >= dureeOuvertureNanos && ouvertDepuis.compareAndSet(depuis, now);
+    }
+
+    public void succes() {
+        echecs.set(0);
+        ouvertDepuis.set(FERME);
+    }
+
+    public void echec() {
+        if (echecs.incrementAndGet() >= seuil) {
+            ouvertDepuis.compareAndSet(FERME, System.nanoTime() | 1);
+        }
+    }
+
+    public String etat() {
+        long depuis = ouvertDepuis.get();
+        if (depuis == FERME) {
+            return "FERME";
+        }
+        return System.nanoTime() - depuis >= dureeOuvertureNanos ? "SEMI_OUVERT" : "OUVERT";
+    }
+}
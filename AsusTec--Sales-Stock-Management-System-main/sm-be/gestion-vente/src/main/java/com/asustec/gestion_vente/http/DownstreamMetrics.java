@@ -0,0 +1,176 @@
+package com.asustec.gestion_vente.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Latence par service aval et occupation des pools de connexions Reactor Netty.
+ * <p>
+ * Les mêmes mesures sont publiées dans Micrometer (/actuator/prometheus) :
+ * timer {@code asustec.downstream} par service aval et issue (2xx, 4xx, 5xx ou classe de
+ * l'exception), compteur {@code asustec.downstream.erreurs} et jauges
+ * {@code asustec.downstream.pool.*} par pool.
+ */
+@Component
+public class DownstreamMetrics {
+
+    // bornes supérieures des tranches de latence, en millisecondes
+    private static final long[] TRANCHES_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+
+    private final MeterRegistry registry;
+    private final Map<String, Latences> latences = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> erreurs = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> jauges = new ConcurrentHashMap<>();
+
+    public DownstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // issue : "2xx", "4xx", "5xx" ou nom simple de l'exception
+    public void enregistrer(String downstream, long dureeNanos, String issue, boolean erreur) {
+        latences.computeIfAbsent(downstream, k -> new Latences()).ajouter(dureeNanos, erreur);
+
+        String cle = downstream + " " + issue;
+        timers.computeIfAbsent(cle, k -> Timer.builder("asustec.downstream")
+                        .description("Appels vers les services aval, par tentative")
+                        .tag("downstream", downstream)
+                        .tag("issue", issue)
+                        .register(registry))
+                .record(dureeNanos, TimeUnit.NANOSECONDS);
+        if (erreur) {
+            erreurs.computeIfAbsent(cle, k -> Counter.builder("asustec.downstream.erreurs")
+                            .tag("downstream", downstream)
+                            .tag("issue", issue)
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    public ConnectionProvider.MeterRegistrar registrar(String downstream) {
+        return new ConnectionProvider.MeterRegistrar() {
+            @Override
+            public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+                String cle = downstream + " " + remoteAddress;
+                pools.put(cle, metrics);
+                jauges.put(cle, List.of(
+                        jauge("acquired", downstream, remoteAddress, metrics, ConnectionPoolMetrics::acquiredSize),
+                        jauge("idle", downstream, remoteAddress, metrics, ConnectionPoolMetrics::idleSize),
+                        jauge("allocated", downstream, remoteAddress, metrics, ConnectionPoolMetrics::allocatedSize),
+                        jauge("pending", downstream, remoteAddress, metrics, ConnectionPoolMetrics::pendingAcquireSize)));
+            }
+
+            @Override
+            public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+                String cle = downstream + " " + remoteAddress;
+                pools.remove(cle);
+                List<Meter> meters = jauges.remove(cle);
+                if (meters != null) {
+                    meters.forEach(registry::remove);
+                }
+            }
+        };
+    }
+
+    private Meter jauge(String nom, String downstream, SocketAddress remoteAddress, ConnectionPoolMetrics metrics,
+                        ToDoubleFunction<ConnectionPoolMetrics> valeur) {
+        return Gauge.builder("asustec.downstream.pool." + nom, metrics, valeur)
+                .tag("downstream", downstream)
+                .tag("remote", String.valueOf(remoteAddress))
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        latences.forEach((downstream, l) -> stats.put(downstream, l.stats()));
+
+        Map<String, Object> etatPools = new LinkedHashMap<>();
+        pools.forEach((cle, m) -> {
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("acquired", m.acquiredSize());
+            p.put("idle", m.idleSize());
+            p.put("allocated", m.allocatedSize());
+            p.put("maxAllocated", m.maxAllocatedSize());
+            p.put("pendingAcquire", m.pendingAcquireSize());
+            p.put("maxPendingAcquire", m.maxPendingAcquireSize());
+            etatPools.put(cle, p);
+        });
+        stats.put("pools", etatPools);
+        return stats;
+    }
+
+    private static final class Latences {
+        final LongAdder appels = new LongAdder();
+        final LongAdder erreurs = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder[] tranches = new LongAdder[TRANCHES_MS.length];
+
+        Latences() {
+            for (int i = 0; i < tranches.length; i++) {
+                tranches[i] = new LongAdder();
+            }
+        }
+
+        void ajouter(long dureeNanos, boolean erreur) {
+            appels.increment();
+            if (erreur) {
+                erreurs.increment();
+            }
+            totalNanos.add(dureeNanos);
+            maxNanos.accumulateAndGet(dureeNanos, Math::max);
+            long ms = dureeNanos / 1_000_000;
+            for (int i = 0; i < TRANCHES_MS.length; i++) {
+                if (ms < TRANCHES_MS[i]) {
+                    tranches[i].increment();
+                    break;
+                }
+            }
+        }
+
+        Map<String, Object> stats() {
+            long n = appels.sum();
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("calls", n);
+            s.put("errors", erreurs.sum());
+            s.put("meanMillis", n == 0 ? 0 : totalNanos.sum() / n / 1_000_000.0);
+            s.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            s.put("p50Millis", percentile(n, 0.50));
+            s.put("p99Millis", percentile(n, 0.99));
+            return s;
+        }
+
+        // borne supérieure de la tranche qui contient le percentile demandé
+        Long percentile(long n, double q) {
+            if (n == 0) {
+                return null;
+            }
+            long cible = (long) Math.ceil(n * q);
+            long cumul = 0;
+            for (int i = 0; i < tranches.length; i++) {
+                cumul += tranches[i].sum();
+                if (cumul >= cible) {
+                    return TRANCHES_MS[i] == Long.MAX_VALUE ? null : TRANCHES_MS[i];
+                }
+            }
+            return null;
+        }
+    }
+}
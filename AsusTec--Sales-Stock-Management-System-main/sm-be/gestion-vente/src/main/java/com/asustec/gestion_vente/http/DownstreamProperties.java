@@ -0,0 +1,89 @@
+package com.asustec.gestion_vente.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Réglages des appels vers chaque service aval ({@code asustec.http.downstreams.<nom>.*}).
+ */
+@ConfigurationProperties(prefix = "asustec.http")
+public class DownstreamProperties {
+
+    private Map<String, Downstream> downstreams = new HashMap<>();
+
+    public Map<String, Downstream> getDownstreams() { return downstreams; }
+    public void setDownstreams(Map<String, Downstream> downstreams) { this.downstreams = downstreams; }
+
+    public Downstream get(String name) {
+        return downstreams.getOrDefault(name, new Downstream());
+    }
+
+    public static class Downstream {
+
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 200;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        // nouveaux essais, pour les GET uniquement
+        private int getRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(100);
+        private int circuitFailureThreshold = 5;
+        private Duration circuitOpenDuration = Duration.ofSeconds(10);
+        // "cbor" : réponses demandées en CBOR (JSON en repli), "json" : JSON uniquement
+        private String format = "cbor";
+        // Accept-Encoding: gzip et décompression des réponses
+        private boolean compression = true;
+        // taille maximale d'une réponse décodée en mémoire
+        private DataSize maxInMemorySize = DataSize.ofMegabytes(32);
+        // "user" : jeton de l'appelant transmis tel quel, "service" : jeton de service de gestion-vente
+        private String auth = "user";
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public Duration getResponseTimeout() { return responseTimeout; }
+        public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+
+        public int getGetRetries() { return getRetries; }
+        public void setGetRetries(int getRetries) { this.getRetries = getRetries; }
+
+        public Duration getRetryBackoff() { return retryBackoff; }
+        public void setRetryBackoff(Duration retryBackoff) { this.retryBackoff = retryBackoff; }
+
+        public int getCircuitFailureThreshold() { return circuitFailureThreshold; }
+        public void setCircuitFailureThreshold(int circuitFailureThreshold) { this.circuitFailureThreshold = circuitFailureThreshold; }
+
+        public Duration getCircuitOpenDuration() { return circuitOpenDuration; }
+        public void setCircuitOpenDuration(Duration circuitOpenDuration) { this.circuitOpenDuration = circuitOpenDuration; }
+
+        public String getFormat() { return format; }
+        public void setFormat(String format) { this.format = format; }
+
+        public boolean isCompression() { return compression; }
+        public void setCompression(boolean compression) { this.compression = compression; }
+
+        public DataSize getMaxInMemorySize() { return maxInMemorySize; }
+        public void setMaxInMemorySize(DataSize maxInMemorySize) { this.maxInMemorySize = maxInMemorySize; }
+
+        public String getAuth() { return auth; }
+        public void setAuth(String auth) { this.auth = auth; }
+    }
+}
@@ -0,0 +1,8 @@
+package com.asustec.gestion_vente.http;
+
+public class DownstreamUnavailableException extends RuntimeException {
+
+    public DownstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,185 @@
+package com.asustec.gestion_vente.http;
+
+import com.asustec.commun.cbor.MappersCbor;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Construit les WebClient vers les services aval : pool de connexions borné, délais de
+ * connexion et de réponse, nouvel essai des GET, disjoncteur et mesures par service.
+ * Les réponses sont demandées en CBOR compressé par défaut ; les corps envoyés restent en JSON.
+ * En mode {@code auth=service}, le jeton de l'utilisateur est remplacé par le jeton de service.
+ */
+@Component
+@EnableConfigurationProperties(DownstreamProperties.class)
+public class WebClientFactory {
+
+    private final WebClient.Builder builder;
+    private final DownstreamProperties properties;
+    private final DownstreamMetrics metrics;
+    private final ObjectMapper cborMapper;
+    private final ServiceTokenProvider serviceToken;
+    private final List<ConnectionProvider> providers = new CopyOnWriteArrayList<>();
+    private final Map<String, CircuitBreaker> circuits = new ConcurrentHashMap<>();
+
+    public WebClientFactory(WebClient.Builder builder,
+                            DownstreamProperties properties,
+                            DownstreamMetrics metrics,
+                            Jackson2ObjectMapperBuilder mapperBuilder,
+                            ServiceTokenProvider serviceToken) {
+        this.builder = builder;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.cborMapper = MappersCbor.lecture(mapperBuilder);
+        this.serviceToken = serviceToken;
+    }
+
+    public WebClient create(String name, String baseUrl) {
+        DownstreamProperties.Downstream cfg = properties.get(name);
+
+        ConnectionProvider provider = ConnectionProvider.builder("asustec-" + name)
+                .maxConnections(cfg.getMaxConnections())
+                .pendingAcquireMaxCount(cfg.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(cfg.getPendingAcquireTimeout())
+                .maxIdleTime(cfg.getMaxIdleTime())
+                .metrics(true, () -> metrics.registrar(name))
+                .build();
+        providers.add(provider);
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) cfg.getConnectTimeout().toMillis())
+                .responseTimeout(cfg.getResponseTimeout())
+                .compress(cfg.isCompression());
+
+        CircuitBreaker circuit = new CircuitBreaker(cfg.getCircuitFailureThreshold(), cfg.getCircuitOpenDuration().toNanos());
+        circuits.put(name, circuit);
+
+        // listes complètes décodées d'un bloc : la limite par défaut (256 Ko) est trop basse
+        WebClient.Builder b = builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().maxInMemorySize((int) cfg.getMaxInMemorySize().toBytes());
+                    // sans type explicite, le décodeur prendrait les types JSON par défaut ; pas
+                    // d'encodeur CBOR : il passerait devant JSON pour les corps envoyés
+                    codecs.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+                });
+        if ("cbor".equalsIgnoreCase(cfg.getFormat())) {
+            b.defaultHeader(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.9");
+        }
+        if ("service".equalsIgnoreCase(cfg.getAuth())) {
+            b.filter(jetonService());
+        }
+
+        // le premier filtre enveloppe les suivants : disjoncteur > nouveaux essais > mesure par tentative
+        return b
+                .filter(circuitBreaker(name, circuit))
+                .filter(retryIdempotent(cfg))
+                .filter(mesure(name))
+                .build();
+    }
+
+    public Map<String, String> etatCircuits() {
+        Map<String, String> etats = new LinkedHashMap<>();
+        circuits.forEach((name, c) -> etats.put(name, c.etat()));
+        return etats;
+    }
+
+    // Un seul jeton, réutilisé jusqu'à peu avant son expiration : toujours en cache côté aval
+    private ExchangeFilterFunction jetonService() {
+        return (request, next) -> next.exchange(ClientRequest.from(request)
+                .headers(h -> h.set(HttpHeaders.AUTHORIZATION, serviceToken.authorizationHeader()))
+                .build());
+    }
+
+    private ExchangeFilterFunction circuitBreaker(String name, CircuitBreaker circuit) {
+        return (request, next) -> {
+            if (!circuit.autorise()) {
+                return Mono.error(new DownstreamUnavailableException("Circuit ouvert vers " + name));
+            }
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (response.statusCode().is5xxServerError()) {
+                            circuit.echec();
+                        } else {
+                            circuit.succes();
+                        }
+                    })
+                    .doOnError(e -> circuit.echec());
+        };
+    }
+
+    private ExchangeFilterFunction retryIdempotent(DownstreamProperties.Downstream cfg) {
+        return (request, next) -> {
+            if (request.method() != HttpMethod.GET || cfg.getGetRetries() <= 0) {
+                return next.exchange(request);
+            }
+            return Mono.defer(() -> next.exchange(request))
+                    .flatMap(response -> {
+                        int status = response.statusCode().value();
+                        if (status == 502 || status == 503 || status == 504) {
+                            return response.releaseBody().then(Mono.error(new RetryableStatusException(status)));
+                        }
+                        return Mono.just(response);
+                    })
+                    .retryWhen(Retry.backoff(cfg.getGetRetries(), cfg.getRetryBackoff())
+                            .filter(WebClientFactory::retryable)
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        };
+    }
+
+    private ExchangeFilterFunction mesure(String name) {
+        return (request, next) -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnNext(response -> metrics.enregistrer(name, System.nanoTime() - start,
+                            response.statusCode().value() / 100 + "xx", response.statusCode().isError()))
+                    .doOnError(e -> metrics.enregistrer(name, System.nanoTime() - start,
+                            e.getClass().getSimpleName(), true));
+        });
+    }
+
+    // Erreurs réseau et délai de réponse dépassé ; jamais la saturation du pool local
+    private static boolean retryable(Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return e instanceof RetryableStatusException
+                || cause instanceof IOException
+                || cause instanceof ReadTimeoutException;
+    }
+
+    @PreDestroy
+    void fermer() {
+        providers.forEach(ConnectionProvider::dispose);
+    }
+
+    private static final class RetryableStatusException extends RuntimeException {
+        RetryableStatusException(int status) {
+            super("Réponse " + status + " du service aval");
+        }
+    }
+}
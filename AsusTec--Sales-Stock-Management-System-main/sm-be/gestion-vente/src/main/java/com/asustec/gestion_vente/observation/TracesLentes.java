@@ -0,0 +1,201 @@
+package com.asustec.gestion_vente.observation;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Garde les traces récentes dont la racine locale (requête HTTP, tâche planifiée) a dépassé
+ * {@code seuil}, avec la durée de chaque étape faite dans gestion-vente : appels au catalogue
+ * et au stock, repositories. Les étapes internes des services aval sont dans leur propre
+ * journal, sous le même identifiant de trace.
+ * <p>
+ * Les spans enfants sont mis de côté par trace jusqu'à la fin de la racine ; la table est
+ * bornée et vidée si des traces ne se terminent jamais localement.
+ */
+@Component
+public class TracesLentes extends SpanHandler {
+
+    private static final int MAX_EN_COURS = 10_000;
+
+    private final long seuilMicros;
+    private final int max;
+    private final Map<String, List<Etape>> enCours = new ConcurrentHashMap<>();
+    private final Deque<Trace> lentes = new ArrayDeque<>();
+
+    private final AtomicLong racines = new AtomicLong();
+    private final AtomicLong gardees = new AtomicLong();
+    private final AtomicLong purges = new AtomicLong();
+
+    public TracesLentes(@Value("${asustec.traces.lentes.seuil:200ms}") Duration seuil,
+                        @Value("${asustec.traces.lentes.max:100}") int max) {
+        this.seuilMicros = seuil.toNanos() / 1_000;
+        this.max = max;
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        String traceId = context.traceIdString();
+        boolean racine = context.spanId() == context.localRootId();
+        if (cause != Cause.FINISHED) {
+            if (racine) {
+                enCours.remove(traceId);
+            }
+            return true;
+        }
+
+        Etape etape = new Etape(span);
+        if (!racine) {
+            if (enCours.size() >= MAX_EN_COURS && !enCours.containsKey(traceId)) {
+                purges.incrementAndGet();
+                enCours.clear();
+            }
+            enCours.compute(traceId, (k, etapes) -> {
+                List<Etape> l = etapes == null ? new ArrayList<>() : etapes;
+                l.add(etape);
+                return l;
+            });
+            return true;
+        }
+
+        racines.incrementAndGet();
+        List<Etape> enfants = enCours.remove(traceId);
+        if (etape.dureeMicros >= seuilMicros) {
+            gardees.incrementAndGet();
+            garder(new Trace(traceId, etape, enfants == null ? List.of() : enfants));
+        }
+        return true;
+    }
+
+    /**
+     * Traces lentes les plus récentes d'abord ; {@code uri} filtre sur le début du chemin
+     * de la requête racine, ex. /api/ventes/commande.
+     */
+    public List<Map<String, Object>> recentes(String uri, int limite) {
+        List<Map<String, Object>> resultat = new ArrayList<>();
+        synchronized (lentes) {
+            Iterator<Trace> it = lentes.descendingIterator();
+            while (it.hasNext() && resultat.size() < limite) {
+                Trace t = it.next();
+                if (uri == null || t.racine.cible().startsWith(uri)) {
+                    resultat.add(t.resume());
+                }
+            }
+        }
+        return resultat;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("seuilMillis", seuilMicros / 1_000);
+        stats.put("racines", racines.get());
+        stats.put("gardees", gardees.get());
+        stats.put("enCours", enCours.size());
+        stats.put("purges", purges.get());
+        return stats;
+    }
+
+    private void garder(Trace trace) {
+        synchronized (lentes) {
+            lentes.addLast(trace);
+            while (lentes.size() > max) {
+                lentes.removeFirst();
+            }
+        }
+    }
+
+    private static final class Trace {
+        final String traceId;
+        final Etape racine;
+        final List<Etape> etapes;
+
+        Trace(String traceId, Etape racine, List<Etape> etapes) {
+            this.traceId = traceId;
+            this.racine = racine;
+            this.etapes = etapes;
+        }
+
+        Map<String, Object> resume() {
+            List<Etape> triees = new ArrayList<>(etapes);
+            triees.sort(Comparator.comparingLong(e -> e.debutMicros));
+
+            List<Map<String, Object>> detail = new ArrayList<>();
+            Map<String, Double> parEtape = new LinkedHashMap<>();
+            for (Etape e : triees) {
+                Map<String, Object> d = new LinkedHashMap<>();
+                d.put("etape", e.libelle());
+                d.put("decalageMillis", (e.debutMicros - racine.debutMicros) / 1_000.0);
+                d.put("dureeMillis", e.dureeMicros / 1_000.0);
+                if (e.erreur != null) {
+                    d.put("erreur", e.erreur);
+                }
+                detail.add(d);
+                parEtape.merge(e.libelle(), e.dureeMicros / 1_000.0, Double::sum);
+            }
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("traceId", traceId);
+            r.put("racine", racine.libelle());
+            r.put("debut", Instant.ofEpochSecond(0, racine.debutMicros * 1_000).toString());
+            r.put("dureeMillis", racine.dureeMicros / 1_000.0);
+            if (racine.erreur != null) {
+                r.put("erreur", racine.erreur);
+            }
+            r.put("parEtape", parEtape);
+            r.put("etapes", detail);
+            return r;
+        }
+    }
+
+    // Copie des champs utiles : le MutableSpan n'est pas gardé après end()
+    private static final class Etape {
+        final String nom;
+        final Map<String, String> tags;
+        final long debutMicros;
+        final long dureeMicros;
+        final String erreur;
+
+        Etape(MutableSpan span) {
+            this.nom = span.name();
+            this.tags = span.tags();
+            this.debutMicros = span.startTimestamp();
+            this.dureeMicros = span.finishTimestamp() - span.startTimestamp();
+            this.erreur = span.error() != null ? span.error().toString() : span.tag("error");
+        }
+
+        // chemin de la requête serveur ou client ; vide pour un repository
+        String cible() {
+            String uri = tags.get("uri");
+            return uri == null ? "" : uri;
+        }
+
+        // ex. "http post /soustraire -> localhost", "commandeRepository.save"
+        String libelle() {
+            StringBuilder sb = new StringBuilder(nom == null ? "?" : nom);
+            String uri = tags.get("uri");
+            if (uri != null && (nom == null || !nom.contains(uri))) {
+                sb.append(' ').append(uri);
+            }
+            String client = tags.get("client.name");
+            if (client != null) {
+                sb.append(" -> ").append(client);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.asustec.gestion_vente.repository;
+
+import com.asustec.gestion_vente.entity.Commande;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Agrégats et pages par période sur commandes, hors JPA.
+ */
+@Repository
+public class CommandeJdbcRepository {
+
+    private final JdbcTemplate jdbc;
+
+    public CommandeJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Page par clé sur une période (bornes incluses, null = non bornée), du jour le plus récent
+     * au plus ancien puis par codecmd décroissant : l'index (datecmd, codecmd) est parcouru à
+     * rebours à partir du curseur, sans tri, quel que soit le nombre de commandes de la période.
+     * Le curseur est la dernière commande de la page précédente ({@code apresDate},
+     * {@code apres}), null pour la première page.
+     */
+    public List<Commande> pageParDate(LocalDate du, LocalDate au, LocalDate apresDate, Integer apres, int limite) {
+        List<Object> args = new ArrayList<>();
+        if (du != null) {
+            args.add(du);
+        }
+        if (au != null) {
+            args.add(au);
+        }
+        if (apres != null) {
+            args.add(apresDate);
+            args.add(apres);
+        }
+        args.add(limite);
+
+        return jdbc.query(sqlPageParDate(du != null, au != null, apres != null), (rs, i) -> {
+            Commande cmd = new Commande();
+            cmd.setCodecmd(rs.getInt(1));
+            cmd.setClient(rs.getString(2));
+            cmd.setCodepdt(rs.getObject(3, Integer.class));
+            cmd.setQtecmd(rs.getObject(4, Integer.class));
+            cmd.setDatecmd(rs.getObject(5, LocalDate.class));
+            return cmd;
+        }, args.toArray());
+    }
+
+    // comparaison de lignes : condition d'index sur (datecmd, codecmd), pas un OR de deux plages
+    static String sqlPageParDate(boolean du, boolean au, boolean curseur) {
+        List<String> conditions = new ArrayList<>();
+        if (du) {
+            conditions.add("datecmd >= ?");
+        }
+        if (au) {
+            conditions.add("datecmd <= ?");
+        }
+        if (curseur) {
+            conditions.add("(datecmd, codecmd) < (?, ?)");
+        }
+        return "SELECT codecmd, client, codepdt, qtecmd, datecmd FROM commandes "
+                + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ")
+                + "ORDER BY datecmd DESC, codecmd DESC LIMIT ?";
+    }
+
+    /**
+     * Nombre de commandes et quantités vendues par mois et par produit depuis {@code depuis}.
+     * Une ligne par couple (mois, produit) : le prix est appliqué ensuite, côté service.
+     */
+    public List<VentesProduit> ventesParMois(LocalDate depuis) {
+        String sql = "SELECT date_trunc('month', datecmd)::date, codepdt, COUNT(*), COALESCE(SUM(qtecmd), 0) "
+                + "FROM commandes WHERE datecmd >= ? GROUP BY 1, 2";
+
+        return jdbc.query(sql,
+                (rs, i) -> new VentesProduit(
+                        YearMonth.from(rs.getObject(1, LocalDate.class)),
+                        rs.getInt(2),
+                        rs.getLong(3),
+                        rs.getLong(4)),
+                depuis);
+    }
+
+    public static final class VentesProduit {
+
+        private final YearMonth mois;
+        private final Integer codepdt;
+        private final long commandes;
+        private final long quantite;
+
+        public VentesProduit(YearMonth mois, Integer codepdt, long commandes, long quantite) {
+            this.mois = mois;
+            this.codepdt = codepdt;
+            this.commandes = commandes;
+            this.quantite = quantite;
+        }
+
+        public YearMonth getMois() { return mois; }
+        public Integer getCodepdt() { return codepdt; }
+        public long getCommandes() { return commandes; }
+        public long getQuantite() { return quantite; }
+    }
+}
@@ -0,0 +1,7 @@
+package com.asustec.gestion_vente.repository;
+
+import com.asustec.gestion_vente.entity.CommandeOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CommandeOutboxRepository extends JpaRepository<CommandeOutbox, Long> {
+}
@@ -1,7 +1,38 @@
 package com.asustec.gestion_vente.repository;
 
 import com.asustec.gestion_vente.entity.Commande;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface CommandeRepository extends JpaRepository<Commande, Integer> {
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CommandeRepository extends JpaRepository<Commande, Integer>, JpaSpecificationExecutor<Commande> {
+
+    /**
+     * Page par clé : commandes de codecmd strictement inférieur à {@code apres}, les plus
+     * récentes d'abord. Seuls les filtres non null sont ajoutés à la requête.
+     */
+    default List<Commande> findPage(Integer apres, int limite,
+                                    String client, Integer codepdt, LocalDate du, LocalDate au) {
+        Specification<Commande> spec = (root, query, cb) -> cb.conjunction();
+        if (apres != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.<Integer>get("codecmd"), apres));
+        }
+        if (client != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("client"), client));
+        }
+        if (codepdt != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("codepdt"), codepdt));
+        }
+        if (du != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.<LocalDate>get("datecmd"), du));
+        }
+        if (au != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.<LocalDate>get("datecmd"), au));
+        }
+        return findBy(spec, q -> q.sortBy(Sort.by(Sort.Direction.DESC, "codecmd")).limit(limite).all());
+    }
 }
@@ -0,0 +1,102 @@
+package com.asustec.gestion_vente.repository;
+
+import com.asustec.gestion_vente.entity.Commande;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Réclamation et acquittement des lignes de commandes_outbox. Chaque requête est courte et
+ * auto-commitée : aucune transaction ne reste ouverte pendant l'appel HTTP.
+ */
+@Repository
+public class OutboxJdbcRepository {
+
+    static final String SQL_RECLAMER = "UPDATE commandes_outbox SET verrou_jusqua = now() + make_interval(secs => ?) "
+            + "WHERE id IN (SELECT id FROM commandes_outbox "
+            + "  WHERE prochain_essai <= now() AND (verrou_jusqua IS NULL OR verrou_jusqua < now()) "
+            + "  ORDER BY prochain_essai, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+            + "RETURNING id, codecmd, client, codepdt, qtecmd, datecmd";
+
+    private final JdbcTemplate jdbc;
+
+    public OutboxJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Réserve jusqu'à {@code limite} lignes prêtes pour cette instance pendant {@code bail}.
+     * SKIP LOCKED laisse les autres instances réclamer d'autres lignes en parallèle. Les
+     * échéances les plus anciennes passent d'abord, dans l'ordre de l'index (prochain_essai, id) :
+     * les lignes en attente de nouvel essai ne sont pas parcourues.
+     * Renvoie les commandes indexées par id de ligne outbox.
+     */
+    public Map<Long, Commande> reclamer(int limite, Duration bail) {
+        Map<Long, Commande> reclames = new LinkedHashMap<>();
+        jdbc.query(SQL_RECLAMER, rs -> {
+            Commande cmd = new Commande();
+            cmd.setCodecmd(rs.getInt("codecmd"));
+            cmd.setClient(rs.getString("client"));
+            // colonnes nullables : getInt rendrait 0 pour NULL
+            cmd.setCodepdt(rs.getObject("codepdt", Integer.class));
+            cmd.setQtecmd(rs.getObject("qtecmd", Integer.class));
+            cmd.setDatecmd(rs.getObject("datecmd", LocalDate.class));
+            reclames.put(rs.getLong("id"), cmd);
+        }, bail.toMillis() / 1000.0, limite);
+        return reclames;
+    }
+
+    public void supprimer(Collection<Long> ids) {
+        jdbc.update("DELETE FROM commandes_outbox WHERE id IN (" + placeholders(ids) + ")", ids.toArray());
+    }
+
+    /**
+     * Libère les lignes et repousse le prochain essai : base * 2^tentatives, plafonné à {@code max}
+     * (l'exposant est borné à 20, power(2, tentatives) déborderait). Une ligne qui atteint
+     * {@code maxTentatives} échecs est abandonnée : prochain_essai à NULL, abandonnee_le renseigné.
+     * Renvoie le nombre de lignes abandonnées.
+     */
+    public int reporter(Collection<Long> ids, Duration base, Duration max, int maxTentatives, String erreur) {
+        Object[] args = new Object[ids.size() + 5];
+        args[0] = maxTentatives;
+        args[1] = base.toMillis() / 1000.0;
+        args[2] = max.toMillis() / 1000.0;
+        args[3] = maxTentatives;
+        args[4] = erreur;
+        System.arraycopy(ids.toArray(), 0, args, 5, ids.size());
+
+        return jdbc.queryForObject("WITH reportees AS ("
+                + "UPDATE commandes_outbox SET tentatives = tentatives + 1, verrou_jusqua = NULL, "
+                + "prochain_essai = CASE WHEN tentatives + 1 >= ? THEN NULL "
+                + "  ELSE now() + make_interval(secs => LEAST(? * power(2, LEAST(tentatives, 20)), ?)) END, "
+                + "abandonnee_le = CASE WHEN tentatives + 1 >= ? THEN now() END, "
+                + "derniere_erreur = ? "
+                + "WHERE id IN (" + placeholders(ids) + ") RETURNING abandonnee_le) "
+                + "SELECT count(abandonnee_le) FROM reportees", Integer.class, args);
+    }
+
+    /**
+     * Lignes en attente d'envoi et lignes abandonnées.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        jdbc.query("SELECT count(*) FILTER (WHERE abandonnee_le IS NULL), count(abandonnee_le), "
+                + "min(abandonnee_le) FROM commandes_outbox", rs -> {
+            stats.put("enAttente", rs.getLong(1));
+            stats.put("abandonnees", rs.getLong(2));
+            stats.put("premierAbandon", rs.getObject(3, OffsetDateTime.class));
+        });
+        return stats;
+    }
+
+    private static String placeholders(Collection<?> ids) {
+        return ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+    }
+}
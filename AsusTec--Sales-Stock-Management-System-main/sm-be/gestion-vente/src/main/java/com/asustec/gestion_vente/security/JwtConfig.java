@@ -10,6 +10,9 @@ import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.OctetSequenceKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 
+import com.asustec.commun.security.CachingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,11 +41,14 @@ public class JwtConfig {
         return new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
     }
 
+    // Jetons vérifiés gardés jusqu'à exp : une commande traverse trois services avec le même jeton
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public CachingJwtDecoder jwtDecoder(@Value("${asustec.jwt-cache.max-entries:10000}") int maxEntries,
+                                        MeterRegistry registry) {
         SecretKey key = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        return NimbusJwtDecoder.withSecretKey(key)
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key)
                 .macAlgorithm(MacAlgorithm.HS256)
                 .build();
+        return new CachingJwtDecoder(decoder, maxEntries, registry);
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import com.asustec.commun.security.RolesJwt;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -30,10 +31,14 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/auth/login", "/error").permitAll()
+                        // sonde anonyme ; /actuator/prometheus demande un jeton comme le reste de l'API
+                        .requestMatchers("/actuator/health").permitAll()
+                        // vider le cache du catalogue force un rechargement complet depuis gestion-commercial
+                        .requestMatchers(HttpMethod.DELETE, "/api/ventes/monitoring/catalogue").hasAnyRole("ADMIN", "SERVICE")
                         .anyRequest().authenticated()
                 )
                 // JwtDecoder is auto-wired from JwtConfig
-                .oauth2ResourceServer(oauth2 -> oauth2.jwt())
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(RolesJwt.convertisseur())))
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint((request, response, authException) -> writeJson(response, 401, "Unauthorized"))
                         .accessDeniedHandler((request, response, accessDeniedException) -> writeJson(response, 403, "Forbidden"))
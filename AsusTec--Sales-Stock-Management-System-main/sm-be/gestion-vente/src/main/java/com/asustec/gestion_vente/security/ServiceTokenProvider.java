@@ -0,0 +1,68 @@
+package com.asustec.gestion_vente.security;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jeton de service de gestion-vente, pour les appels faits hors requête utilisateur ou
+ * partagés entre utilisateurs (relais de l'outbox, réplique du stock, cache du catalogue)
+ * et pour tous les appels aval en mode {@code asustec.http.downstreams.<nom>.auth=service}.
+ * Signé avec la même clé HS256 que les jetons de /auth/login et réutilisé jusqu'à peu
+ * avant son expiration.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private static final Duration MARGE = Duration.ofMinutes(5);
+
+    private final JwtEncoder jwtEncoder;
+    private final String issuer;
+    private final Duration ttl;
+
+    private volatile Jwt token;
+
+    public ServiceTokenProvider(JwtEncoder jwtEncoder,
+                                @Value("${jwt.issuer}") String issuer,
+                                @Value("${asustec.service-token.ttl:1h}") Duration ttl) {
+        this.jwtEncoder = jwtEncoder;
+        this.issuer = issuer;
+        this.ttl = ttl;
+    }
+
+    public String authorizationHeader() {
+        Jwt t = token;
+        if (t == null || t.getExpiresAt().isBefore(Instant.now().plus(MARGE))) {
+            t = renouveler();
+        }
+        return "Bearer " + t.getTokenValue();
+    }
+
+    private synchronized Jwt renouveler() {
+        Jwt t = token;
+        Instant now = Instant.now();
+        if (t != null && t.getExpiresAt().isAfter(now.plus(MARGE))) {
+            return t;
+        }
+
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .subject("gestion-vente")
+                .claim("role", "SERVICE")
+                .build();
+
+        // même en-tête que AuthController : HS256 + kid de JwtConfig
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256)
+                .keyId("sm-be-hs256")
+                .build();
+
+        token = jwtEncoder.encode(JwtEncoderParameters.from(header, claims));
+        return token;
+    }
+}
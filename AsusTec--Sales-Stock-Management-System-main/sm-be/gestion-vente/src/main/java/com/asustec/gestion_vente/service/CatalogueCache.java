@@ -0,0 +1,289 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache local du catalogue commercial, indexé par codepdt.
+ * <p>
+ * Une entrée plus vieille que {@code ttl} est encore servie tant qu'elle a moins de
+ * {@code max-stale}, pendant qu'un rechargement part en arrière-plan. Les rechargements
+ * concurrents sont fusionnés en un seul appel vers gestion-commercial. Un codepdt absent
+ * du cache est résolu par un appel ciblé plutôt que par un rechargement complet ; s'il
+ * n'existe pas non plus chez gestion-commercial, il est retenu comme absent pendant
+ * {@code negative-ttl}, ou jusqu'au chargement suivant du catalogue.
+ * <p>
+ * Le catalogue chargé est partagé par tous les appelants : il est toujours lu avec le
+ * jeton de service, y compris en arrière-plan où aucune requête n'est en cours. Seuls les
+ * appels ciblés portent le jeton de l'appelant.
+ */
+@Component
+public class CatalogueCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogueCache.class);
+
+    private final CommercialClient commercialClient;
+    private final ServiceTokenProvider serviceToken;
+    private final Clock clock;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final long negativeTtlMillis;
+    private final int maxEntries;
+    private final Scheduler refresher;
+
+    private volatile Snapshot snapshot;
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    @Autowired
+    public CatalogueCache(CommercialClient commercialClient,
+                          ServiceTokenProvider serviceToken,
+                          @Qualifier("catalogueRefresh") Scheduler refresher,
+                          @Value("${asustec.catalogue-cache.ttl:30s}") Duration ttl,
+                          @Value("${asustec.catalogue-cache.max-stale:5m}") Duration maxStale,
+                          @Value("${asustec.catalogue-cache.negative-ttl:5s}") Duration negativeTtl,
+                          @Value("${asustec.catalogue-cache.max-entries:100000}") int maxEntries) {
+        this(commercialClient, serviceToken, refresher, ttl, maxStale, negativeTtl, maxEntries, Clock.systemUTC());
+    }
+
+    CatalogueCache(CommercialClient commercialClient,
+                   ServiceTokenProvider serviceToken,
+                   Scheduler refresher,
+                   Duration ttl,
+                   Duration maxStale,
+                   Duration negativeTtl,
+                   int maxEntries,
+                   Clock clock) {
+        this.commercialClient = commercialClient;
+        this.serviceToken = serviceToken;
+        this.clock = clock;
+        this.refresher = refresher;
+        this.ttlNanos = ttl.toNanos();
+        this.maxStaleNanos = ttl.plus(maxStale).toNanos();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<ProduitDto> find(Integer codePdt, String authHeader) {
+        Snapshot s = current();
+        ProduitDto p = s.index.get(codePdt);
+        if (p != null) {
+            hits.incrementAndGet();
+            return Optional.of(copy(p));
+        }
+
+        if (estAbsent(s, codePdt)) {
+            hits.incrementAndGet();
+            return Optional.empty();
+        }
+
+        // Catalogue plus grand que le cache, ou produit créé depuis le dernier chargement
+        misses.incrementAndGet();
+        Optional<ProduitDto> found = commercialClient.getProduit(codePdt, authHeader);
+        if (found.isEmpty()) {
+            marquerAbsents(s, List.of(codePdt));
+        } else if (s.complete) {
+            refreshAsync();
+        }
+        return found;
+    }
+
+    public Map<Integer, ProduitDto> findAll(Collection<Integer> codePdts, String authHeader) {
+        Snapshot s = current();
+        Map<Integer, ProduitDto> result = new LinkedHashMap<>();
+        List<Integer> manquants = new ArrayList<>();
+        for (Integer codePdt : codePdts) {
+            ProduitDto p = s.index.get(codePdt);
+            if (p != null) {
+                result.put(codePdt, copy(p));
+            } else if (!estAbsent(s, codePdt)) {
+                manquants.add(codePdt);
+            }
+        }
+
+        if (manquants.isEmpty()) {
+            hits.incrementAndGet();
+            return result;
+        }
+        misses.incrementAndGet();
+        List<ProduitDto> trouves = commercialClient.getProduits(manquants, authHeader);
+        trouves.forEach(p -> result.put(p.getCodepdt(), p));
+        marquerAbsents(s, manquants.stream().filter(c -> !result.containsKey(c)).toList());
+        if (!trouves.isEmpty() && s.complete) {
+            refreshAsync();
+        }
+        return result;
+    }
+
+    public List<ProduitDto> findAll(String authHeader) {
+        Snapshot s = current();
+        if (!s.complete) {
+            misses.incrementAndGet();
+            return commercialClient.getAllProduits(authHeader);
+        }
+        hits.incrementAndGet();
+        return s.index.values().stream().map(CatalogueCache::copy).toList();
+    }
+
+    public int size(String authHeader) {
+        Snapshot s = current();
+        if (!s.complete) {
+            misses.incrementAndGet();
+            return commercialClient.getAllProduits(authHeader).size();
+        }
+        hits.incrementAndGet();
+        return s.index.size();
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot s = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("entries", s == null ? 0 : s.index.size());
+        stats.put("absents", s == null ? 0 : s.absents.size());
+        stats.put("complete", s != null && s.complete);
+        stats.put("ageMillis", s == null ? null : Duration.ofNanos(age(s)).toMillis());
+        return stats;
+    }
+
+    private boolean estAbsent(Snapshot s, Integer codePdt) {
+        Long jusqua = s.absents.get(codePdt);
+        return jusqua != null && jusqua > clock.millis();
+    }
+
+    // entrées propres à ce chargement : le suivant repart d'une liste vide
+    private void marquerAbsents(Snapshot s, List<Integer> codePdts) {
+        long jusqua = clock.millis() + negativeTtlMillis;
+        for (Integer codePdt : codePdts) {
+            if (s.absents.size() >= maxEntries) {
+                return;
+            }
+            s.absents.put(codePdt, jusqua);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null || age(s) > maxStaleNanos) {
+            return reload();
+        }
+        if (age(s) > ttlNanos) {
+            refreshAsync();
+        }
+        return s;
+    }
+
+    private Snapshot reload() {
+        try {
+            return load().join();
+        } catch (CompletionException e) {
+            Snapshot stale = snapshot;
+            if (stale != null) {
+                log.warn("Rechargement du catalogue impossible, on garde la version en cache", e.getCause());
+                return stale;
+            }
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private void refreshAsync() {
+        if (inFlight.get() == null) {
+            refresher.schedule(this::load);
+        }
+    }
+
+    private CompletableFuture<Snapshot> load() {
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            List<ProduitDto> produits = commercialClient.getAllProduits(serviceToken.authorizationHeader());
+            Snapshot s = Snapshot.of(produits, maxEntries, clock.millis());
+            if (!s.complete) {
+                log.warn("Catalogue de {} produits, cache limité à {} entrées", produits.size(), maxEntries);
+            }
+            snapshot = s;
+            refreshes.incrementAndGet();
+            mine.complete(s);
+        } catch (RuntimeException e) {
+            refreshFailures.incrementAndGet();
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.set(null);
+        }
+        return mine;
+    }
+
+    static ProduitDto copy(ProduitDto p) {
+        ProduitDto c = new ProduitDto();
+        c.setCodepdt(p.getCodepdt());
+        c.setNompdt(p.getNompdt());
+        c.setDescpdt(p.getDescpdt());
+        c.setPrixpdt(p.getPrixpdt());
+        return c;
+    }
+
+    private long age(Snapshot s) {
+        return Duration.ofMillis(clock.millis() - s.loadedAt).toNanos();
+    }
+
+    private static final class Snapshot {
+        final Map<Integer, ProduitDto> index;
+        // codepdt inconnus de gestion-commercial -> fin de validité (millis)
+        final Map<Integer, Long> absents = new ConcurrentHashMap<>();
+        final boolean complete;
+        final long loadedAt;
+
+        private Snapshot(Map<Integer, ProduitDto> index, boolean complete, long loadedAt) {
+            this.index = index;
+            this.complete = complete;
+            this.loadedAt = loadedAt;
+        }
+
+        static Snapshot of(List<ProduitDto> produits, int maxEntries, long loadedAt) {
+            Map<Integer, ProduitDto> index = new LinkedHashMap<>();
+            for (ProduitDto p : produits) {
+                if (index.size() >= maxEntries) {
+                    return new Snapshot(index, false, loadedAt);
+                }
+                index.put(p.getCodepdt(), p);
+            }
+            return new Snapshot(index, true, loadedAt);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.asustec.gestion_vente.service;
+
+/**
+ * Commande refusée avant tout appel à gestion-stock (400) : montant hors des bornes d'un int.
+ */
+public class CommandeInvalideException extends RuntimeException {
+
+    public CommandeInvalideException(String message) {
+        super(message);
+    }
+}
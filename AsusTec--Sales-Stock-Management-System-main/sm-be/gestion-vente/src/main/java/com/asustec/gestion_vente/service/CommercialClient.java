@@ -2,42 +2,112 @@ package com.asustec.gestion_vente.service;
 
 import com.asustec.gestion_vente.dto.ProduitDto;
 import com.asustec.gestion_vente.entity.Commande;
+import com.asustec.gestion_vente.http.WebClientFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class CommercialClient {
 
+    // le décodeur CBOR ne lit pas de flux d'éléments : les listes sont décodées d'un bloc
+    private static final ParameterizedTypeReference<List<ProduitDto>> LISTE_PRODUITS = new ParameterizedTypeReference<>() {
+    };
+    // codepdt par appel à /produits/lookup : le corps reste sous asustec.lookup.max-octets de gestion-commercial
+    static final int LOOKUP_LOT = 1000;
+
     private final WebClient webClient;
+    // dernière liste complète reçue et son ETag, renvoyée telle quelle sur 304
+    private volatile Versionnee<List<ProduitDto>> produits;
 
-    public CommercialClient(@Value("${asustec.commercial-url}") String baseUrl) {
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+    public CommercialClient(WebClientFactory webClientFactory,
+                            @Value("${asustec.commercial-url}") String baseUrl) {
+        this.webClient = webClientFactory.create("commercial", baseUrl);
     }
 
     public List<ProduitDto> getAllProduits(String authHeader) {
+        Versionnee<List<ProduitDto>> connue = produits;
         var request = webClient.get().uri("/produits");
 
+        if (authHeader != null && !authHeader.isBlank()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
+        }
+        if (connue != null) {
+            request = request.header(HttpHeaders.IF_NONE_MATCH, connue.etag());
+        }
+
+        List<ProduitDto> liste = request
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && connue != null) {
+                        return response.releaseBody().thenReturn(connue.corps());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createError();
+                    }
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToMono(LISTE_PRODUITS)
+                            .doOnNext(l -> produits = etag == null ? null : new Versionnee<>(etag, l));
+                })
+                .block();
+        // les appelants complètent les produits (qteStock) : la liste gardée reste intacte
+        return liste.stream().map(CatalogueCache::copy).toList();
+    }
+
+    public Optional<ProduitDto> getProduit(Integer codePdt, String authHeader) {
+        var request = webClient.get().uri("/produits/{codepdt}", codePdt);
+
+        if (authHeader != null && !authHeader.isBlank()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
+        }
+
+        return request
+                .retrieve()
+                .bodyToMono(ProduitDto.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .blockOptional();
+    }
+
+    public List<ProduitDto> getProduits(Collection<Integer> codePdts, String authHeader) {
+        List<Integer> ids = new ArrayList<>(codePdts);
+        if (ids.size() <= LOOKUP_LOT) {
+            return lookup(ids, authHeader);
+        }
+        List<ProduitDto> produits = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += LOOKUP_LOT) {
+            produits.addAll(lookup(ids.subList(i, Math.min(i + LOOKUP_LOT, ids.size())), authHeader));
+        }
+        return produits;
+    }
+
+    private List<ProduitDto> lookup(List<Integer> codePdts, String authHeader) {
+        var request = webClient.post()
+                .uri("/produits/lookup")
+                .bodyValue(codePdts);
+
         if (authHeader != null && !authHeader.isBlank()) {
             request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
         }
 
         return request
                 .retrieve()
-                .bodyToFlux(ProduitDto.class)
-                .collectList()
+                .bodyToMono(LISTE_PRODUITS)
                 .block();
     }
 
-    public void sendCommandeToCommercial(Commande cmd, String authHeader) {
+    public void sendCommandesToCommercial(List<Commande> cmds, String authHeader) {
         var request = webClient.post()
-                .uri("/commandes")
-                .bodyValue(cmd);
+                .uri("/commandes/lot")
+                .bodyValue(cmds);
 
         if (authHeader != null && !authHeader.isBlank()) {
             request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
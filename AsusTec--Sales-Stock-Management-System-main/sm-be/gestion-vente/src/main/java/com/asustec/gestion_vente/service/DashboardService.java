@@ -0,0 +1,193 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.DashboardDto;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+import com.asustec.gestion_vente.dto.ResumeStockDto;
+import com.asustec.gestion_vente.dto.VentesMoisDto;
+import com.asustec.gestion_vente.repository.CommandeJdbcRepository;
+import com.asustec.gestion_vente.repository.CommandeJdbcRepository.VentesProduit;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tableau de bord : ventes des derniers mois, totaux du stock et produits en stock bas.
+ * <p>
+ * Les commandes sont agrégées par la base (mois × produit), le stock par gestion-stock, et
+ * seuls les prix et noms des produits concernés sont lus dans le cache du catalogue. Le
+ * résultat est gardé {@code ttl} par couple (mois, seuil) ; les requêtes simultanées sur un
+ * résultat expiré attendent le même calcul.
+ * <p>
+ * Un résultat en cache est servi à tous les appelants : les appels à gestion-stock et au
+ * catalogue portent donc le jeton de service, jamais celui du premier appelant.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+    private static final int MAX_MOIS = 24;
+    private static final int MAX_SEUIL = 1_000_000;
+    private static final int MAX_CLES = 64;
+
+    private final CommandeJdbcRepository commandeJdbcRepo;
+    private final StockClient stockClient;
+    private final CatalogueCache catalogue;
+    private final ServiceTokenProvider serviceToken;
+    private final Clock clock;
+    private final long ttlNanos;
+    private final Duration stockTimeout;
+    private final int limiteStockBas;
+
+    private final Map<String, Calcul> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DashboardService(CommandeJdbcRepository commandeJdbcRepo,
+                            StockClient stockClient,
+                            CatalogueCache catalogue,
+                            ServiceTokenProvider serviceToken,
+                            @Value("${asustec.dashboard.ttl:30s}") Duration ttl,
+                            @Value("${asustec.ventes.stock-timeout:2s}") Duration stockTimeout,
+                            @Value("${asustec.dashboard.stock-bas-limite:20}") int limiteStockBas) {
+        this(commandeJdbcRepo, stockClient, catalogue, serviceToken, ttl, stockTimeout, limiteStockBas, Clock.systemDefaultZone());
+    }
+
+    DashboardService(CommandeJdbcRepository commandeJdbcRepo,
+                     StockClient stockClient,
+                     CatalogueCache catalogue,
+                     ServiceTokenProvider serviceToken,
+                     Duration ttl,
+                     Duration stockTimeout,
+                     int limiteStockBas,
+                     Clock clock) {
+        this.commandeJdbcRepo = commandeJdbcRepo;
+        this.stockClient = stockClient;
+        this.catalogue = catalogue;
+        this.serviceToken = serviceToken;
+        this.clock = clock;
+        this.ttlNanos = ttl.toNanos();
+        this.stockTimeout = stockTimeout;
+        this.limiteStockBas = limiteStockBas;
+    }
+
+    public DashboardDto getDashboard(int mois, int seuil) {
+        int nbMois = Math.max(1, Math.min(mois, MAX_MOIS));
+        int seuilBorne = Math.max(0, Math.min(seuil, MAX_SEUIL));
+        String cle = nbMois + ":" + seuilBorne;
+
+        long maintenant = System.nanoTime();
+        Calcul mien = new Calcul(maintenant);
+        if (cache.size() > MAX_CLES) {
+            cache.clear();
+        }
+        Calcul calcul = cache.compute(cle, (k, c) -> c != null && maintenant - c.debut < ttlNanos ? c : mien);
+
+        if (calcul == mien) {
+            try {
+                mien.resultat.complete(calculer(nbMois, seuilBorne));
+            } catch (RuntimeException e) {
+                cache.remove(cle, mien);
+                mien.resultat.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return calcul.resultat.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private DashboardDto calculer(int nbMois, int seuil) {
+        String authHeader = serviceToken.authorizationHeader();
+        // gestion-stock travaille pendant qu'on agrège les commandes
+        CompletableFuture<ResumeStockDto> stock = stockClient.fetchResume(seuil, limiteStockBas, authHeader)
+                .timeout(stockTimeout)
+                .toFuture();
+
+        YearMonth courant = YearMonth.now(clock);
+        YearMonth premier = courant.minusMonths(nbMois - 1L);
+        List<VentesProduit> ventes = commandeJdbcRepo.ventesParMois(premier.atDay(1));
+
+        ResumeStockDto resume = null;
+        try {
+            resume = stock.join();
+        } catch (CompletionException e) {
+            log.warn("Résumé du stock indisponible, tableau de bord sans stock : {}", e.getCause().toString());
+        }
+
+        Set<Integer> codepdts = new LinkedHashSet<>();
+        ventes.forEach(v -> codepdts.add(v.getCodepdt()));
+        if (resume != null && resume.getStockBas() != null) {
+            resume.getStockBas().forEach(s -> codepdts.add(s.getCodepdt()));
+        }
+        Map<Integer, ProduitDto> produits = codepdts.isEmpty() ? Map.of() : catalogue.findAll(codepdts, authHeader);
+
+        Map<YearMonth, VentesMoisDto> parMois = new LinkedHashMap<>();
+        for (YearMonth m = premier; !m.isAfter(courant); m = m.plusMonths(1)) {
+            VentesMoisDto dto = new VentesMoisDto();
+            dto.setMois(m.toString());
+            parMois.put(m, dto);
+        }
+        for (VentesProduit v : ventes) {
+            VentesMoisDto dto = parMois.get(v.getMois());
+            if (dto == null) {
+                continue;
+            }
+            ProduitDto p = produits.get(v.getCodepdt());
+            long prix = p != null && p.getPrixpdt() != null ? p.getPrixpdt() : 0;
+            dto.setCommandes(dto.getCommandes() + v.getCommandes());
+            dto.setQuantite(dto.getQuantite() + v.getQuantite());
+            dto.setChiffreAffaires(dto.getChiffreAffaires() + prix * v.getQuantite());
+        }
+
+        DashboardDto dashboard = new DashboardDto();
+        dashboard.setMois(new ArrayList<>(parMois.values()));
+        dashboard.setNbProduitsCatalogue(catalogue.size(authHeader));
+        dashboard.setStockConnu(resume != null);
+        if (resume != null) {
+            dashboard.setNbProduitsStock(resume.getNbProduits());
+            dashboard.setQteStockTotale(resume.getQteTotale());
+            dashboard.setSeuil(resume.getSeuil());
+            dashboard.setNbStockBas(resume.getNbStockBas());
+            List<ProduitDto> stockBas = new ArrayList<>();
+            List<ProduitStockDto> lignes = resume.getStockBas() != null ? resume.getStockBas() : List.of();
+            for (ProduitStockDto s : lignes) {
+                ProduitDto p = produits.getOrDefault(s.getCodepdt(), new ProduitDto());
+                p.setCodepdt(s.getCodepdt());
+                p.setQteStock(s.getQtepdt());
+                p.setStockConnu(true);
+                stockBas.add(p);
+            }
+            dashboard.setStockBas(stockBas);
+        }
+        dashboard.setCalculeLe(Instant.now(clock));
+        return dashboard;
+    }
+
+    private static final class Calcul {
+        final long debut;
+        final CompletableFuture<DashboardDto> resultat = new CompletableFuture<>();
+
+        Calcul(long debut) {
+            this.debut = debut;
+        }
+    }
+}
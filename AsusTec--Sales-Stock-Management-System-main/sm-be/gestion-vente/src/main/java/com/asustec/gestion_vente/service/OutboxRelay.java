@@ -0,0 +1,133 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.entity.Commande;
+import com.asustec.gestion_vente.repository.OutboxJdbcRepository;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vide commandes_outbox vers POST /api/commercial/commandes/lot.
+ * <p>
+ * Chaque passage réclame des lots (SKIP LOCKED + bail) jusqu'à ce que la file soit vide :
+ * plusieurs instances de gestion-vente peuvent relayer en parallèle sans se marcher dessus.
+ * Un lot en échec est relâché avec un délai exponentiel ; après {@code max-tentatives}
+ * échecs ses lignes sont abandonnées (voir GET /api/ventes/monitoring/outbox). Un lot refusé
+ * en 4xx est coupé en deux jusqu'à isoler les lignes refusées : elles seules cumulent des
+ * tentatives, les autres sont acquittées. gestion-commercial ignore les codecmd déjà reçus,
+ * un renvoi après un acquittement perdu est donc sans effet.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxJdbcRepository outbox;
+    private final CommercialClient commercialClient;
+    private final ServiceTokenProvider serviceToken;
+    private final int batchSize;
+    private final Duration bail;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final int maxTentatives;
+
+    public OutboxRelay(OutboxJdbcRepository outbox,
+                       CommercialClient commercialClient,
+                       ServiceTokenProvider serviceToken,
+                       @Value("${asustec.outbox.batch-size:100}") int batchSize,
+                       @Value("${asustec.outbox.lease:30s}") Duration bail,
+                       @Value("${asustec.outbox.backoff-base:1s}") Duration backoffBase,
+                       @Value("${asustec.outbox.backoff-max:5m}") Duration backoffMax,
+                       @Value("${asustec.outbox.max-tentatives:50}") int maxTentatives) {
+        this.outbox = outbox;
+        this.commercialClient = commercialClient;
+        this.serviceToken = serviceToken;
+        this.batchSize = batchSize;
+        this.bail = bail;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.maxTentatives = maxTentatives;
+    }
+
+    @Scheduled(fixedDelayString = "${asustec.outbox.poll-interval:200ms}")
+    public void relayer() {
+        Map<Long, Commande> lot;
+        do {
+            lot = outbox.reclamer(batchSize, bail);
+            if (lot.isEmpty()) {
+                return;
+            }
+            if (!envoyer(lot)) {
+                return;
+            }
+        } while (lot.size() == batchSize);
+    }
+
+    /**
+     * Envoie le lot et l'acquitte. Renvoie false si gestion-commercial est injoignable ou en
+     * erreur : le passage s'arrête là.
+     */
+    private boolean envoyer(Map<Long, Commande> lot) {
+        try {
+            commercialClient.sendCommandesToCommercial(new ArrayList<>(lot.values()), serviceToken.authorizationHeader());
+            outbox.supprimer(lot.keySet());
+            return true;
+        } catch (WebClientResponseException e) {
+            if (!refuse(e)) {
+                reporter(lot.keySet(), e);
+                return false;
+            }
+            if (lot.size() == 1) {
+                reporter(lot.keySet(), e);
+                return true;
+            }
+            List<Long> ids = new ArrayList<>(lot.keySet());
+            Map<Long, Commande> premiere = sousLot(lot, ids.subList(0, ids.size() / 2));
+            Map<Long, Commande> seconde = sousLot(lot, ids.subList(ids.size() / 2, ids.size()));
+            if (!envoyer(premiere)) {
+                reporter(seconde.keySet(), e);
+                return false;
+            }
+            return envoyer(seconde);
+        } catch (RuntimeException e) {
+            reporter(lot.keySet(), e);
+            return false;
+        }
+    }
+
+    // 4xx propre au contenu du lot ; 401, 403, 408 et 429 valent pour n'importe quel lot
+    private static boolean refuse(WebClientResponseException e) {
+        int statut = e.getStatusCode().value();
+        return e.getStatusCode().is4xxClientError() && statut != 401 && statut != 403 && statut != 408 && statut != 429;
+    }
+
+    private static Map<Long, Commande> sousLot(Map<Long, Commande> lot, List<Long> ids) {
+        Map<Long, Commande> sousLot = new LinkedHashMap<>();
+        ids.forEach(id -> sousLot.put(id, lot.get(id)));
+        return sousLot;
+    }
+
+    private void reporter(Collection<Long> ids, RuntimeException e) {
+        log.warn("Envoi de {} commandes vers gestion-commercial en échec, nouvel essai plus tard : {}",
+                ids.size(), e.toString());
+        int abandonnees = outbox.reporter(ids, backoffBase, backoffMax, maxTentatives, abreger(e.toString()));
+        if (abandonnees > 0) {
+            log.error("{} commandes abandonnées après {} tentatives vers gestion-commercial", abandonnees, maxTentatives);
+        }
+    }
+
+    private static String abreger(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -1,11 +1,23 @@
 package com.asustec.gestion_vente.service;
 
+import com.asustec.gestion_vente.dto.ChangementStockDto;
 import com.asustec.gestion_vente.dto.ProduitStockDto;
+import com.asustec.gestion_vente.dto.ResumeStockDto;
+import com.asustec.gestion_vente.http.WebClientFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,16 +25,95 @@ import java.util.Map;
 @Service
 public class StockClient {
 
+    // le décodeur CBOR ne lit pas de flux d'éléments : les listes sont décodées d'un bloc
+    private static final ParameterizedTypeReference<List<ProduitStockDto>> LISTE_STOCK = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<ServerSentEvent<ChangementStockDto>> CHANGEMENT = new ParameterizedTypeReference<>() {
+    };
+    // codepdt par appel à /produits/lookup : le corps reste sous asustec.lookup.max-octets de gestion-stock
+    static final int LOOKUP_LOT = 1000;
+
     private final WebClient webClient;
+    // connexion longue du flux SSE : pool et délai de lecture à part
+    private final WebClient fluxClient;
+    // dernier état complet du stock et son ETag, renvoyé tel quel sur 304
+    private volatile Versionnee<List<ProduitStockDto>> stock;
+
+    public StockClient(WebClientFactory webClientFactory,
+                       @Value("${asustec.stock-url}") String baseUrl) {
+        this.webClient = webClientFactory.create("stock", baseUrl);
+        this.fluxClient = webClientFactory.create("stock-changements", baseUrl);
+    }
+
+    // stock complet, pour la réplique et le listing du catalogue entier ; fetchStocks pour quelques produits
+    public Mono<List<ProduitStockDto>> fetchStock(String authHeader) {
+        return Mono.defer(() -> {
+            Versionnee<List<ProduitStockDto>> connu = stock;
+            var request = webClient.get().uri("/produits");
+
+            if (authHeader != null && !authHeader.isBlank()) {
+                request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
+            }
+            if (connu != null) {
+                request = request.header(HttpHeaders.IF_NONE_MATCH, connu.etag());
+            }
+
+            return request.exchangeToMono(response -> {
+                if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && connu != null) {
+                    return response.releaseBody().thenReturn(connu.corps());
+                }
+                if (!response.statusCode().is2xxSuccessful()) {
+                    return response.createError();
+                }
+                String etag = response.headers().asHttpHeaders().getETag();
+                return response.bodyToMono(LISTE_STOCK)
+                        .map(List::copyOf)
+                        .doOnNext(l -> stock = etag == null ? null : new Versionnee<>(etag, l));
+            });
+        });
+    }
+
+    // POST /api/stock/produits/lookup, par lots de LOOKUP_LOT : une réponse par produit connu du stock
+    public Mono<List<ProduitStockDto>> fetchStocks(Collection<Integer> codePdts, String authHeader) {
+        List<Integer> ids = new ArrayList<>(codePdts);
+        return Flux.range(0, (ids.size() + LOOKUP_LOT - 1) / LOOKUP_LOT)
+                .concatMap(i -> lookup(ids.subList(i * LOOKUP_LOT, Math.min((i + 1) * LOOKUP_LOT, ids.size())), authHeader))
+                .concatMapIterable(l -> l)
+                .collectList();
+    }
+
+    private Mono<List<ProduitStockDto>> lookup(List<Integer> codePdts, String authHeader) {
+        var request = webClient.post()
+                .uri("/produits/lookup")
+                .bodyValue(codePdts);
+
+        if (authHeader != null && !authHeader.isBlank()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
+        }
+
+        return request
+                .retrieve()
+                .bodyToMono(LISTE_STOCK);
+    }
 
-    public StockClient(@Value("${asustec.stock-url}") String baseUrl) {
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+    // GET /api/stock/changements : événements "connecte", "stock", "resync" et commentaires de maintien
+    public Flux<ServerSentEvent<ChangementStockDto>> changements(String authHeader) {
+        var request = fluxClient.get()
+                .uri("/changements")
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        if (authHeader != null && !authHeader.isBlank()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
+        }
+
+        return request
+                .retrieve()
+                .bodyToFlux(CHANGEMENT);
     }
 
-    public List<ProduitStockDto> getStock(String authHeader) {
-        var request = webClient.get().uri("/produits");
+    public Mono<ResumeStockDto> fetchResume(int seuil, int limite, String authHeader) {
+        var request = webClient.get()
+                .uri(b -> b.path("/resume").queryParam("seuil", seuil).queryParam("limite", limite).build());
 
         if (authHeader != null && !authHeader.isBlank()) {
             request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
@@ -30,8 +121,28 @@ public class StockClient {
 
         return request
                 .retrieve()
-                .bodyToFlux(ProduitStockDto.class)
-                .collectList()
+                .bodyToMono(ResumeStockDto.class);
+    }
+
+    public void subtractStockLot(Map<Integer, Integer> quantites, String authHeader) {
+        List<Map<String, Object>> requestBody = quantites.entrySet().stream()
+                .map(e -> Map.<String, Object>of("codePdt", e.getKey(), "qteCmd", e.getValue()))
+                .toList();
+
+        // JSON : le corps d'un 409 est repris tel quel dans le message d'erreur
+        var request = webClient.post()
+                .uri("/soustraire/lot")
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody);
+
+        if (authHeader != null && !authHeader.isBlank()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, authHeader);
+        }
+
+        request.retrieve()
+                .bodyToMono(Void.class)
+                .onErrorMap(WebClientResponseException.Conflict.class,
+                        e -> new StockInsuffisantException("Stock insuffisant : " + e.getResponseBodyAsString()))
                 .block();
     }
 
@@ -50,6 +161,8 @@ public class StockClient {
 
         request.retrieve()
                 .bodyToMono(Void.class)
+                .onErrorMap(WebClientResponseException.Conflict.class,
+                        e -> new StockInsuffisantException("Stock insuffisant : " + e.getResponseBodyAsString()))
                 .block();
     }
 }
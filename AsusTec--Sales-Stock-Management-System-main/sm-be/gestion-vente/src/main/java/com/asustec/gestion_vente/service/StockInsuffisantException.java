@@ -0,0 +1,11 @@
+package com.asustec.gestion_vente.service;
+
+/**
+ * Refus de gestion-stock (409) : au moins une ligne ne peut pas être servie.
+ */
+public class StockInsuffisantException extends RuntimeException {
+
+    public StockInsuffisantException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,179 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.ChangementStockDto;
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réplique locale du stock, tenue à jour par le flux GET /api/stock/changements.
+ * <p>
+ * À chaque connexion ("connecte") et sur "resync", l'état complet est rechargé depuis
+ * /produits ; chaque événement "stock" remplace ensuite l'état d'un produit si sa version
+ * est plus grande que celle connue. Les versions étant propres à chaque produit, l'ordre
+ * d'arrivée entre l'état complet et les événements est sans importance.
+ * <p>
+ * La réplique ne sert que si elle est synchronisée et si le flux a donné signe de vie depuis
+ * moins de {@code max-silence} ; sinon VenteService interroge gestion-stock. Après une
+ * coupure, le flux se reconnecte avec un délai croissant et recharge l'état complet.
+ */
+@Component
+public class StockReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReplica.class);
+
+    private final StockClient stockClient;
+    private final ServiceTokenProvider serviceToken;
+    private final boolean active;
+    private final long maxSilenceNanos;
+    private final Duration reconnexionMin;
+    private final Duration reconnexionMax;
+
+    private final Map<Integer, Etat> etats = new ConcurrentHashMap<>();
+    private volatile boolean synchronise;
+    private volatile long dernierSigne = System.nanoTime();
+    private volatile Disposable abonnement;
+
+    private final AtomicLong evenements = new AtomicLong();
+    private final AtomicLong chargements = new AtomicLong();
+    private final AtomicLong connexions = new AtomicLong();
+    private final AtomicLong coupures = new AtomicLong();
+
+    public StockReplica(StockClient stockClient,
+                        ServiceTokenProvider serviceToken,
+                        @Value("${asustec.stock-replica.enabled:true}") boolean active,
+                        @Value("${asustec.stock-replica.max-silence:45s}") Duration maxSilence,
+                        @Value("${asustec.stock-replica.reconnect-min:1s}") Duration reconnexionMin,
+                        @Value("${asustec.stock-replica.reconnect-max:30s}") Duration reconnexionMax) {
+        this.stockClient = stockClient;
+        this.serviceToken = serviceToken;
+        this.active = active;
+        this.maxSilenceNanos = maxSilence.toNanos();
+        this.reconnexionMin = reconnexionMin;
+        this.reconnexionMax = reconnexionMax;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (!active) {
+            return;
+        }
+        // transientErrors : le délai repart du minimum dès qu'une connexion a reçu des événements
+        abonnement = Flux.defer(this::suivre)
+                .doOnError(e -> {
+                    coupures.incrementAndGet();
+                    log.warn("Flux des changements de stock interrompu, reconnexion : {}", e.toString());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, reconnexionMin)
+                        .maxBackoff(reconnexionMax)
+                        .transientErrors(true))
+                .repeatWhen(fins -> fins.delayElements(reconnexionMin))
+                .subscribe();
+    }
+
+    public boolean disponible() {
+        return synchronise && System.nanoTime() - dernierSigne < maxSilenceNanos;
+    }
+
+    // Quantité connue pour un produit, 0 s'il n'a pas de ligne de stock
+    public int quantite(Integer codepdt) {
+        Etat e = etats.get(codepdt);
+        return e == null ? 0 : e.qtepdt;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", active);
+        stats.put("synchronise", synchronise);
+        stats.put("disponible", disponible());
+        stats.put("produits", etats.size());
+        stats.put("evenements", evenements.get());
+        stats.put("chargements", chargements.get());
+        stats.put("connexions", connexions.get());
+        stats.put("coupures", coupures.get());
+        stats.put("silenceMillis", Duration.ofNanos(System.nanoTime() - dernierSigne).toMillis());
+        return stats;
+    }
+
+    private Flux<Void> suivre() {
+        connexions.incrementAndGet();
+        return stockClient.changements(serviceToken.authorizationHeader())
+                .doOnNext(e -> dernierSigne = System.nanoTime())
+                .concatMap(this::traiter)
+                .doFinally(s -> synchronise = false);
+    }
+
+    private Mono<Void> traiter(ServerSentEvent<ChangementStockDto> evenement) {
+        String type = evenement.event();
+        if ("connecte".equals(type) || "resync".equals(type)) {
+            // des événements ont pu être manqués : pas de réponse locale avant le rechargement
+            synchronise = false;
+            if ("connecte".equals(type)) {
+                // gestion-stock a pu redémarrer : on ne garde aucune version d'avant la connexion
+                etats.clear();
+            }
+            return stockClient.fetchStock(serviceToken.authorizationHeader())
+                    .doOnNext(this::charger)
+                    .then();
+        }
+        if ("stock".equals(type) && evenement.data() != null) {
+            ChangementStockDto c = evenement.data();
+            evenements.incrementAndGet();
+            fusionner(c.getCodepdt(), c.getQtepdt(), c.getVersion());
+        }
+        return Mono.empty();
+    }
+
+    private void charger(List<ProduitStockDto> stock) {
+        for (ProduitStockDto ps : stock) {
+            fusionner(ps.getCodepdt(), ps.getQtepdt(), ps.getVersion() == null ? 0 : ps.getVersion());
+        }
+        chargements.incrementAndGet();
+        synchronise = true;
+        log.info("Réplique du stock chargée : {} produits", etats.size());
+    }
+
+    private void fusionner(Integer codepdt, Integer qtepdt, long version) {
+        if (codepdt == null || qtepdt == null) {
+            return;
+        }
+        etats.merge(codepdt, new Etat(qtepdt, version),
+                (connu, recu) -> recu.version > connu.version ? recu : connu);
+    }
+
+    @PreDestroy
+    void arreter() {
+        Disposable a = abonnement;
+        if (a != null) {
+            a.dispose();
+        }
+    }
+
+    private static final class Etat {
+        final int qtepdt;
+        final long version;
+
+        Etat(int qtepdt, long version) {
+            this.qtepdt = qtepdt;
+            this.version = version;
+        }
+    }
+}
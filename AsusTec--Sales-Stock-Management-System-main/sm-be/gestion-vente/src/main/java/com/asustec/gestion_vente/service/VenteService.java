@@ -1,42 +1,189 @@
 package com.asustec.gestion_vente.service;
 
+import com.asustec.gestion_vente.dto.FactureDto;
 import com.asustec.gestion_vente.dto.LigneFactureDto;
+import com.asustec.gestion_vente.dto.PageCommandesDto;
 import com.asustec.gestion_vente.dto.ProduitDto;
 import com.asustec.gestion_vente.dto.ProduitStockDto;
 import com.asustec.gestion_vente.entity.Commande;
+import com.asustec.gestion_vente.entity.CommandeOutbox;
+import com.asustec.gestion_vente.repository.CommandeJdbcRepository;
+import com.asustec.gestion_vente.repository.CommandeOutboxRepository;
 import com.asustec.gestion_vente.repository.CommandeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class VenteService {
 
+    private static final Logger log = LoggerFactory.getLogger(VenteService.class);
+    private static final int MAX_PAGE = 500;
+
     private final CommandeRepository commandeRepo;
-    private final CommercialClient commercialClient;
+    private final CommandeJdbcRepository commandeJdbcRepo;
+    private final CommandeOutboxRepository outboxRepo;
     private final StockClient stockClient;
+    private final CatalogueCache catalogue;
+    private final StockReplica stockReplica;
+    private final Duration catalogueTimeout;
+    private final Duration stockTimeout;
+    private final boolean stockPartiel;
+    private final Scheduler blockingScheduler;
+    // asustec.ventes.refus{motif} : commandes refusées avant tout enregistrement
+    private final Counter produitIntrouvable;
+    private final Counter stockInsuffisant;
 
     public VenteService(CommandeRepository commandeRepo,
-                        CommercialClient commercialClient,
-                        StockClient stockClient) {
+                        CommandeJdbcRepository commandeJdbcRepo,
+                        CommandeOutboxRepository outboxRepo,
+                        StockClient stockClient,
+                        CatalogueCache catalogue,
+                        StockReplica stockReplica,
+                        MeterRegistry registry,
+                        @Qualifier("blockingScheduler") Scheduler blockingScheduler,
+                        @Value("${asustec.ventes.catalogue-timeout:3s}") Duration catalogueTimeout,
+                        @Value("${asustec.ventes.stock-timeout:2s}") Duration stockTimeout,
+                        @Value("${asustec.ventes.stock-partiel:true}") boolean stockPartiel) {
         this.commandeRepo = commandeRepo;
-        this.commercialClient = commercialClient;
+        this.commandeJdbcRepo = commandeJdbcRepo;
+        this.outboxRepo = outboxRepo;
         this.stockClient = stockClient;
+        this.catalogue = catalogue;
+        this.stockReplica = stockReplica;
+        this.catalogueTimeout = catalogueTimeout;
+        this.stockTimeout = stockTimeout;
+        this.stockPartiel = stockPartiel;
+        // boundedElastic, ou threads virtuels (ExecuteursConfig)
+        this.blockingScheduler = blockingScheduler;
+        this.produitIntrouvable = refus(registry, "produit_introuvable");
+        this.stockInsuffisant = refus(registry, "stock_insuffisant");
+    }
+
+    private static Counter refus(MeterRegistry registry, String motif) {
+        return Counter.builder("asustec.ventes.refus")
+                .description("Commandes refusées")
+                .tag("motif", motif)
+                .register(registry);
     }
 
     public List<Commande> getAllCommandes() {
         return commandeRepo.findAll();
     }
 
+    public PageCommandesDto getCommandes(Integer apres, int limite,
+                                         String client, Integer codepdt, LocalDate du, LocalDate au) {
+        int taille = Math.max(1, Math.min(limite, MAX_PAGE));
+        // une ligne de plus pour savoir s'il reste une page
+        List<Commande> lignes = client == null && codepdt == null && (du != null || au != null)
+                ? pageParDate(apres, taille + 1, du, au)
+                : commandeRepo.findPage(apres, taille + 1, client, codepdt, du, au);
+
+        PageCommandesDto page = new PageCommandesDto();
+        if (lignes.size() > taille) {
+            lignes = lignes.subList(0, taille);
+            page.setSuivant(lignes.get(taille - 1).getCodecmd());
+        }
+        page.setCommandes(lignes);
+        return page;
+    }
+
+    // période seule : page par (datecmd, codecmd), le jour du curseur est relu par sa clé
+    private List<Commande> pageParDate(Integer apres, int limite, LocalDate du, LocalDate au) {
+        LocalDate apresDate = null;
+        if (apres != null) {
+            apresDate = commandeRepo.findById(apres)
+                    .map(Commande::getDatecmd)
+                    .orElseThrow(() -> new IllegalArgumentException("Curseur inconnu : apres=" + apres));
+        }
+        return commandeJdbcRepo.pageParDate(du, au, apresDate, apres, limite);
+    }
+
     public List<ProduitDto> getProduitsAvecStock(String authHeader) {
+        return avecStock(() -> catalogue.findAll(authHeader), stockClient.fetchStock(authHeader));
+    }
 
-        List<ProduitDto> produits = commercialClient.getAllProduits(authHeader);
-        List<ProduitStockDto> stocks = stockClient.getStock(authHeader);
+    /**
+     * Seulement les produits demandés, catalogue et stock interrogés sur ces codepdt : la taille
+     * des échanges ne dépend pas de celle du catalogue. Les codepdt inconnus du catalogue sont ignorés.
+     */
+    public List<ProduitDto> getProduitsAvecStock(Collection<Integer> codePdts, String authHeader) {
+        if (codePdts.isEmpty()) {
+            return List.of();
+        }
+        return avecStock(() -> new ArrayList<>(catalogue.findAll(codePdts, authHeader).values()),
+                stockClient.fetchStocks(codePdts, authHeader));
+    }
+
+    // stocksDemandes n'est souscrit que si la réplique n'est pas disponible
+    private List<ProduitDto> avecStock(Supplier<List<ProduitDto>> catalogueDemande,
+                                       Mono<List<ProduitStockDto>> stocksDemandes) {
+
+        if (stockReplica.disponible()) {
+            // réplique tenue par le flux de gestion-stock : aucun appel au stock
+            List<ProduitDto> produits = catalogueDemande.get();
+            produits.forEach(p -> {
+                p.setQteStock(stockReplica.quantite(p.getCodepdt()));
+                p.setStockConnu(true);
+            });
+            return produits;
+        }
+
+        // Catalogue et stock sont demandés en parallèle, un seul point d'attente
+        Mono<List<ProduitDto>> produitsMono = Mono
+                .fromCallable(catalogueDemande::get)
+                .subscribeOn(blockingScheduler)
+                .timeout(catalogueTimeout);
+
+        Mono<Optional<List<ProduitStockDto>>> stocksMono = stocksDemandes
+                .timeout(stockTimeout)
+                .map(Optional::of);
+        if (stockPartiel) {
+            stocksMono = stocksMono.onErrorResume(e -> {
+                log.warn("Stock indisponible, produits renvoyés sans quantité : {}", e.toString());
+                return Mono.just(Optional.empty());
+            });
+        }
+
+        var resultat = Mono.zip(produitsMono, stocksMono).block();
+        List<ProduitDto> produits = resultat.getT1();
+        Optional<List<ProduitStockDto>> stocks = resultat.getT2();
+
+        if (stocks.isEmpty()) {
+            produits.forEach(p -> {
+                p.setQteStock(null);
+                p.setStockConnu(false);
+            });
+            return produits;
+        }
+
+        appliquerStock(produits, stocks.get());
+        return produits;
+    }
 
+    /**
+     * Complète chaque produit avec sa quantité en stock, 0 s'il n'a pas de ligne de stock.
+     * Statique pour FusionStockBenchmark (module benchmarks, même paquet).
+     */
+    static void appliquerStock(List<ProduitDto> produits, List<ProduitStockDto> stocks) {
         Map<Integer, Integer> mapStock = stocks.stream()
                 .collect(Collectors.toMap(
                         ProduitStockDto::getCodepdt,
@@ -44,11 +191,10 @@ public class VenteService {
                         Integer::sum
                 ));
 
-        produits.forEach(p ->
-                p.setQteStock(mapStock.getOrDefault(p.getCodepdt(), 0))
-        );
-
-        return produits;
+        produits.forEach(p -> {
+            p.setQteStock(mapStock.getOrDefault(p.getCodepdt(), 0));
+            p.setStockConnu(true);
+        });
     }
 
     @Transactional
@@ -59,12 +205,19 @@ public class VenteService {
             String authHeader
     ) {
 
-        ProduitDto produit = commercialClient.getAllProduits(authHeader).stream()
-                .filter(p -> p.getCodepdt().equals(codePdt))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Produit introuvable"));
+        ProduitDto produit = catalogue.find(codePdt, authHeader)
+                .orElseThrow(() -> {
+                    produitIntrouvable.increment();
+                    return new RuntimeException("Produit introuvable");
+                });
+        int total = montant(produit.getPrixpdt(), qteCmd);
 
-        stockClient.subtractStock(codePdt, qteCmd, authHeader);
+        try {
+            stockClient.subtractStock(codePdt, qteCmd, authHeader);
+        } catch (StockInsuffisantException e) {
+            stockInsuffisant.increment();
+            throw e;
+        }
 
         Commande cmd = new Commande();
         cmd.setClient(client);
@@ -73,7 +226,8 @@ public class VenteService {
         cmd.setDatecmd(LocalDate.now());
         cmd = commandeRepo.save(cmd);
 
-        commercialClient.sendCommandeToCommercial(cmd, authHeader);
+        // envoyée à gestion-commercial par OutboxRelay après le commit
+        outboxRepo.save(CommandeOutbox.of(cmd));
 
         LigneFactureDto facture = new LigneFactureDto();
         facture.setCodecmd(cmd.getCodecmd());
@@ -82,9 +236,97 @@ public class VenteService {
         facture.setNompdt(produit.getNompdt());
         facture.setPrixpdt(produit.getPrixpdt());
         facture.setQtecmd(qteCmd);
-        facture.setTotal(produit.getPrixpdt() * qteCmd);
+        facture.setTotal(total);
         facture.setDatecmd(cmd.getDatecmd());
 
         return facture;
     }
+
+    /**
+     * Commande multi-lignes : un seul accès catalogue, une seule soustraction de stock
+     * et un seul saveAll (commandes + outbox) pour tout le panier.
+     * {@code quantites} associe chaque codepdt du panier à sa quantité totale, strictement
+     * positive : VenteController valide et cumule les lignes de la requête.
+     */
+    @Transactional
+    public FactureDto passerPanier(
+            String client,
+            Map<Integer, Integer> quantites,
+            String authHeader
+    ) {
+        Map<Integer, ProduitDto> produits = catalogue.findAll(quantites.keySet(), authHeader);
+        for (Integer codePdt : quantites.keySet()) {
+            if (!produits.containsKey(codePdt)) {
+                produitIntrouvable.increment();
+                throw new RuntimeException("Produit introuvable : " + codePdt);
+            }
+        }
+        // montants vérifiés avant la soustraction du stock, qu'une annulation ici ne rendrait pas
+        Map<Integer, Integer> montants = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<Integer, Integer> e : quantites.entrySet()) {
+            int montant = montant(produits.get(e.getKey()).getPrixpdt(), e.getValue());
+            montants.put(e.getKey(), montant);
+            total = somme(total, montant);
+        }
+
+        try {
+            stockClient.subtractStockLot(quantites, authHeader);
+        } catch (StockInsuffisantException e) {
+            stockInsuffisant.increment();
+            throw e;
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Commande> cmds = new ArrayList<>();
+        quantites.forEach((codePdt, qteCmd) -> {
+            Commande cmd = new Commande();
+            cmd.setClient(client);
+            cmd.setCodepdt(codePdt);
+            cmd.setQtecmd(qteCmd);
+            cmd.setDatecmd(today);
+            cmds.add(cmd);
+        });
+        List<Commande> saved = commandeRepo.saveAll(cmds);
+
+        outboxRepo.saveAll(saved.stream().map(CommandeOutbox::of).toList());
+
+        List<LigneFactureDto> lignes = new ArrayList<>();
+        for (Commande cmd : saved) {
+            ProduitDto produit = produits.get(cmd.getCodepdt());
+            LigneFactureDto ligne = new LigneFactureDto();
+            ligne.setCodecmd(cmd.getCodecmd());
+            ligne.setClient(client);
+            ligne.setCodepdt(cmd.getCodepdt());
+            ligne.setNompdt(produit.getNompdt());
+            ligne.setPrixpdt(produit.getPrixpdt());
+            ligne.setQtecmd(cmd.getQtecmd());
+            ligne.setTotal(montants.get(cmd.getCodepdt()));
+            ligne.setDatecmd(cmd.getDatecmd());
+            lignes.add(ligne);
+        }
+
+        FactureDto facture = new FactureDto();
+        facture.setClient(client);
+        facture.setDatecmd(today);
+        facture.setLignes(lignes);
+        facture.setTotal(total);
+        return facture;
+    }
+
+    private static int montant(int prix, int qte) {
+        try {
+            return Math.multiplyExact(prix, qte);
+        } catch (ArithmeticException e) {
+            throw new CommandeInvalideException("Montant de la commande trop grand");
+        }
+    }
+
+    private static int somme(int a, int b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new CommandeInvalideException("Montant de la commande trop grand");
+        }
+    }
 }
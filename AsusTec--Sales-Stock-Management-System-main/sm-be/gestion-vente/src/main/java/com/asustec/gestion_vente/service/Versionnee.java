@@ -0,0 +1,18 @@
+package com.asustec.gestion_vente.service;
+
+/**
+ * Corps d'une réponse GET et l'ETag qui l'accompagnait, pour les requêtes conditionnelles.
+ */
+final class Versionnee<T> {
+
+    private final String etag;
+    private final T corps;
+
+    Versionnee(String etag, T corps) {
+        this.etag = etag;
+        this.corps = corps;
+    }
+
+    String etag() { return etag; }
+    T corps() { return corps; }
+}
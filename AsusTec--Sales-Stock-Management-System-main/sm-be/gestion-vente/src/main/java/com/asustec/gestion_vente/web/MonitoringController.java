@@ -0,0 +1,84 @@
+package com.asustec.gestion_vente.web;
+
+import com.asustec.gestion_vente.http.DownstreamMetrics;
+import com.asustec.gestion_vente.http.WebClientFactory;
+import com.asustec.gestion_vente.observation.TracesLentes;
+import com.asustec.gestion_vente.repository.OutboxJdbcRepository;
+import com.asustec.gestion_vente.service.CatalogueCache;
+import com.asustec.gestion_vente.service.StockReplica;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ventes/monitoring")
+public class MonitoringController {
+
+    private final CatalogueCache catalogue;
+    private final DownstreamMetrics downstreamMetrics;
+    private final WebClientFactory webClientFactory;
+    private final StockReplica stockReplica;
+    private final TracesLentes tracesLentes;
+    private final OutboxJdbcRepository outbox;
+
+    public MonitoringController(CatalogueCache catalogue,
+                                DownstreamMetrics downstreamMetrics,
+                                WebClientFactory webClientFactory,
+                                StockReplica stockReplica,
+                                TracesLentes tracesLentes,
+                                OutboxJdbcRepository outbox) {
+        this.catalogue = catalogue;
+        this.downstreamMetrics = downstreamMetrics;
+        this.webClientFactory = webClientFactory;
+        this.stockReplica = stockReplica;
+        this.tracesLentes = tracesLentes;
+        this.outbox = outbox;
+    }
+
+    // GET /api/ventes/monitoring/catalogue
+    @GetMapping("/catalogue")
+    public Map<String, Object> catalogueStats() {
+        return catalogue.stats();
+    }
+
+    // GET /api/ventes/monitoring/stock
+    @GetMapping("/stock")
+    public Map<String, Object> stockReplicaStats() {
+        return stockReplica.stats();
+    }
+
+    // GET /api/ventes/monitoring/http
+    @GetMapping("/http")
+    public Map<String, Object> httpStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(downstreamMetrics.stats());
+        stats.put("circuits", webClientFactory.etatCircuits());
+        return stats;
+    }
+
+    // GET /api/ventes/monitoring/outbox
+    @GetMapping("/outbox")
+    public Map<String, Object> outboxStats() {
+        return outbox.stats();
+    }
+
+    // GET /api/ventes/monitoring/traces?uri=/api/ventes/commande&limite=20
+    // traces lentes récentes, durée de chaque étape (appels aval, repositories)
+    @GetMapping("/traces")
+    public Map<String, Object> tracesLentes(
+            @RequestParam(required = false) String uri,
+            @RequestParam(defaultValue = "20") int limite
+    ) {
+        Map<String, Object> reponse = new LinkedHashMap<>(tracesLentes.stats());
+        List<Map<String, Object>> traces = tracesLentes.recentes(uri, Math.max(1, Math.min(limite, 100)));
+        reponse.put("traces", traces);
+        return reponse;
+    }
+
+    // DELETE /api/ventes/monitoring/catalogue
+    @DeleteMapping("/catalogue")
+    public void invalidateCatalogue() {
+        catalogue.invalidate();
+    }
+}
@@ -0,0 +1,27 @@
+package com.asustec.gestion_vente.web;
+
+import java.util.List;
+
+public class PanierRequest {
+
+    private String client;
+    private List<Ligne> lignes;
+
+    public String getClient() { return client; }
+    public void setClient(String client) { this.client = client; }
+
+    public List<Ligne> getLignes() { return lignes; }
+    public void setLignes(List<Ligne> lignes) { this.lignes = lignes; }
+
+    public static class Ligne {
+
+        private Integer codePdt;
+        private Integer qteCmd;
+
+        public Integer getCodePdt() { return codePdt; }
+        public void setCodePdt(Integer codePdt) { this.codePdt = codePdt; }
+
+        public Integer getQteCmd() { return qteCmd; }
+        public void setQteCmd(Integer qteCmd) { this.qteCmd = qteCmd; }
+    }
+}
@@ -1,28 +1,63 @@
 package com.asustec.gestion_vente.web;
 
+import com.asustec.gestion_vente.dto.DashboardDto;
+import com.asustec.gestion_vente.dto.FactureDto;
 import com.asustec.gestion_vente.dto.LigneFactureDto;
+import com.asustec.gestion_vente.dto.PageCommandesDto;
 import com.asustec.gestion_vente.dto.ProduitDto;
 import com.asustec.gestion_vente.entity.Commande;
+import com.asustec.gestion_vente.service.CommandeInvalideException;
+import com.asustec.gestion_vente.service.DashboardService;
+import com.asustec.gestion_vente.service.ExportService;
 import com.asustec.gestion_vente.service.VenteService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/ventes")
 public class VenteController {
 
     private final VenteService venteService;
+    private final ExportService exportService;
+    private final DashboardService dashboardService;
+    private final int maxLignesPanier;
 
-    public VenteController(VenteService venteService) {
+    public VenteController(VenteService venteService,
+                           ExportService exportService,
+                           DashboardService dashboardService,
+                           @Value("${asustec.ventes.panier-max-lignes:1000}") int maxLignesPanier) {
         this.venteService = venteService;
+        this.exportService = exportService;
+        this.dashboardService = dashboardService;
+        this.maxLignesPanier = maxLignesPanier;
     }
 
-    // GET /api/ventes/produits
+    // GET /api/ventes/produits[?codepdt=1&codepdt=2]  (sans codepdt : tout le catalogue)
     @GetMapping("/produits")
     public List<ProduitDto> getProduits(
+            @RequestParam(required = false) List<Integer> codepdt,
             @RequestHeader(value = "Authorization", required = false) String authHeader
     ) {
+        if (codepdt != null) {
+            Set<Integer> codePdts = new LinkedHashSet<>(codepdt);
+            codePdts.remove(null);
+            return venteService.getProduitsAvecStock(codePdts, authHeader);
+        }
         return venteService.getProduitsAvecStock(authHeader);
     }
 
@@ -32,12 +67,54 @@ public class VenteController {
             @RequestBody CommandeRequest request,
             @RequestHeader(value = "Authorization", required = false) String authHeader
     ) {
-        return venteService.passerCommande(
-                request.getClient(),
-                request.getCodePdt(),
-                request.getQteCmd(),
-                authHeader
-        );
+        try {
+            return venteService.passerCommande(
+                    request.getClient(),
+                    request.getCodePdt(),
+                    request.getQteCmd(),
+                    authHeader
+            );
+        } catch (CommandeInvalideException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // POST /api/ventes/panier  body: {"client": "...", "lignes": [{"codePdt": 1, "qteCmd": 2}, ...]}
+    @PostMapping("/panier")
+    public FactureDto passerPanier(
+            @RequestBody PanierRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        // seule validation des lignes : le service reçoit un panier non vide aux quantités positives
+        if (request.getLignes() == null || request.getLignes().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Panier vide");
+        }
+        // au-delà, gestion-stock refuserait le lot (asustec.soustraction.max-lignes)
+        if (request.getLignes().size() > maxLignesPanier) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Panier limité à " + maxLignesPanier + " lignes");
+        }
+        Map<Integer, Integer> quantites = new LinkedHashMap<>();
+        for (PanierRequest.Ligne ligne : request.getLignes()) {
+            if (ligne == null || ligne.getCodePdt() == null || ligne.getQteCmd() == null || ligne.getQteCmd() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Ligne de panier invalide : " + (ligne == null ? null : ligne.getCodePdt()));
+            }
+            quantites.merge(ligne.getCodePdt(), ligne.getQteCmd(), VenteController::cumuler);
+        }
+        try {
+            return venteService.passerPanier(request.getClient(), quantites, authHeader);
+        } catch (CommandeInvalideException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // une même ligne répétée ne doit pas faire déborder la quantité en négatif
+    private static Integer cumuler(Integer a, Integer b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantité de panier trop grande");
+        }
     }
 
     // GET /api/ventes/commandes
@@ -45,4 +122,66 @@ public class VenteController {
     public List<Commande> getCommandes() {
         return venteService.getAllCommandes();
     }
+
+    // GET /api/ventes/commandes/page?apres=&limite=50&client=&codepdt=&du=2025-01-01&au=2025-12-31
+    // codecmd décroissant ; avec du/au sans client ni codepdt : jour décroissant puis codecmd
+    @GetMapping("/commandes/page")
+    public PageCommandesDto getCommandesPage(
+            @RequestParam(required = false) Integer apres,
+            @RequestParam(defaultValue = "50") int limite,
+            @RequestParam(required = false) String client,
+            @RequestParam(required = false) Integer codepdt,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au
+    ) {
+        try {
+            return venteService.getCommandes(apres, limite, client, codepdt, du, au);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // GET /api/ventes/dashboard?mois=6&seuil=10
+    @GetMapping("/dashboard")
+    public DashboardDto getDashboard(
+            @RequestParam(defaultValue = "6") int mois,
+            @RequestParam(defaultValue = "10") int seuil
+    ) {
+        return dashboardService.getDashboard(mois, seuil);
+    }
+
+    // GET /api/ventes/commandes/export?format=ndjson|csv&gzip=false
+    @GetMapping("/commandes/export")
+    public ResponseEntity<StreamingResponseBody> exportCommandes(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        ExportService.Format f = formatExport(format);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zip = new GZIPOutputStream(out, 64 * 1024);
+                exportService.exporterCommandes(f, zip);
+                zip.finish();
+            } else {
+                exportService.exporterCommandes(f, out);
+            }
+        };
+
+        MediaType type = gzip ? MediaType.parseMediaType("application/gzip")
+                : f == ExportService.Format.CSV ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"commandes." + f.name().toLowerCase() + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
+    // 400 plutôt que 500 pour un format inconnu
+    private static ExportService.Format formatExport(String format) {
+        try {
+            return ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'export inconnu : " + format);
+        }
+    }
 }
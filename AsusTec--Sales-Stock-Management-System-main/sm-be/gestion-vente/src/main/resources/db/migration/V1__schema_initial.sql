@@ -0,0 +1,21 @@
+-- Schéma tel que créé jusqu'ici par ddl-auto=update ; sans effet sur une base existante.
+CREATE TABLE IF NOT EXISTS commandes (
+    codecmd integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    client  varchar(255),
+    codepdt integer,
+    qtecmd  integer,
+    datecmd date
+);
+
+CREATE TABLE IF NOT EXISTS commandes_outbox (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codecmd         integer,
+    client          varchar(255),
+    codepdt         integer,
+    qtecmd          integer,
+    datecmd         date,
+    tentatives      integer,
+    prochain_essai  timestamp(6) with time zone,
+    verrou_jusqua   timestamp(6) with time zone,
+    derniere_erreur varchar(1000)
+);
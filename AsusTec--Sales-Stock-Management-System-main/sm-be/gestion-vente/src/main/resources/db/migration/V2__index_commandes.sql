@@ -0,0 +1,8 @@
+-- Pagination par clé filtrée par client, produit ou date (CommandeRepository.findPage),
+-- agrégats mensuels du tableau de bord (datecmd).
+CREATE INDEX IF NOT EXISTS idx_commandes_client_codecmd ON commandes (client, codecmd);
+CREATE INDEX IF NOT EXISTS idx_commandes_codepdt_codecmd ON commandes (codepdt, codecmd);
+CREATE INDEX IF NOT EXISTS idx_commandes_datecmd_codecmd ON commandes (datecmd, codecmd);
+
+-- Réclamation des lignes prêtes par le relais (OutboxJdbcRepository.reclamer)
+CREATE INDEX IF NOT EXISTS idx_commandes_outbox_prochain_essai ON commandes_outbox (prochain_essai, id);
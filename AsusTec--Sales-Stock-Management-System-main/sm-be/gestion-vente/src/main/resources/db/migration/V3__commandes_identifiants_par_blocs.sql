@@ -0,0 +1,16 @@
+-- Identifiants réservés par blocs de 50 (allocationSize des entités) : un nextval par bloc,
+-- et Hibernate peut regrouper les INSERT en lots JDBC, ce que GenerationType.IDENTITY empêche.
+-- Les colonnes d'identité deviennent des colonnes à valeur par défaut sur une séquence
+-- ordinaire : la validation du schéma par Hibernate ne voit pas les séquences d'identité.
+-- Un INSERT sans identifiant prend lui aussi un nextval, qui n'appartient à aucun bloc réservé.
+ALTER TABLE commandes ALTER COLUMN codecmd DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS commandes_codecmd_seq AS integer;
+ALTER SEQUENCE commandes_codecmd_seq INCREMENT BY 50 OWNED BY commandes.codecmd;
+SELECT setval('commandes_codecmd_seq', COALESCE(MAX(codecmd), 0) + 50) FROM commandes;
+ALTER TABLE commandes ALTER COLUMN codecmd SET DEFAULT nextval('commandes_codecmd_seq');
+
+ALTER TABLE commandes_outbox ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS commandes_outbox_id_seq;
+ALTER SEQUENCE commandes_outbox_id_seq INCREMENT BY 50 OWNED BY commandes_outbox.id;
+SELECT setval('commandes_outbox_id_seq', COALESCE(MAX(id), 0) + 50) FROM commandes_outbox;
+ALTER TABLE commandes_outbox ALTER COLUMN id SET DEFAULT nextval('commandes_outbox_id_seq');
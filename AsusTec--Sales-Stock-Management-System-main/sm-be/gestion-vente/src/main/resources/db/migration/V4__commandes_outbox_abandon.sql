@@ -0,0 +1,6 @@
+-- Lignes d'outbox abandonnées après asustec.outbox.max-tentatives échecs : prochain_essai
+-- passe à NULL, le relais ne les réclame plus (OutboxJdbcRepository.reporter).
+ALTER TABLE commandes_outbox ADD COLUMN IF NOT EXISTS abandonnee_le timestamp(6) with time zone;
+
+CREATE INDEX IF NOT EXISTS idx_commandes_outbox_abandonnee_le ON commandes_outbox (abandonnee_le)
+    WHERE abandonnee_le IS NOT NULL;
@@ -0,0 +1,87 @@
+package com.asustec.gestion_vente.http;
+
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebClientFactoryTest {
+
+    private HttpServer serveur;
+    private final AtomicReference<String> accept = new AtomicReference<>();
+    private final AtomicReference<String> contentType = new AtomicReference<>();
+
+    @BeforeEach
+    void demarrer() throws Exception {
+        ProduitDto p = new ProduitDto();
+        p.setCodepdt(7);
+        p.setNompdt("Clavier");
+        byte[] corps = new ObjectMapper(new CBORFactory()).writeValueAsBytes(List.of(p));
+
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serveur.createContext("/produits", echange -> {
+            accept.set(echange.getRequestHeaders().getFirst("Accept"));
+            echange.getResponseHeaders().add("Content-Type", "application/cbor");
+            echange.sendResponseHeaders(200, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        serveur.createContext("/lookup", echange -> {
+            contentType.set(echange.getRequestHeaders().getFirst("Content-Type"));
+            echange.getRequestBody().readAllBytes();
+            echange.getResponseHeaders().add("Content-Type", "application/cbor");
+            echange.sendResponseHeaders(200, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        serveur.start();
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.stop(0);
+    }
+
+    @Test
+    void cborResponsesAreDecoded() {
+        List<ProduitDto> produits = client().get().uri("/produits").retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<ProduitDto>>() {})
+                .block();
+
+        assertEquals("application/cbor, application/json;q=0.9", accept.get());
+        assertEquals(1, produits.size());
+        assertEquals("Clavier", produits.get(0).getNompdt());
+    }
+
+    @Test
+    void requestBodiesStayJson() {
+        List<ProduitDto> produits = client().post().uri("/lookup").bodyValue(List.of(7)).retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<ProduitDto>>() {})
+                .block();
+
+        assertEquals("application/json", contentType.get());
+        assertEquals(1, produits.size());
+    }
+
+    private WebClient client() {
+        WebClientFactory factory = new WebClientFactory(WebClient.builder(), new DownstreamProperties(),
+                new DownstreamMetrics(new SimpleMeterRegistry()), Jackson2ObjectMapperBuilder.json(),
+                Mockito.mock(ServiceTokenProvider.class));
+        return factory.create("commercial", "http://127.0.0.1:" + serveur.getAddress().getPort());
+    }
+}
@@ -0,0 +1,84 @@
+package com.asustec.gestion_vente.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Délai exponentiel et abandon des lignes d'outbox en échec ; les colonnes nulles sont
+ * relues telles quelles.
+ */
+@SpringBootTest(properties = "asustec.outbox.poll-interval=1h")
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxJdbcRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private OutboxJdbcRepository outbox;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void vider() {
+        jdbc.update("TRUNCATE commandes_outbox");
+    }
+
+    @Test
+    void manyAttemptsDoNotOverflowTheBackoff() {
+        long id = ligne(5_000);
+
+        assertThat(outbox.reporter(List.of(id), Duration.ofSeconds(1), Duration.ofMinutes(5), 10_000, "erreur")).isZero();
+
+        Double delai = jdbc.queryForObject("SELECT extract(epoch FROM prochain_essai - now()) FROM commandes_outbox WHERE id = ?",
+                Double.class, id);
+        assertThat(delai).isBetween(290.0, 300.0);
+    }
+
+    @Test
+    void lineIsAbandonedAfterMaxAttempts() {
+        long encore = ligne(3);
+        long derniere = ligne(4);
+
+        assertThat(outbox.reporter(List.of(encore, derniere), Duration.ofSeconds(1), Duration.ofMinutes(5), 5, "erreur"))
+                .isEqualTo(1);
+
+        assertThat(jdbc.queryForObject("SELECT prochain_essai IS NULL AND abandonnee_le IS NOT NULL FROM commandes_outbox WHERE id = ?",
+                Boolean.class, derniere)).isTrue();
+        assertThat(outbox.stats()).containsEntry("enAttente", 1L).containsEntry("abandonnees", 1L);
+
+        // une ligne abandonnée n'est plus réclamée, même une fois son bail expiré
+        jdbc.update("UPDATE commandes_outbox SET prochain_essai = now() - interval '1 second' WHERE id = ?", encore);
+        assertThat(outbox.reclamer(10, Duration.ofSeconds(30))).containsOnlyKeys(encore);
+    }
+
+    @Test
+    void nullProductIsClaimedAsNull() {
+        long id = jdbc.queryForObject("INSERT INTO commandes_outbox (codecmd, client, codepdt, qtecmd, datecmd, prochain_essai) "
+                + "VALUES (1, 'client', NULL, NULL, current_date, now()) RETURNING id", Long.class);
+
+        assertThat(outbox.reclamer(10, Duration.ofSeconds(30))).hasEntrySatisfying(id, cmd -> {
+            assertThat(cmd.getCodepdt()).isNull();
+            assertThat(cmd.getQtecmd()).isNull();
+        });
+    }
+
+    private long ligne(int tentatives) {
+        return jdbc.queryForObject("INSERT INTO commandes_outbox (codecmd, client, codepdt, qtecmd, datecmd, tentatives, prochain_essai) "
+                + "VALUES (1, 'client', 1, 1, current_date, ?, now()) RETURNING id", Long.class, tentatives);
+    }
+}
@@ -0,0 +1,87 @@
+package com.asustec.gestion_vente.repository;
+
+import com.asustec.commun.sql.PlansRequetes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+/**
+ * Chaque recherche fréquente utilise l'index prévu dans les migrations, sur les volumes
+ * réels.
+ * <p>
+ * Le schéma vient de Flyway et Hibernate le valide au démarrage. Chaque test charge
+ * 200 000 commandes sur deux ans (codecmd croissant avec la date, 500 clients, 1 000 produits)
+ * et, après une panne de gestion-commercial, 100 000 lignes d'outbox dont seules les 2 000
+ * plus récentes sont prêtes, puis lance ANALYZE : les plans sont ceux que choisit PostgreSQL
+ * avec ses réglages par défaut (voir PlansRequetes).
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    private static final LocalDate DEBUT = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2025, 12, 31);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private PlansRequetes plans;
+
+    @BeforeEach
+    void charger() {
+        jdbc.update("TRUNCATE commandes, commandes_outbox");
+        jdbc.update("INSERT INTO commandes (codecmd, client, codepdt, qtecmd, datecmd) "
+                + "SELECT g, 'client-' || g % 500, 1 + g % 1000, 1 + g % 5, DATE '2024-01-01' + g * 730 / 200001 "
+                + "FROM generate_series(1, 200000) g");
+        jdbc.update("INSERT INTO commandes_outbox (id, codecmd, client, codepdt, qtecmd, datecmd, tentatives, prochain_essai) "
+                + "SELECT g, g, 'client-' || g % 500, 1 + g % 1000, 1, DATE '2025-12-31', "
+                + "CASE WHEN g > 98000 THEN 0 ELSE 8 END, "
+                + "CASE WHEN g > 98000 THEN now() - (100000 - g) * interval '1 second' "
+                + "ELSE now() + (g % 300) * interval '1 minute' END "
+                + "FROM generate_series(1, 100000) g");
+        jdbc.execute("ANALYZE commandes");
+        jdbc.execute("ANALYZE commandes_outbox");
+        plans = new PlansRequetes(jdbc);
+    }
+
+    @Test
+    void pageByClientReadsTheIndexBackwards() {
+        plans.assertPageSansTri("SELECT * FROM commandes WHERE client = ? AND codecmd < ? ORDER BY codecmd DESC LIMIT ?",
+                "idx_commandes_client_codecmd", "client-42", 150_000, 51);
+    }
+
+    @Test
+    void pageByProductReadsTheIndexBackwards() {
+        plans.assertPageSansTri("SELECT * FROM commandes WHERE codepdt = ? ORDER BY codecmd DESC LIMIT ?",
+                "idx_commandes_codepdt_codecmd", 42, 51);
+    }
+
+    @Test
+    void datePagesReadTheIndexBackwardsFromTheCursor() {
+        // période couvrant toute la table : sans l'ordre (datecmd, codecmd), un tri de 200 000 lignes
+        plans.assertPageSansTri(CommandeJdbcRepository.sqlPageParDate(true, true, false),
+                "idx_commandes_datecmd_codecmd", DEBUT, FIN, 51);
+        plans.assertPageSansTri(CommandeJdbcRepository.sqlPageParDate(true, true, true),
+                "idx_commandes_datecmd_codecmd", DEBUT, FIN, LocalDate.of(2025, 1, 15), 104_000, 51);
+        plans.assertPageSansTri(CommandeJdbcRepository.sqlPageParDate(true, false, true),
+                "idx_commandes_datecmd_codecmd", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 15), 104_000, 51);
+    }
+
+    @Test
+    void outboxClaimUsesTheReadyIndex() {
+        plans.assertIndexChoisi(OutboxJdbcRepository.SQL_RECLAMER, "commandes_outbox",
+                "idx_commandes_outbox_prochain_essai", 30.0, 8);
+    }
+}
@@ -0,0 +1,81 @@
+package com.asustec.gestion_vente.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Vider le cache du catalogue est réservé aux jetons ADMIN (/auth/login) et SERVICE
+ * (ServiceTokenProvider) ; la lecture des statistiques reste ouverte à tout jeton.
+ */
+@SpringBootTest(properties = {
+        "asustec.stock-replica.enabled=false",
+        "asustec.outbox.poll-interval=1h"
+})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class SecurityConfigTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Test
+    void catalogueInvalidationNeedsAdminOrServiceRole() throws Exception {
+        mvc.perform(delete("/api/ventes/monitoring/catalogue"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(delete("/api/ventes/monitoring/catalogue").header(HttpHeaders.AUTHORIZATION, jeton("CLIENT")))
+                .andExpect(status().isForbidden());
+        mvc.perform(delete("/api/ventes/monitoring/catalogue").header(HttpHeaders.AUTHORIZATION, jeton(null)))
+                .andExpect(status().isForbidden());
+        mvc.perform(delete("/api/ventes/monitoring/catalogue").header(HttpHeaders.AUTHORIZATION, jeton("ADMIN")))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/api/ventes/monitoring/catalogue").header(HttpHeaders.AUTHORIZATION, jeton("SERVICE")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void catalogueStatsNeedOnlyAToken() throws Exception {
+        mvc.perform(get("/api/ventes/monitoring/catalogue").header(HttpHeaders.AUTHORIZATION, jeton("CLIENT")))
+                .andExpect(status().isOk());
+    }
+
+    private String jeton(String role) {
+        Instant now = Instant.now();
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
+                .issuer("sm-be")
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofMinutes(5)))
+                .subject("test");
+        if (role != null) {
+            claims.claim("role", role);
+        }
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).keyId("sm-be-hs256").build();
+        return "Bearer " + jwtEncoder.encode(JwtEncoderParameters.from(header, claims.build())).getTokenValue();
+    }
+}
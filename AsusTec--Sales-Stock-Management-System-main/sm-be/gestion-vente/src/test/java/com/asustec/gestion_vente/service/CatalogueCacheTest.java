@@ -0,0 +1,226 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Catalogue servi depuis le cache pendant {@code ttl}, rafraîchi en arrière-plan jusqu'à
+ * {@code max-stale}, rechargé en ligne au-delà ; les chargements simultanés ne font qu'un
+ * appel, toujours avec le jeton de service. Un codepdt inconnu de gestion-commercial n'est
+ * redemandé qu'après {@code negative-ttl} ou un nouveau chargement.
+ */
+class CatalogueCacheTest {
+
+    private static final String JETON_SERVICE = "Bearer service";
+    private static final String JETON_CLIENT = "Bearer client";
+    private static final Duration TTL = Duration.ofSeconds(30);
+    private static final Duration MAX_STALE = Duration.ofMinutes(5);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(5);
+
+    private final CommercialClient commercial = mock(CommercialClient.class);
+    private final ServiceTokenProvider serviceToken = mock(ServiceTokenProvider.class);
+    private final Horloge horloge = new Horloge();
+
+    // rafraîchissement « en arrière-plan » exécuté sur place : l'ordre des appels est déterministe
+    private final CatalogueCache cache = new CatalogueCache(commercial, serviceToken, Schedulers.immediate(),
+            TTL, MAX_STALE, NEGATIVE_TTL, 100, horloge);
+
+    @BeforeEach
+    void preparer() {
+        when(serviceToken.authorizationHeader()).thenReturn(JETON_SERVICE);
+    }
+
+    @Test
+    void freshCatalogueIsServedFromCache() {
+        when(commercial.getAllProduits(anyString())).thenReturn(catalogue("v1"));
+
+        cache.findAll(JETON_CLIENT);
+        horloge.avancer(TTL.minusSeconds(1));
+        List<ProduitDto> produits = cache.findAll(JETON_CLIENT);
+
+        assertThat(produits).extracting(ProduitDto::getNompdt).containsExactly("v1-1", "v1-2");
+        verify(commercial, times(1)).getAllProduits(JETON_SERVICE);
+    }
+
+    @Test
+    void staleCatalogueIsServedWhileItRefreshes() {
+        when(commercial.getAllProduits(anyString())).thenReturn(catalogue("v1"), catalogue("v2"));
+        cache.findAll(JETON_CLIENT);
+
+        horloge.avancer(TTL.plusSeconds(1));
+        List<ProduitDto> pendant = cache.findAll(JETON_CLIENT);
+        List<ProduitDto> apres = cache.findAll(JETON_CLIENT);
+
+        assertThat(pendant).extracting(ProduitDto::getNompdt).containsExactly("v1-1", "v1-2");
+        assertThat(apres).extracting(ProduitDto::getNompdt).containsExactly("v2-1", "v2-2");
+        verify(commercial, times(2)).getAllProduits(JETON_SERVICE);
+    }
+
+    @Test
+    void catalogueOlderThanMaxStaleIsReloadedInline() {
+        when(commercial.getAllProduits(anyString())).thenReturn(catalogue("v1"), catalogue("v2"));
+        cache.findAll(JETON_CLIENT);
+
+        horloge.avancer(TTL.plus(MAX_STALE).plusSeconds(1));
+
+        assertThat(cache.findAll(JETON_CLIENT)).extracting(ProduitDto::getNompdt).containsExactly("v2-1", "v2-2");
+    }
+
+    @Test
+    void failedReloadKeepsTheStaleCatalogue() {
+        when(commercial.getAllProduits(anyString()))
+                .thenReturn(catalogue("v1"))
+                .thenThrow(new RuntimeException("gestion-commercial indisponible"));
+        cache.findAll(JETON_CLIENT);
+
+        horloge.avancer(TTL.plus(MAX_STALE).plusSeconds(1));
+
+        assertThat(cache.findAll(JETON_CLIENT)).extracting(ProduitDto::getNompdt).containsExactly("v1-1", "v1-2");
+        assertThat(cache.stats()).containsEntry("refreshFailures", 1L);
+    }
+
+    @Test
+    void targetedMissUsesTheCallerToken() {
+        when(commercial.getAllProduits(anyString())).thenReturn(catalogue("v1"));
+        when(commercial.getProduit(3, JETON_CLIENT)).thenReturn(Optional.of(produit(3, "v1")));
+
+        assertThat(cache.find(3, JETON_CLIENT)).isPresent();
+
+        verify(commercial).getProduit(3, JETON_CLIENT);
+        verify(commercial, times(2)).getAllProduits(JETON_SERVICE);
+    }
+
+    @Test
+    void unknownProductIsNotAskedAgainUntilNegativeTtl() {
+        when(commercial.getAllProduits(anyString())).thenReturn(catalogue("v1"));
+        when(commercial.getProduit(9, JETON_CLIENT)).thenReturn(Optional.empty());
+        when(commercial.getProduits(List.of(9), JETON_CLIENT)).thenReturn(List.of());
+
+        assertThat(cache.find(9, JETON_CLIENT)).isEmpty();
+        assertThat(cache.find(9, JETON_CLIENT)).isEmpty();
+        assertThat(cache.findAll(List.of(1, 9), JETON_CLIENT)).containsOnlyKeys(1);
+        verify(commercial, times(1)).getProduit(9, JETON_CLIENT);
+        verify(commercial, never()).getProduits(anyList(), anyString());
+
+        horloge.avancer(NEGATIVE_TTL.plusSeconds(1));
+        assertThat(cache.findAll(List.of(9), JETON_CLIENT)).isEmpty();
+        verify(commercial, times(1)).getProduits(List.of(9), JETON_CLIENT);
+    }
+
+    @Test
+    void reloadForgetsUnknownProducts() {
+        when(commercial.getAllProduits(anyString())).thenReturn(catalogue("v1"));
+        when(commercial.getProduit(9, JETON_CLIENT)).thenReturn(Optional.empty(), Optional.of(produit(9, "v1")));
+        assertThat(cache.find(9, JETON_CLIENT)).isEmpty();
+
+        cache.invalidate();
+
+        assertThat(cache.find(9, JETON_CLIENT)).isPresent();
+        verify(commercial, times(2)).getProduit(9, JETON_CLIENT);
+    }
+
+    @Test
+    void concurrentLoadsAreCoalesced() throws Exception {
+        CountDownLatch entre = new CountDownLatch(1);
+        CountDownLatch libere = new CountDownLatch(1);
+        when(commercial.getAllProduits(anyString())).thenAnswer(inv -> {
+            entre.countDown();
+            libere.await();
+            return catalogue("v1");
+        });
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Thread> appelants = new ArrayList<>();
+        List<Future<List<ProduitDto>>> resultats = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            resultats.add(pool.submit(() -> {
+                synchronized (appelants) {
+                    appelants.add(Thread.currentThread());
+                }
+                return cache.findAll(JETON_CLIENT);
+            }));
+        }
+        assertThat(entre.await(5, TimeUnit.SECONDS)).isTrue();
+        // tous les appelants attendent : le premier dans gestion-commercial, les autres son résultat
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!tousEnAttente(appelants, threads) && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        libere.countDown();
+
+        for (Future<List<ProduitDto>> f : resultats) {
+            assertThat(f.get(5, TimeUnit.SECONDS)).hasSize(2);
+        }
+        pool.shutdown();
+        verify(commercial, times(1)).getAllProduits(JETON_SERVICE);
+    }
+
+    private static boolean tousEnAttente(List<Thread> appelants, int threads) {
+        synchronized (appelants) {
+            return appelants.size() == threads
+                    && appelants.stream().allMatch(t -> t.getState() == Thread.State.WAITING);
+        }
+    }
+
+    private static List<ProduitDto> catalogue(String version) {
+        return List.of(produit(1, version), produit(2, version));
+    }
+
+    private static ProduitDto produit(int codepdt, String version) {
+        ProduitDto p = new ProduitDto();
+        p.setCodepdt(codepdt);
+        p.setNompdt(version + "-" + codepdt);
+        p.setPrixpdt(100);
+        return p;
+    }
+
+    private static final class Horloge extends Clock {
+        private volatile Instant maintenant = Instant.parse("2026-10-01T08:00:00Z");
+
+        void avancer(Duration duree) {
+            maintenant = maintenant.plus(duree);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return maintenant;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.commun.cbor.MappersCbor;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.http.DownstreamMetrics;
+import com.asustec.gestion_vente.http.DownstreamProperties;
+import com.asustec.gestion_vente.http.WebClientFactory;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalogue de 50 000 produits encodé comme le fait gestion-commercial (MappersCbor.reponses,
+ * références de chaînes) et relu par CommercialClient avec le décodeur de WebClientFactory :
+ * mêmes produits qu'au départ, pour un corps plus petit que le JSON. Tailles et temps de
+ * décodage : SerialisationBenchmark (module benchmarks).
+ */
+class CatalogueEncodingTest {
+
+    private static final int PRODUITS = 50_000;
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cbor = MappersCbor.reponses(Jackson2ObjectMapperBuilder.json());
+    private final List<ProduitDto> catalogue = catalogue();
+    private final List<String> acceptRecus = new CopyOnWriteArrayList<>();
+    private HttpServer serveur;
+
+    @BeforeEach
+    void demarrer() throws IOException {
+        byte[] corps = cbor.writeValueAsBytes(catalogue);
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serveur.createContext("/produits", echange -> {
+            acceptRecus.add(echange.getRequestHeaders().getFirst("Accept"));
+            echange.getResponseHeaders().add("Content-Type", "application/cbor");
+            echange.sendResponseHeaders(200, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        serveur.start();
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.stop(0);
+    }
+
+    @Test
+    void productionCodecDecodesTheSameCatalogue() {
+        List<ProduitDto> recus = client().getAllProduits(null);
+
+        assertThat(acceptRecus).singleElement().asString().startsWith("application/cbor");
+        assertThat(recus).hasSize(PRODUITS);
+        assertThat(recus).usingRecursiveFieldByFieldElementComparator().isEqualTo(catalogue);
+    }
+
+    @Test
+    void cborPayloadIsSmallerThanJson() throws IOException {
+        assertThat(cbor.writeValueAsBytes(catalogue).length).isLessThan(json.writeValueAsBytes(catalogue).length);
+    }
+
+    private CommercialClient client() {
+        WebClientFactory factory = new WebClientFactory(WebClient.builder(), new DownstreamProperties(),
+                new DownstreamMetrics(new SimpleMeterRegistry()), Jackson2ObjectMapperBuilder.json(),
+                Mockito.mock(ServiceTokenProvider.class));
+        return new CommercialClient(factory, "http://127.0.0.1:" + serveur.getAddress().getPort());
+    }
+
+    private static List<ProduitDto> catalogue() {
+        List<ProduitDto> produits = new ArrayList<>(PRODUITS);
+        for (int i = 1; i <= PRODUITS; i++) {
+            ProduitDto p = new ProduitDto();
+            p.setCodepdt(i);
+            p.setNompdt("Ordinateur portable ASUS série " + (i % 40) + " modèle " + i);
+            p.setDescpdt("Processeur " + (i % 7 + 3) + " coeurs, " + (8 << (i % 3)) + " Go de mémoire, écran " + (13 + i % 5) + " pouces");
+            p.setPrixpdt(300 + (i * 37) % 2500);
+            produits.add(p);
+        }
+        return produits;
+    }
+}
@@ -0,0 +1,130 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.DashboardDto;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+import com.asustec.gestion_vente.dto.ResumeStockDto;
+import com.asustec.gestion_vente.dto.VentesMoisDto;
+import com.asustec.gestion_vente.repository.CommandeJdbcRepository;
+import com.asustec.gestion_vente.repository.CommandeJdbcRepository.VentesProduit;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ventes réparties par mois sur la fenêtre demandée, tableau de bord sans stock quand
+ * gestion-stock ne répond pas, paramètres bornés et appels faits avec le jeton de service.
+ */
+class DashboardServiceTest {
+
+    private static final String JETON_SERVICE = "Bearer service";
+
+    private final CommandeJdbcRepository commandeJdbcRepo = mock(CommandeJdbcRepository.class);
+    private final StockClient stockClient = mock(StockClient.class);
+    private final CatalogueCache catalogue = mock(CatalogueCache.class);
+    private final ServiceTokenProvider serviceToken = mock(ServiceTokenProvider.class);
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-15T10:00:00Z"), ZoneOffset.UTC);
+
+    private final DashboardService service = new DashboardService(commandeJdbcRepo, stockClient, catalogue, serviceToken,
+            Duration.ofSeconds(30), Duration.ofSeconds(2), 20, clock);
+
+    @BeforeEach
+    void preparer() {
+        when(serviceToken.authorizationHeader()).thenReturn(JETON_SERVICE);
+        when(catalogue.findAll(any(), anyString())).thenReturn(Map.of(
+                1, produit(1, 100),
+                2, produit(2, 30)));
+        when(catalogue.size(anyString())).thenReturn(2);
+    }
+
+    @Test
+    void salesAreBucketedByMonthOverTheWindow() {
+        when(stockClient.fetchResume(anyInt(), anyInt(), anyString())).thenReturn(Mono.just(resume()));
+        when(commandeJdbcRepo.ventesParMois(LocalDate.of(2026, 1, 1))).thenReturn(List.of(
+                new VentesProduit(YearMonth.of(2026, 1), 1, 2, 3),
+                new VentesProduit(YearMonth.of(2026, 3), 1, 1, 1),
+                new VentesProduit(YearMonth.of(2026, 3), 2, 4, 10)));
+
+        DashboardDto dashboard = service.getDashboard(3, 10);
+
+        assertThat(dashboard.getMois()).extracting(VentesMoisDto::getMois).containsExactly("2026-01", "2026-02", "2026-03");
+        assertThat(dashboard.getMois()).extracting(VentesMoisDto::getCommandes).containsExactly(2L, 0L, 5L);
+        assertThat(dashboard.getMois()).extracting(VentesMoisDto::getQuantite).containsExactly(3L, 0L, 11L);
+        assertThat(dashboard.getMois()).extracting(VentesMoisDto::getChiffreAffaires).containsExactly(300L, 0L, 400L);
+        assertThat(dashboard.isStockConnu()).isTrue();
+        assertThat(dashboard.getStockBas()).singleElement().satisfies(p -> {
+            assertThat(p.getCodepdt()).isEqualTo(2);
+            assertThat(p.getNompdt()).isEqualTo("produit-2");
+            assertThat(p.getQteStock()).isEqualTo(4);
+        });
+        assertThat(dashboard.getCalculeLe()).isEqualTo(clock.instant());
+    }
+
+    @Test
+    void missingStockStillReturnsSales() {
+        when(stockClient.fetchResume(anyInt(), anyInt(), anyString())).thenReturn(Mono.error(new IllegalStateException("indisponible")));
+        when(commandeJdbcRepo.ventesParMois(any())).thenReturn(List.of(new VentesProduit(YearMonth.of(2026, 3), 1, 1, 2)));
+
+        DashboardDto dashboard = service.getDashboard(1, 10);
+
+        assertThat(dashboard.isStockConnu()).isFalse();
+        assertThat(dashboard.getStockBas()).isNull();
+        assertThat(dashboard.getNbProduitsStock()).isNull();
+        assertThat(dashboard.getMois()).singleElement().satisfies(m -> assertThat(m.getChiffreAffaires()).isEqualTo(200L));
+    }
+
+    @Test
+    void parametersAreClampedAndServiceTokenIsUsed() {
+        when(stockClient.fetchResume(anyInt(), anyInt(), anyString())).thenReturn(Mono.just(resume()));
+        when(commandeJdbcRepo.ventesParMois(any())).thenReturn(List.of());
+
+        assertThat(service.getDashboard(100, -5).getMois()).hasSize(24);
+        service.getDashboard(1, Integer.MAX_VALUE);
+
+        verify(commandeJdbcRepo).ventesParMois(LocalDate.of(2024, 4, 1));
+        verify(stockClient).fetchResume(0, 20, JETON_SERVICE);
+        verify(stockClient).fetchResume(1_000_000, 20, JETON_SERVICE);
+        verify(catalogue, times(2)).findAll(any(), eq(JETON_SERVICE));
+    }
+
+    private static ResumeStockDto resume() {
+        ProduitStockDto bas = new ProduitStockDto();
+        bas.setCodepdt(2);
+        bas.setQtepdt(4);
+        ResumeStockDto resume = new ResumeStockDto();
+        resume.setNbProduits(2);
+        resume.setQteTotale(54);
+        resume.setSeuil(10);
+        resume.setNbStockBas(1);
+        resume.setStockBas(List.of(bas));
+        return resume;
+    }
+
+    private static ProduitDto produit(int codepdt, int prix) {
+        ProduitDto p = new ProduitDto();
+        p.setCodepdt(codepdt);
+        p.setNompdt("produit-" + codepdt);
+        p.setPrixpdt(prix);
+        return p;
+    }
+}
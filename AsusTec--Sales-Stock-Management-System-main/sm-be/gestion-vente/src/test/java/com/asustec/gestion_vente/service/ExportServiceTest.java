@@ -0,0 +1,75 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.web.VenteController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Export de quelques commandes en NDJSON et en CSV, curseur plus petit que le résultat.
+ */
+class ExportServiceTest {
+
+    private ExportService export;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:export-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE commandes (codecmd integer PRIMARY KEY, client varchar(255), "
+                + "codepdt integer, qtecmd integer, datecmd date)");
+        jdbc.update("INSERT INTO commandes VALUES (1, 'alice', 10, 2, DATE '2025-01-15')");
+        jdbc.update("INSERT INTO commandes VALUES (2, 'Dupont, \"fils\"', 11, 1, DATE '2025-02-01')");
+        jdbc.update("INSERT INTO commandes VALUES (3, NULL, 12, 5, NULL)");
+        export = new ExportService(ds, new DataSourceTransactionManager(ds), new ObjectMapper(), 2);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLine() throws Exception {
+        assertThat(exporter(ExportService.Format.NDJSON)).isEqualTo("""
+                {"codecmd":1,"client":"alice","codepdt":10,"qtecmd":2,"datecmd":"2025-01-15"}
+                {"codecmd":2,"client":"Dupont, \\"fils\\"","codepdt":11,"qtecmd":1,"datecmd":"2025-02-01"}
+                {"codecmd":3,"client":null,"codepdt":12,"qtecmd":5,"datecmd":null}
+                """);
+    }
+
+    @Test
+    void csvHasHeaderAndQuotedFields() throws Exception {
+        assertThat(exporter(ExportService.Format.CSV)).isEqualTo("""
+                codecmd,client,codepdt,qtecmd,datecmd
+                1,alice,10,2,2025-01-15
+                2,"Dupont, ""fils""\",11,1,2025-02-01
+                3,,12,5,
+                """);
+    }
+
+    @Test
+    void unknownFormatIsBadRequest() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(
+                new VenteController(mock(VenteService.class), export, mock(DashboardService.class), 1000)).build();
+
+        mvc.perform(get("/api/ventes/commandes/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String exporter(ExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.exporterCommandes(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.entity.Commande;
+import com.asustec.gestion_vente.repository.OutboxJdbcRepository;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Un lot refusé en 4xx est coupé jusqu'à isoler la ligne refusée : elle seule est reportée,
+ * les autres sont acquittées. Une erreur 5xx reporte le lot entier.
+ */
+class OutboxRelayTest {
+
+    private final OutboxJdbcRepository outbox = mock(OutboxJdbcRepository.class);
+    private final CommercialClient commercial = mock(CommercialClient.class);
+    private final List<Long> supprimees = new ArrayList<>();
+    private final List<Long> reportees = new ArrayList<>();
+
+    private final OutboxRelay relay = new OutboxRelay(outbox, commercial, mock(ServiceTokenProvider.class),
+            8, Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofMinutes(5), 50);
+
+    @Test
+    void rejectedLineIsIsolatedFromItsBatch() {
+        reclamer(6);
+        // gestion-commercial refuse tout lot contenant la commande 5
+        doAnswer(invocation -> {
+            List<Commande> cmds = invocation.getArgument(0);
+            if (cmds.stream().anyMatch(c -> c.getCodecmd() == 5)) {
+                throw WebClientResponseException.create(400, "Bad Request", null, null, null);
+            }
+            return null;
+        }).when(commercial).sendCommandesToCommercial(anyList(), any());
+
+        relay.relayer();
+
+        assertThat(reportees).containsExactly(5L);
+        assertThat(supprimees).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 6L);
+    }
+
+    @Test
+    void serverErrorReschedulesTheWholeBatch() {
+        reclamer(6);
+        doAnswer(invocation -> {
+            throw WebClientResponseException.create(503, "Service Unavailable", null, null, null);
+        }).when(commercial).sendCommandesToCommercial(anyList(), any());
+
+        relay.relayer();
+
+        assertThat(reportees).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        verify(outbox, never()).supprimer(any());
+    }
+
+    // lignes outbox 1..n, codecmd = id ; la file est vide au passage suivant
+    private void reclamer(int n) {
+        Map<Long, Commande> lot = new LinkedHashMap<>();
+        for (long id = 1; id <= n; id++) {
+            Commande cmd = new Commande();
+            cmd.setCodecmd((int) id);
+            lot.put(id, cmd);
+        }
+        when(outbox.reclamer(eq(8), any())).thenReturn(lot, Map.of());
+        doAnswer(invocation -> supprimees.addAll(invocation.getArgument(0)))
+                .when(outbox).supprimer(any());
+        when(outbox.reporter(any(), any(), any(), anyInt(), anyString())).thenAnswer(invocation -> {
+            reportees.addAll(invocation.<Collection<Long>>getArgument(0));
+            return 0;
+        });
+    }
+}
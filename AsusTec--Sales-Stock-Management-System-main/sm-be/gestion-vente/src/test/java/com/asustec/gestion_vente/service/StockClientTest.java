@@ -0,0 +1,142 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.ProduitStockDto;
+import com.asustec.gestion_vente.http.DownstreamMetrics;
+import com.asustec.gestion_vente.http.DownstreamProperties;
+import com.asustec.gestion_vente.http.WebClientFactory;
+import com.asustec.gestion_vente.security.ServiceTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Recherche ciblée du stock : POST /produits/lookup, découpé en lots de LOOKUP_LOT codepdt.
+ * Stock complet : GET /produits avec If-None-Match, le corps gardé est renvoyé sur 304.
+ * Un 409 sur /soustraire ou /soustraire/lot devient StockInsuffisantException.
+ */
+class StockClientTest {
+
+    private static final String ETAG = "\"stock-1\"";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Integer> taillesRecues = new CopyOnWriteArrayList<>();
+    private final List<String> ifNoneMatchRecus = new CopyOnWriteArrayList<>();
+    private HttpServer serveur;
+
+    @BeforeEach
+    void demarrer() throws Exception {
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // renvoie une ligne de stock par codepdt demandé, qtepdt = codepdt
+        serveur.createContext("/produits/lookup", echange -> {
+            int[] codepdts = mapper.readValue(echange.getRequestBody(), int[].class);
+            taillesRecues.add(codepdts.length);
+            List<ProduitStockDto> stock = IntStream.of(codepdts).mapToObj(c -> {
+                ProduitStockDto ps = new ProduitStockDto();
+                ps.setCodepdt(c);
+                ps.setQtepdt(c);
+                return ps;
+            }).toList();
+            byte[] corps = mapper.writeValueAsBytes(stock);
+            echange.getResponseHeaders().add("Content-Type", "application/json");
+            echange.sendResponseHeaders(200, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        // stock complet à ETag fixe : 304 sans corps dès que le client le renvoie
+        serveur.createContext("/produits", echange -> {
+            String ifNoneMatch = echange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatchRecus.add(String.valueOf(ifNoneMatch));
+            echange.getResponseHeaders().add("ETag", ETAG);
+            if (ETAG.equals(ifNoneMatch)) {
+                echange.sendResponseHeaders(304, -1);
+                echange.close();
+                return;
+            }
+            ProduitStockDto ps = new ProduitStockDto();
+            ps.setCodepdt(7);
+            ps.setQtepdt(12);
+            byte[] corps = mapper.writeValueAsBytes(List.of(ps));
+            echange.getResponseHeaders().add("Content-Type", "application/json");
+            echange.sendResponseHeaders(200, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        // stock épuisé : tout retrait est refusé en 409, le corps nomme le codepdt
+        serveur.createContext("/soustraire", echange -> {
+            byte[] corps = "[7]".getBytes(StandardCharsets.UTF_8);
+            echange.sendResponseHeaders(409, corps.length);
+            echange.getResponseBody().write(corps);
+            echange.close();
+        });
+        serveur.start();
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.stop(0);
+    }
+
+    @Test
+    void lookupIsSplitIntoBoundedRequests() {
+        List<Integer> codepdts = IntStream.rangeClosed(1, 2 * StockClient.LOOKUP_LOT + 1).boxed().toList();
+
+        List<ProduitStockDto> stock = client().fetchStocks(codepdts, null).block();
+
+        assertThat(taillesRecues).containsExactly(StockClient.LOOKUP_LOT, StockClient.LOOKUP_LOT, 1);
+        assertThat(stock).extracting(ProduitStockDto::getCodepdt).containsExactlyElementsOf(codepdts);
+    }
+
+    @Test
+    void emptyLookupSendsNothing() {
+        assertThat(client().fetchStocks(List.of(), null).block()).isEmpty();
+        assertThat(taillesRecues).isEmpty();
+    }
+
+    @Test
+    void notModifiedReusesTheStoredBody() {
+        StockClient client = client();
+
+        List<ProduitStockDto> premier = client.fetchStock(null).block();
+        List<ProduitStockDto> second = client.fetchStock(null).block();
+
+        assertThat(ifNoneMatchRecus).containsExactly("null", ETAG);
+        assertThat(second).isSameAs(premier);
+        assertThat(second).singleElement().satisfies(ps -> {
+            assertThat(ps.getCodepdt()).isEqualTo(7);
+            assertThat(ps.getQtepdt()).isEqualTo(12);
+        });
+    }
+
+    @Test
+    void conflictIsAStockRefusal() {
+        assertThatThrownBy(() -> client().subtractStock(7, 1, null))
+                .isInstanceOf(StockInsuffisantException.class)
+                .hasMessage("Stock insuffisant : [7]");
+        assertThatThrownBy(() -> client().subtractStockLot(Map.of(7, 1), null))
+                .isInstanceOf(StockInsuffisantException.class)
+                .hasMessage("Stock insuffisant : [7]");
+    }
+
+    private StockClient client() {
+        WebClientFactory factory = new WebClientFactory(WebClient.builder(), new DownstreamProperties(),
+                new DownstreamMetrics(new SimpleMeterRegistry()), Jackson2ObjectMapperBuilder.json(),
+                Mockito.mock(ServiceTokenProvider.class));
+        return new StockClient(factory, "http://127.0.0.1:" + serveur.getAddress().getPort());
+    }
+}
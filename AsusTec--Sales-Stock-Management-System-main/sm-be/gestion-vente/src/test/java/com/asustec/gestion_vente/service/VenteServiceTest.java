@@ -0,0 +1,138 @@
+package com.asustec.gestion_vente.service;
+
+import com.asustec.gestion_vente.dto.FactureDto;
+import com.asustec.gestion_vente.dto.PageCommandesDto;
+import com.asustec.gestion_vente.dto.ProduitDto;
+import com.asustec.gestion_vente.entity.Commande;
+import com.asustec.gestion_vente.repository.CommandeJdbcRepository;
+import com.asustec.gestion_vente.repository.CommandeOutboxRepository;
+import com.asustec.gestion_vente.repository.CommandeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Montants des factures calculés sans débordement : une commande dont le montant dépasse un
+ * int est refusée avant la soustraction du stock et tout enregistrement. Un refus de stock
+ * est compté dans asustec.ventes.refus, commande simple comprise. Une page filtrée par
+ * période seule reprend au jour de la commande curseur.
+ */
+class VenteServiceTest {
+
+    private final CommandeRepository commandeRepo = mock(CommandeRepository.class);
+    private final CommandeJdbcRepository commandeJdbcRepo = mock(CommandeJdbcRepository.class);
+    private final CommandeOutboxRepository outboxRepo = mock(CommandeOutboxRepository.class);
+    private final StockClient stockClient = mock(StockClient.class);
+    private final CatalogueCache catalogue = mock(CatalogueCache.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final VenteService service = new VenteService(commandeRepo, commandeJdbcRepo, outboxRepo, stockClient, catalogue,
+            mock(StockReplica.class), registry, Schedulers.immediate(),
+            Duration.ofSeconds(3), Duration.ofSeconds(2), true);
+
+    @Test
+    void basketTotalIsTheSumOfLineAmounts() {
+        when(catalogue.findAll(any(), any())).thenReturn(Map.of(1, produit(1, 100), 2, produit(2, 30)));
+        when(commandeRepo.saveAll(anyList())).then(returnsFirstArg());
+        when(outboxRepo.saveAll(anyList())).then(returnsFirstArg());
+
+        FactureDto facture = service.passerPanier("client", Map.of(1, 2, 2, 5), null);
+
+        assertThat(facture.getTotal()).isEqualTo(350);
+    }
+
+    @Test
+    void overflowingLineIsRejectedBeforeStock() {
+        when(catalogue.findAll(any(), any())).thenReturn(Map.of(1, produit(1, 100_000)));
+
+        assertThatThrownBy(() -> service.passerPanier("client", Map.of(1, 100_000), null))
+                .isInstanceOf(CommandeInvalideException.class);
+        verifyNoInteractions(stockClient, commandeRepo, outboxRepo);
+    }
+
+    @Test
+    void overflowingBasketTotalIsRejectedBeforeStock() {
+        when(catalogue.findAll(any(), any())).thenReturn(Map.of(
+                1, produit(1, Integer.MAX_VALUE / 2),
+                2, produit(2, Integer.MAX_VALUE / 2),
+                3, produit(3, 10)));
+
+        assertThatThrownBy(() -> service.passerPanier("client", Map.of(1, 1, 2, 1, 3, 1), null))
+                .isInstanceOf(CommandeInvalideException.class);
+        verifyNoInteractions(stockClient, commandeRepo, outboxRepo);
+    }
+
+    @Test
+    void overflowingSingleOrderIsRejectedBeforeStock() {
+        when(catalogue.find(1, null)).thenReturn(Optional.of(produit(1, 50_000)));
+
+        assertThatThrownBy(() -> service.passerCommande("client", 1, 50_000, null))
+                .isInstanceOf(CommandeInvalideException.class);
+        verifyNoInteractions(stockClient, commandeRepo, outboxRepo);
+    }
+
+    @Test
+    void stockRefusalIsCountedForSingleOrders() {
+        when(catalogue.find(1, null)).thenReturn(Optional.of(produit(1, 10)));
+        doThrow(new StockInsuffisantException("Stock insuffisant : 1"))
+                .when(stockClient).subtractStock(1, 3, null);
+
+        assertThatThrownBy(() -> service.passerCommande("client", 1, 3, null))
+                .isInstanceOf(StockInsuffisantException.class);
+        assertThat(registry.get("asustec.ventes.refus").tag("motif", "stock_insuffisant").counter().count())
+                .isEqualTo(1);
+        verifyNoInteractions(commandeRepo, outboxRepo);
+    }
+
+    @Test
+    void datePagesContinueFromTheCursorDay() {
+        LocalDate du = LocalDate.of(2025, 1, 1);
+        LocalDate au = LocalDate.of(2025, 1, 31);
+        Commande curseur = new Commande();
+        curseur.setCodecmd(120);
+        curseur.setDatecmd(LocalDate.of(2025, 1, 15));
+        when(commandeRepo.findById(120)).thenReturn(Optional.of(curseur));
+        when(commandeJdbcRepo.pageParDate(du, au, LocalDate.of(2025, 1, 15), 120, 3))
+                .thenReturn(List.of(new Commande(), new Commande(), new Commande()));
+
+        PageCommandesDto page = service.getCommandes(120, 2, null, null, du, au);
+
+        assertThat(page.getCommandes()).hasSize(2);
+        verify(commandeRepo, never()).findPage(any(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void unknownDateCursorIsRejected() {
+        when(commandeRepo.findById(120)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getCommandes(120, 50, null, null, LocalDate.of(2025, 1, 1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ProduitDto produit(int codepdt, int prix) {
+        ProduitDto p = new ProduitDto();
+        p.setCodepdt(codepdt);
+        p.setNompdt("produit-" + codepdt);
+        p.setPrixpdt(prix);
+        return p;
+    }
+}
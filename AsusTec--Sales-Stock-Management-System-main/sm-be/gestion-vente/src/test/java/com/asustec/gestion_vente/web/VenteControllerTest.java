@@ -0,0 +1,101 @@
+package com.asustec.gestion_vente.web;
+
+import com.asustec.gestion_vente.service.CommandeInvalideException;
+import com.asustec.gestion_vente.service.DashboardService;
+import com.asustec.gestion_vente.service.ExportService;
+import com.asustec.gestion_vente.service.VenteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cumul des lignes de panier avant l'appel au service : panier vide, lignes incomplètes,
+ * quantités ou montants qui déborderaient sont refusés en 400.
+ */
+class VenteControllerTest {
+
+    private final VenteService service = mock(VenteService.class);
+    private final VenteController controller = new VenteController(service, mock(ExportService.class), mock(DashboardService.class), 3);
+
+    @Test
+    void repeatedLinesAreSummed() {
+        controller.passerPanier(panier(ligne(1, 2), ligne(2, 1), ligne(1, 3)), null);
+
+        verify(service).passerPanier(eq("client"), eq(Map.of(1, 5, 2, 1)), any());
+    }
+
+    @Test
+    void lineWithoutQuantityIsRejected() {
+        assertThatThrownBy(() -> controller.passerPanier(panier(ligne(1, 2), ligne(1, null)), null))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode().value()).isEqualTo(400));
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void overflowingQuantityIsRejected() {
+        assertThatThrownBy(() -> controller.passerPanier(panier(ligne(1, Integer.MAX_VALUE), ligne(1, 1)), null))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("trop grande");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void nullLineIsRejected() {
+        assertThatThrownBy(() -> controller.passerPanier(panier(ligne(1, 1), null), null))
+                .isInstanceOf(ResponseStatusException.class);
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void oversizedBasketIsRejected() {
+        assertThatThrownBy(() -> controller.passerPanier(panier(ligne(1, 1), ligne(2, 1), ligne(3, 1), ligne(4, 1)), null))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Panier limité à 3 lignes");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void emptyBasketIsRejected() {
+        assertThatThrownBy(() -> controller.passerPanier(panier(), null))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Panier vide");
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void overflowingAmountIsABadRequest() {
+        when(service.passerPanier(any(), any(), any()))
+                .thenThrow(new CommandeInvalideException("Montant de la commande trop grand"));
+
+        assertThatThrownBy(() -> controller.passerPanier(panier(ligne(1, 1)), null))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode().value()).isEqualTo(400));
+    }
+
+    private static PanierRequest panier(PanierRequest.Ligne... lignes) {
+        PanierRequest request = new PanierRequest();
+        request.setClient("client");
+        request.setLignes(new ArrayList<>(Arrays.asList(lignes)));
+        return request;
+    }
+
+    private static PanierRequest.Ligne ligne(Integer codePdt, Integer qteCmd) {
+        PanierRequest.Ligne ligne = new PanierRequest.Ligne();
+        ligne.setCodePdt(codePdt);
+        ligne.setQteCmd(qteCmd);
+        return ligne;
+    }
+}
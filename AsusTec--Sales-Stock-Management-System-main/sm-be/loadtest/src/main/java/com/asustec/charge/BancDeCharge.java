@@ -0,0 +1,99 @@
+package com.asustec.charge;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Banc de charge de bout en bout, sans réseau ni base installée : PostgreSQL embarqué,
+ * les trois services lancés depuis leurs jars, un catalogue créé par les API, puis chaque
+ * scénario joué l'un après l'autre sur le même jeu de données.
+ * <p>
+ * Les scénarios : navigation (liste des produits, pages de commandes), commande (commandes
+ * réparties sur le catalogue), produit-chaud (commandes concentrées sur quelques produits)
+ * et mixte ; stock-chaud envoie les soustractions directement à gestion-stock. Pour chacun : p50, p99, p999, max, requêtes/s et commandes/s, affichés et écrits
+ * en JSON dans {@code --sortie}.
+ * <p>
+ * Usage : {@code java -jar loadtest.jar --duree=30s --montee=10s --concurrence=64
+ * --produits=1000 --scenarios=navigation,commande,produit-chaud,mixte}
+ */
+public final class BancDeCharge {
+
+    private BancDeCharge() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.lire(args);
+        List<Resultat> resultats = new ArrayList<>();
+
+        try (Services services = Services.demarrer(options)) {
+            ClientApi api = new ClientApi();
+            Catalogue catalogue = Catalogue.creer(api, services, options);
+            System.out.printf("catalogue : %d produits, %d unités en stock chacun%n",
+                    catalogue.taille(), options.stockInitial);
+
+            String urlVente = services.url("vente");
+            String jeton = api.jeton(urlVente);
+            String urlStock = services.url("stock");
+            String jetonStock = api.jeton(urlStock);
+            Execution execution = new Execution(api, options);
+            for (String nom : options.scenarios) {
+                Scenario scenario = Scenario.parNom(nom.trim(), api, urlVente, jeton, urlStock, jetonStock, catalogue);
+                System.out.printf("%s : montée %d s, mesure %d s, %d workers...%n",
+                        scenario.nom, options.montee.toSeconds(), options.duree.toSeconds(), options.concurrence);
+                resultats.add(execution.executer(scenario));
+            }
+        }
+
+        afficher(resultats);
+        ecrire(options, resultats);
+    }
+
+    private static void afficher(List<Resultat> resultats) {
+        System.out.printf("%n%-14s %10s %8s %10s %10s %9s %9s %9s %9s%n",
+                "scénario", "requêtes", "erreurs", "req/s", "cmd/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Resultat r : resultats) {
+            System.out.printf("%-14s %10d %8d %10.1f %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    r.scenario, r.requetes, r.erreurs, r.requetesParSeconde, r.commandesParSeconde,
+                    r.p50, r.p99, r.p999, r.max);
+        }
+    }
+
+    private static void ecrire(Options options, List<Resultat> resultats) throws Exception {
+        Map<String, Object> rapport = new LinkedHashMap<>();
+        rapport.put("date", Instant.now().toString());
+        rapport.put("concurrence", options.concurrence);
+        rapport.put("monteeSecondes", options.montee.toSeconds());
+        rapport.put("dureeSecondes", options.duree.toSeconds());
+        rapport.put("produits", options.produits);
+        rapport.put("produitsChauds", options.produitsChauds);
+        rapport.put("argsServices", options.argsServices);
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        for (Resultat r : resultats) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("scenario", r.scenario);
+            s.put("requetes", r.requetes);
+            s.put("erreurs", r.erreurs);
+            s.put("commandes", r.commandes);
+            s.put("requetesParSeconde", r.requetesParSeconde);
+            s.put("commandesParSeconde", r.commandesParSeconde);
+            s.put("p50Ms", r.p50);
+            s.put("p99Ms", r.p99);
+            s.put("p999Ms", r.p999);
+            s.put("maxMs", r.max);
+            scenarios.add(s);
+        }
+        rapport.put("scenarios", scenarios);
+
+        if (options.sortie.getParent() != null) {
+            Files.createDirectories(options.sortie.getParent());
+        }
+        new com.fasterxml.jackson.databind.ObjectMapper()
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(options.sortie.toFile(), rapport);
+        System.out.println("résultats : " + options.sortie.toAbsolutePath());
+    }
+}
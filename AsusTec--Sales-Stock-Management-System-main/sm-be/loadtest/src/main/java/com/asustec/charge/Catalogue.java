@@ -0,0 +1,77 @@
+package com.asustec.charge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Jeu de données du banc, créé par les API comme le ferait un utilisateur : chaque produit
+ * est ajouté dans gestion-commercial (codepdt attribué par la base) puis reçoit une ligne de
+ * stock dans gestion-stock.
+ */
+final class Catalogue {
+
+    private final int[] codes;
+    private final int chauds;
+
+    private Catalogue(int[] codes, int chauds) {
+        this.codes = codes;
+        this.chauds = Math.min(chauds, codes.length);
+    }
+
+    static Catalogue creer(ClientApi api, Services services, Options options) throws Exception {
+        String urlCommercial = services.url("commercial");
+        String urlStock = services.url("stock");
+        String jetonCommercial = api.jeton(urlCommercial);
+        String jetonStock = api.jeton(urlStock);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Integer>> creations = new ArrayList<>();
+            for (int i = 1; i <= options.produits; i++) {
+                int numero = i;
+                creations.add(pool.submit(() -> {
+                    String produit = "{\"nompdt\":\"Produit " + numero + "\",\"descpdt\":\"banc de charge\",\"prixpdt\":"
+                            + (100 + numero % 900) + "}";
+                    var r = api.envoyer(api.post(urlCommercial + "/api/commercial/produits", jetonCommercial, produit));
+                    verifier(r.statusCode(), "création du produit " + numero);
+                    int codepdt = api.lire(r.body()).path("codepdt").asInt();
+
+                    String stock = "{\"codepdt\":" + codepdt + ",\"qtepdt\":" + options.stockInitial + "}";
+                    verifier(api.statut(api.post(urlStock + "/api/stock/produits", jetonStock, stock)),
+                            "stock du produit " + codepdt);
+                    return codepdt;
+                }));
+            }
+            int[] codes = new int[creations.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = creations.get(i).get();
+            }
+            java.util.Arrays.sort(codes);
+            return new Catalogue(codes, options.produitsChauds);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    int auHasard(SplittableRandom alea) {
+        return codes[alea.nextInt(codes.length)];
+    }
+
+    int chaud(SplittableRandom alea) {
+        return codes[alea.nextInt(chauds)];
+    }
+
+    int taille() {
+        return codes.length;
+    }
+
+    private static void verifier(int statut, String etape) {
+        if (statut != 200) {
+            throw new IllegalStateException("Échec : " + etape + " (HTTP " + statut + ")");
+        }
+    }
+}
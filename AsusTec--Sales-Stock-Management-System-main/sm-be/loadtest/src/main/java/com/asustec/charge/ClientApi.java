@@ -0,0 +1,72 @@
+package com.asustec.charge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Client HTTP du banc : un seul HttpClient partagé par tous les workers, jeton obtenu
+ * par /auth/login (admin/admin) sur chaque service.
+ */
+final class ClientApi {
+
+    private static final Duration DELAI = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final ObjectMapper json = new ObjectMapper();
+
+    ClientApi() {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    String jeton(String baseUrl) throws IOException, InterruptedException {
+        HttpResponse<String> r = envoyer(post(baseUrl + "/auth/login", null,
+                "{\"username\":\"admin\",\"password\":\"admin\"}"));
+        if (r.statusCode() != 200) {
+            throw new IllegalStateException("Connexion refusée par " + baseUrl + " : HTTP " + r.statusCode());
+        }
+        return json.readTree(r.body()).path("access_token").asText();
+    }
+
+    HttpRequest get(String url, String jeton) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(DELAI)
+                .header("Authorization", "Bearer " + jeton)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    HttpRequest post(String url, String jeton, String corps) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
+                .timeout(DELAI)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corps));
+        if (jeton != null) {
+            b.header("Authorization", "Bearer " + jeton);
+        }
+        return b.build();
+    }
+
+    HttpResponse<String> envoyer(HttpRequest requete) throws IOException, InterruptedException {
+        return http.send(requete, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Le corps est lu puis jeté : la latence mesurée inclut le transfert complet
+    int statut(HttpRequest requete) throws IOException, InterruptedException {
+        return http.send(requete, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    JsonNode lire(String corps) throws IOException {
+        return json.readTree(corps);
+    }
+}
@@ -0,0 +1,128 @@
+package com.asustec.charge;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Charge en boucle fermée : {@code concurrence} workers enchaînent chacun une requête après
+ * l'autre, sans temps de réflexion, pendant la montée en charge puis la durée de mesure.
+ * Seules les requêtes parties pendant la mesure sont enregistrées.
+ * <p>
+ * En boucle fermée, un serveur ralenti ralentit aussi le rythme des requêtes : les centiles
+ * sous-estiment ce que verraient des clients arrivant à débit fixe (omission coordonnée).
+ * Les résultats servent à comparer deux versions à concurrence égale, pas à promettre un SLA.
+ */
+final class Execution {
+
+    private final ClientApi api;
+    private final int concurrence;
+    private final Duration montee;
+    private final Duration duree;
+
+    Execution(ClientApi api, Options options) {
+        this.api = api;
+        this.concurrence = options.concurrence;
+        this.montee = options.montee;
+        this.duree = options.duree;
+    }
+
+    Resultat executer(Scenario scenario) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrence);
+        CountDownLatch depart = new CountDownLatch(1);
+        long[] bornes = new long[2];
+        List<Future<Worker>> workers = new ArrayList<>();
+        SplittableRandom graine = new SplittableRandom(42);
+        for (int i = 0; i < concurrence; i++) {
+            Worker w = new Worker(scenario, graine.split());
+            workers.add(pool.submit(() -> {
+                depart.await();
+                w.boucler(bornes[0], bornes[1]);
+                return w;
+            }));
+        }
+
+        long debut = System.nanoTime();
+        bornes[0] = debut + montee.toNanos();
+        bornes[1] = bornes[0] + duree.toNanos();
+        depart.countDown();
+
+        long erreurs = 0;
+        long commandes = 0;
+        List<long[]> latences = new ArrayList<>();
+        int total = 0;
+        for (Future<Worker> f : workers) {
+            Worker w = f.get();
+            erreurs += w.erreurs;
+            commandes += w.commandes;
+            latences.add(Arrays.copyOf(w.latences, w.nombre));
+            total += w.nombre;
+        }
+        pool.shutdown();
+
+        long[] toutes = new long[total];
+        int pos = 0;
+        for (long[] l : latences) {
+            System.arraycopy(l, 0, toutes, pos, l.length);
+            pos += l.length;
+        }
+        return new Resultat(scenario.nom, concurrence, duree.toNanos(), toutes, erreurs, commandes);
+    }
+
+    private final class Worker {
+        private final Scenario scenario;
+        private final SplittableRandom alea;
+        long[] latences = new long[4096];
+        int nombre;
+        long erreurs;
+        long commandes;
+
+        Worker(Scenario scenario, SplittableRandom alea) {
+            this.scenario = scenario;
+            this.alea = alea;
+        }
+
+        void boucler(long debutMesure, long finMesure) throws InterruptedException {
+            while (true) {
+                Scenario.Action action = scenario.tirer(alea);
+                long t0 = System.nanoTime();
+                if (t0 >= finMesure) {
+                    return;
+                }
+                boolean ok;
+                try {
+                    int statut = api.statut(action.requete);
+                    ok = statut >= 200 && statut < 300;
+                } catch (IOException e) {
+                    // délai dépassé ou connexion refusée
+                    ok = false;
+                }
+                long t1 = System.nanoTime();
+                if (t0 < debutMesure) {
+                    continue;
+                }
+                // une erreur compte dans les latences : un échec rapide ne doit pas améliorer les centiles
+                enregistrer(t1 - t0);
+                if (!ok) {
+                    erreurs++;
+                } else if (action.commande) {
+                    commandes++;
+                }
+            }
+        }
+
+        private void enregistrer(long latence) {
+            if (nombre == latences.length) {
+                latences = Arrays.copyOf(latences, nombre * 2);
+            }
+            latences[nombre++] = latence;
+        }
+    }
+}
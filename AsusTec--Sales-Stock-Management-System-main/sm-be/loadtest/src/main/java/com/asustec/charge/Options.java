@@ -0,0 +1,72 @@
+package com.asustec.charge;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options de la ligne de commande, sous la forme {@code --nom=valeur}.
+ */
+final class Options {
+
+    // racine sm-be : les jars sont cherchés dans <service>/target
+    Path racine = Path.of("..");
+    Duration montee = Duration.ofSeconds(10);
+    Duration duree = Duration.ofSeconds(30);
+    int concurrence = 64;
+    int produits = 1_000;
+    int produitsChauds = 3;
+    int stockInitial = 1_000_000;
+    List<String> scenarios = List.of("navigation", "commande", "produit-chaud", "mixte");
+    Path sortie = Path.of("target", "charge-resultats.json");
+    // arguments Spring supplémentaires par service, ex. --args-stock="--asustec.stock.reservation-mode=ledger"
+    Map<String, List<String>> argsServices = new LinkedHashMap<>();
+
+    static Options lire(String[] args) {
+        Options o = new Options();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Option attendue sous la forme --nom=valeur : " + arg);
+            }
+            String nom = arg.substring(2, arg.indexOf('='));
+            String valeur = arg.substring(arg.indexOf('=') + 1);
+            switch (nom) {
+                case "racine" -> o.racine = Path.of(valeur);
+                case "montee" -> o.montee = duree(valeur);
+                case "duree" -> o.duree = duree(valeur);
+                case "concurrence" -> o.concurrence = Integer.parseInt(valeur);
+                case "produits" -> o.produits = Integer.parseInt(valeur);
+                case "produits-chauds" -> o.produitsChauds = Integer.parseInt(valeur);
+                case "stock-initial" -> o.stockInitial = Integer.parseInt(valeur);
+                case "scenarios" -> o.scenarios = List.of(valeur.split(","));
+                case "sortie" -> o.sortie = Path.of(valeur);
+                case "args-vente", "args-stock", "args-commercial" -> o.argsServices
+                        .put(nom.substring(5), new ArrayList<>(Arrays.asList(valeur.trim().split("\\s+"))));
+                default -> throw new IllegalArgumentException("Option inconnue : " + nom);
+            }
+        }
+        return o;
+    }
+
+    List<String> argsService(String service) {
+        return argsServices.getOrDefault(service, List.of());
+    }
+
+    // 30s, 2m ou un nombre de secondes
+    private static Duration duree(String valeur) {
+        if (valeur.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(valeur.substring(0, valeur.length() - 2)));
+        }
+        if (valeur.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(valeur.substring(0, valeur.length() - 1)));
+        }
+        if (valeur.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(valeur.substring(0, valeur.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(valeur));
+    }
+}
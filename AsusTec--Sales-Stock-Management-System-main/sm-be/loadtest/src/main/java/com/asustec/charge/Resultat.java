@@ -0,0 +1,49 @@
+package com.asustec.charge;
+
+import java.util.Arrays;
+
+/**
+ * Mesures d'un scénario sur la phase de mesure (la montée en charge est exclue).
+ * Latences en millisecondes.
+ */
+final class Resultat {
+
+    final String scenario;
+    final int concurrence;
+    final double dureeSecondes;
+    final long requetes;
+    final long erreurs;
+    final long commandes;
+    final double requetesParSeconde;
+    final double commandesParSeconde;
+    final double p50;
+    final double p99;
+    final double p999;
+    final double max;
+
+    Resultat(String scenario, int concurrence, long dureeNanos, long[] latencesNanos,
+             long erreurs, long commandes) {
+        Arrays.sort(latencesNanos);
+        this.scenario = scenario;
+        this.concurrence = concurrence;
+        this.dureeSecondes = dureeNanos / 1e9;
+        this.requetes = latencesNanos.length;
+        this.erreurs = erreurs;
+        this.commandes = commandes;
+        this.requetesParSeconde = requetes / dureeSecondes;
+        this.commandesParSeconde = commandes / dureeSecondes;
+        this.p50 = centile(latencesNanos, 0.50);
+        this.p99 = centile(latencesNanos, 0.99);
+        this.p999 = centile(latencesNanos, 0.999);
+        this.max = latencesNanos.length == 0 ? 0 : latencesNanos[latencesNanos.length - 1] / 1e6;
+    }
+
+    // Rang le plus proche sur les latences triées
+    private static double centile(long[] triees, double q) {
+        if (triees.length == 0) {
+            return 0;
+        }
+        int rang = (int) Math.ceil(q * triees.length) - 1;
+        return triees[Math.max(0, Math.min(rang, triees.length - 1))] / 1e6;
+    }
+}
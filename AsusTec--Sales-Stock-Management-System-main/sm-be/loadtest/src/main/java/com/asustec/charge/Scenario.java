@@ -0,0 +1,89 @@
+package com.asustec.charge;
+
+import java.net.http.HttpRequest;
+import java.util.SplittableRandom;
+
+/**
+ * Mélange de requêtes d'un scénario. Chaque worker tire sa prochaine requête avec son
+ * propre générateur ; {@link Action#commande} marque les requêtes comptées en commandes/s.
+ */
+abstract class Scenario {
+
+    final String nom;
+
+    Scenario(String nom) {
+        this.nom = nom;
+    }
+
+    abstract Action tirer(SplittableRandom alea);
+
+    static Scenario parNom(String nom, ClientApi api, String urlVente, String jeton,
+                           String urlStock, String jetonStock, Catalogue catalogue) {
+        String produits = urlVente + "/api/ventes/produits";
+        String page = urlVente + "/api/ventes/commandes/page?limite=50";
+        String commande = urlVente + "/api/ventes/commande";
+        String soustraction = urlStock + "/api/stock/soustraire";
+        return switch (nom) {
+            // 70 % liste des produits avec stock, 30 % page de commandes
+            case "navigation" -> new Scenario(nom) {
+                @Override
+                Action tirer(SplittableRandom alea) {
+                    return alea.nextInt(100) < 70
+                            ? new Action(api.get(produits, jeton), false)
+                            : new Action(api.get(page, jeton), false);
+                }
+            };
+            // commandes d'une unité réparties uniformément sur le catalogue
+            case "commande" -> new Scenario(nom) {
+                @Override
+                Action tirer(SplittableRandom alea) {
+                    return new Action(api.post(commande, jeton, corps(catalogue.auHasard(alea))), true);
+                }
+            };
+            // toutes les commandes sur quelques produits : contention sur les mêmes lignes de stock
+            case "produit-chaud" -> new Scenario(nom) {
+                @Override
+                Action tirer(SplittableRandom alea) {
+                    return new Action(api.post(commande, jeton, corps(catalogue.chaud(alea))), true);
+                }
+            };
+            // soustractions envoyées directement à gestion-stock sur les produits chauds, sans
+            // gestion-vente : compare les modes de réservation (--produits-chauds=1 : un seul SKU)
+            case "stock-chaud" -> new Scenario(nom) {
+                @Override
+                Action tirer(SplittableRandom alea) {
+                    return new Action(api.post(soustraction, jetonStock, corps(catalogue.chaud(alea))), true);
+                }
+            };
+            // 80 % navigation, 20 % commande
+            case "mixte" -> new Scenario(nom) {
+                @Override
+                Action tirer(SplittableRandom alea) {
+                    int tirage = alea.nextInt(100);
+                    if (tirage < 56) {
+                        return new Action(api.get(produits, jeton), false);
+                    }
+                    if (tirage < 80) {
+                        return new Action(api.get(page, jeton), false);
+                    }
+                    return new Action(api.post(commande, jeton, corps(catalogue.auHasard(alea))), true);
+                }
+            };
+            default -> throw new IllegalArgumentException("Scénario inconnu : " + nom);
+        };
+    }
+
+    private static String corps(int codePdt) {
+        return "{\"client\":\"charge\",\"codePdt\":" + codePdt + ",\"qteCmd\":1}";
+    }
+
+    static final class Action {
+        final HttpRequest requete;
+        final boolean commande;
+
+        Action(HttpRequest requete, boolean commande) {
+            this.requete = requete;
+            this.commande = commande;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.asustec.charge;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PostgreSQL embarqué (binaires dans le jar, aucun conteneur) et les trois services lancés
+ * comme processus séparés depuis leurs jars exécutables, chacun sur un port libre. Les
+ * schémas sont créés par les migrations Flyway de chaque service au démarrage. Les journaux
+ * vont dans target/charge-logs.
+ */
+final class Services implements AutoCloseable {
+
+    private static final Duration DELAI_DEMARRAGE = Duration.ofMinutes(3);
+
+    private final EmbeddedPostgres postgres;
+    private final Map<String, Process> processus = new LinkedHashMap<>();
+    private final Map<String, Integer> ports = new LinkedHashMap<>();
+
+    private Services(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+
+    static Services demarrer(Options options) throws IOException, InterruptedException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "300")
+                .start();
+        Services s = new Services(postgres);
+        try {
+            s.creerBases();
+            s.ports.put("commercial", portLibre());
+            s.ports.put("stock", portLibre());
+            s.ports.put("vente", portLibre());
+
+            String jdbc = "jdbc:postgresql://localhost:" + postgres.getPort() + "/";
+            s.lancer(options, "commercial", jar(options, "gestion-commercial", ""),
+                    List.of("--spring.datasource.url=" + jdbc + "g_commercial"));
+            s.lancer(options, "stock", jar(options, "gestion-stock", ""),
+                    List.of("--spring.datasource.url=" + jdbc + "g_commercial"));
+            s.lancer(options, "vente", jar(options, "gestion-vente", "-exec"),
+                    List.of("--spring.datasource.url=" + jdbc + "g_vente",
+                            "--asustec.commercial-url=" + s.url("commercial") + "/api/commercial",
+                            "--asustec.stock-url=" + s.url("stock") + "/api/stock"));
+
+            for (String service : s.processus.keySet()) {
+                s.attendre(service);
+            }
+            return s;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            s.close();
+            throw e;
+        }
+    }
+
+    String url(String service) {
+        return "http://localhost:" + ports.get(service);
+    }
+
+    private void creerBases() {
+        try (Connection c = postgres.getPostgresDatabase().getConnection();
+             Statement st = c.createStatement()) {
+            st.execute("CREATE DATABASE g_vente");
+            st.execute("CREATE DATABASE g_commercial");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Création des bases impossible", e);
+        }
+    }
+
+    private void lancer(Options options, String service, Path jar, List<String> args) throws IOException {
+        Path journaux = Path.of("target", "charge-logs");
+        Files.createDirectories(journaux);
+
+        List<String> commande = new ArrayList<>();
+        commande.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        commande.add("-jar");
+        commande.add(jar.toString());
+        commande.add("--server.port=" + ports.get(service));
+        commande.add("--spring.datasource.username=postgres");
+        commande.add("--spring.datasource.password=");
+        commande.add("--spring.jpa.show-sql=false");
+        commande.add("--logging.level.root=WARN");
+        commande.addAll(args);
+        commande.addAll(options.argsService(service));
+
+        Process p = new ProcessBuilder(commande)
+                .redirectErrorStream(true)
+                .redirectOutput(journaux.resolve(service + ".log").toFile())
+                .start();
+        processus.put(service, p);
+    }
+
+    // Prêt quand /auth/login répond 200 : contexte Spring démarré et migrations passées
+    private void attendre(String service) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(url(service) + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin\"}"))
+                .build();
+        long limite = System.nanoTime() + DELAI_DEMARRAGE.toNanos();
+        while (System.nanoTime() < limite) {
+            if (!processus.get(service).isAlive()) {
+                throw new IllegalStateException(service + " s'est arrêté au démarrage, voir target/charge-logs/" + service + ".log");
+            }
+            try {
+                if (client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    System.out.printf("%s prêt sur le port %d%n", service, ports.get(service));
+                    return;
+                }
+            } catch (IOException e) {
+                // pas encore à l'écoute
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(service + " n'a pas démarré en " + DELAI_DEMARRAGE.toSeconds() + " s");
+    }
+
+    private static Path jar(Options options, String module, String classifier) {
+        Path jar = options.racine.resolve(module).resolve("target").resolve(module + "-0.0.1-SNAPSHOT" + classifier + ".jar");
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Jar introuvable : " + jar + " (mvn package -DskipTests dans " + module + ")");
+        }
+        return jar;
+    }
+
+    private static int portLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        // arrêt propre (SIGTERM) : l'outbox et le registre de réservations se vident
+        processus.values().forEach(Process::destroy);
+        for (Process p : processus.values()) {
+            try {
+                if (!p.waitFor(30, java.util.concurrent.TimeUnit.SECONDS)) {
+                    p.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                p.destroyForcibly();
+            }
+        }
+        try {
+            postgres.close();
+        } catch (IOException e) {
+            System.err.println("Arrêt de PostgreSQL embarqué : " + e);
+        }
+    }
+}
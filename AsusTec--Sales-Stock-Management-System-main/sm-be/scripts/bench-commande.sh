@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Comparaison threads plateforme / threads virtuels sur POST /api/ventes/commande, avec le
+# banc de charge (scripts/charge.sh, scénario commande) : une exécution par mode, même stock
+# de départ puisque le banc recrée la base à chaque fois.
+#
+# Les poms compilent pour Java 17 : spring.threads.virtual.enabled n'a d'effet que si les
+# services tournent sur un JRE 21+. Le banc lance les services avec son propre java, d'où la
+# vérification ci-dessous. Résultats : target/charge-commande-virtuels-{false,true}.json.
+#
+# Usage : scripts/bench-commande.sh [options du banc...]   ex. : --duree=60s --concurrence=128
+set -euo pipefail
+
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+
+VERSION=$(java -XshowSettings:properties -version 2>&1 | sed -n 's/^ *java.specification.version = //p')
+if [ "${VERSION%%.*}" -lt 21 ]; then
+  echo "threads virtuels : JRE 21+ requis, java du PATH en version $VERSION" >&2
+  exit 1
+fi
+
+for mode in false true; do
+  echo "== threads virtuels : $mode"
+  "$RACINE/scripts/charge.sh" --scenarios=commande "--args-vente=--spring.threads.virtual.enabled=$mode" \
+    "--args-stock=--spring.threads.virtual.enabled=$mode" "--args-commercial=--spring.threads.virtual.enabled=$mode" \
+    "--sortie=target/charge-commande-virtuels-$mode.json" "$@"
+done
@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Micro-benchmarks JMH (module benchmarks) : fusion catalogue/stock, recherche produit,
+# sérialisation Jackson, décodage JWT. Aucun service ni base de données n'est nécessaire.
+#
+# Les résultats JSON sont écrits dans benchmarks/resultats/<commit>.json ; comparer deux
+# exécutions avec scripts/jmh-compare.sh.
+# Sans réseau, une fois les dépendances en cache : MVN_OPTS=-o scripts/bench-jmh.sh
+#
+# Usage : scripts/bench-jmh.sh [options JMH...]   ex. : scripts/bench-jmh.sh Fusion -p produits=100000
+set -euo pipefail
+
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+MVN=${MVN:-mvn}
+MVN_OPTS=${MVN_OPTS:-}
+
+# le module benchmarks dépend du jar principal de gestion-vente, qui dépend du module commun
+(cd "$RACINE/commun" && $MVN -q -B $MVN_OPTS install -DskipTests)
+(cd "$RACINE/gestion-vente" && $MVN -q -B $MVN_OPTS install -DskipTests)
+(cd "$RACINE/benchmarks" && $MVN -q -B $MVN_OPTS package)
+
+COMMIT=$(git -C "$RACINE" rev-parse --short HEAD 2>/dev/null || echo local)
+if ! git -C "$RACINE" diff --quiet 2>/dev/null; then
+  COMMIT="$COMMIT-modifie"
+fi
+mkdir -p "$RACINE/benchmarks/resultats"
+SORTIE="$RACINE/benchmarks/resultats/$COMMIT.json"
+
+java -jar "$RACINE/benchmarks/target/benchmarks.jar" -rf json -rff "$SORTIE" "$@"
+echo "résultats : $SORTIE"
@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+# Banc de charge de bout en bout (module loadtest) : PostgreSQL embarqué, les trois services
+# lancés depuis leurs jars, scénarios navigation / commande / produit-chaud / mixte, et
+# stock-chaud (soustractions directes à gestion-stock, hors scénarios par défaut).
+# Aucun conteneur ni base installée ; les journaux des services vont dans loadtest/target/charge-logs.
+#
+# Sans réseau, une fois les dépendances en cache : MVN_OPTS=-o scripts/charge.sh
+#
+# Usage : scripts/charge.sh [options du banc...]
+#   ex. : scripts/charge.sh --duree=60s --concurrence=128 --scenarios=commande,produit-chaud
+#         scripts/charge.sh --args-stock="--asustec.stock.reservation-mode=ledger"
+#         scripts/charge.sh --produits=10 --produits-chauds=1 --scenarios=stock-chaud
+set -euo pipefail
+
+RACINE=$(cd "$(dirname "$0")/.." && pwd)
+MVN=${MVN:-mvn}
+MVN_OPTS=${MVN_OPTS:-}
+
+# les trois services dépendent du module commun
+(cd "$RACINE/commun" && $MVN -q -B $MVN_OPTS install -DskipTests)
+for module in gestion-commercial gestion-stock gestion-vente; do
+  (cd "$RACINE/$module" && $MVN -q -B $MVN_OPTS package -DskipTests)
+done
+(cd "$RACINE/loadtest" && $MVN -q -B $MVN_OPTS package)
+
+COMMIT=$(git -C "$RACINE" rev-parse --short HEAD 2>/dev/null || echo local)
+cd "$RACINE/loadtest"
+java -jar target/loadtest.jar --racine="$RACINE" --sortie="target/charge-$COMMIT.json" "$@"
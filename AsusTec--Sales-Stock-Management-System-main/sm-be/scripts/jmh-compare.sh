@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Compare deux fichiers de résultats JMH (JSON) : score de référence, score nouveau, écart.
+# Un écart positif est un ralentissement pour les benchmarks en temps moyen.
+#
+# Usage : scripts/jmh-compare.sh benchmarks/resultats/<avant>.json benchmarks/resultats/<après>.json
+set -euo pipefail
+
+python3 - "$1" "$2" <<'PY'
+import json, sys
+
+def charger(chemin):
+    scores = {}
+    for r in json.load(open(chemin)):
+        params = ",".join(f"{k}={v}" for k, v in sorted(r.get("params", {}).items()))
+        cle = r["benchmark"].rsplit(".", 2)[-2] + "." + r["benchmark"].rsplit(".", 1)[-1]
+        if params:
+            cle += " [" + params + "]"
+        m = r["primaryMetric"]
+        scores[cle] = (m["score"], m["scoreError"], m["scoreUnit"])
+    return scores
+
+avant, apres = charger(sys.argv[1]), charger(sys.argv[2])
+print(f"{'benchmark':70} {'avant':>14} {'après':>14} {'écart':>8}")
+for cle in sorted(set(avant) | set(apres)):
+    a, b = avant.get(cle), apres.get(cle)
+    if a is None or b is None:
+        print(f"{cle:70} {'-' if a is None else f'{a[0]:.3f}':>14} {'-' if b is None else f'{b[0]:.3f}':>14}")
+        continue
+    ecart = (b[0] - a[0]) / a[0] * 100 if a[0] else 0.0
+    print(f"{cle:70} {a[0]:>10.3f} {a[2]:>3} {b[0]:>10.3f} {b[2]:>3} {ecart:>+7.1f}%")
+PY
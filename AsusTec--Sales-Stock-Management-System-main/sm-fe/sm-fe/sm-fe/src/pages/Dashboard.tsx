@@ -26,31 +26,26 @@ import { API, apiFetch } from "../lib/api";
 // =======================
 // Endpoints
 // =======================
-const COMMERCIAL_URL = `${API.commercial}/api/commercial/produits`;
-const STOCK_URL = `${API.stock}/api/stock/produits`;
-const SALES_ORDERS_URL = `${API.vente}/api/ventes/commandes`;
+// Agrégé côté gestion-vente : une seule petite réponse au lieu des trois listes complètes
+const DASHBOARD_URL = `${API.vente}/api/ventes/dashboard?mois=6`;
 
 // =======================
 // Types (tolérants)
 // =======================
-type CommercialProduct = {
-  codepdt: number;
-  nompdt: string;
-  prixpdt: number;
+type DashboardMonth = {
+  mois: string; // "2025-06"
+  commandes: number;
+  quantite: number;
+  chiffreAffaires: number;
 };
 
-type StockItem = {
-  codepdt: number;
-  qtepdt?: number;
-  qteStock?: number;
-};
-
-type SaleOrder = {
-  codecmd: string | number;
-  client: string;
-  codepdt: string | number;
-  qtecmd: number;
-  datecmd: string;
+type DashboardResponse = {
+  mois: DashboardMonth[];
+  nbProduitsCatalogue: number | null;
+  stockConnu: boolean;
+  qteStockTotale: number | null;
+  nbStockBas: number | null;
+  seuil: number | null;
 };
 
 type ChartRow = { month: string; orders: number; revenue: number };
@@ -107,9 +102,7 @@ export default function Dashboard() {
   const [refreshing, setRefreshing] = useState(false);
   const [error, setError] = useState("");
 
-  const [products, setProducts] = useState<CommercialProduct[]>([]);
-  const [stocks, setStocks] = useState<StockItem[]>([]);
-  const [orders, setOrders] = useState<SaleOrder[]>([]);
+  const [dashboard, setDashboard] = useState<DashboardResponse | null>(null);
   const [lastUpdated, setLastUpdated] = useState<Date | null>(null);
 
   const [chartData, setChartData] = useState<ChartRow[]>(() =>
@@ -121,68 +114,34 @@ export default function Dashboard() {
     isRefresh ? setRefreshing(true) : setLoading(true);
 
     try {
-      const [pJson, sJson, oJson] = await Promise.all([
-        apiFetch<any[]>(COMMERCIAL_URL),
-        apiFetch<any[]>(STOCK_URL),
-        apiFetch<any[]>(SALES_ORDERS_URL),
-      ]);
-
-      const normalizedProducts: CommercialProduct[] = (pJson || []).map((x) => ({
-        codepdt: toInt(x.codepdt),
-        nompdt: String(x.nompdt ?? ""),
-        prixpdt: toNum(x.prixpdt),
-      }));
-
-      const normalizedStocks: StockItem[] = (sJson || []).map((x) => ({
-        codepdt: toInt(x.codepdt),
-        qtepdt: x.qtepdt !== undefined ? toInt(x.qtepdt) : undefined,
-        qteStock: x.qteStock !== undefined ? toInt(x.qteStock) : undefined,
-      }));
-
-      const normalizedOrders: SaleOrder[] = (oJson || []).map((x) => ({
-        codecmd: x.codecmd,
-        client: String(x.client ?? ""),
-        codepdt: x.codepdt,
-        qtecmd: toInt(x.qtecmd),
-        datecmd: String(x.datecmd ?? ""),
-      }));
-
-      setProducts(normalizedProducts);
-      setStocks(normalizedStocks);
-      setOrders(normalizedOrders);
-
+      const json = await apiFetch<any>(DASHBOARD_URL);
+
+      const normalized: DashboardResponse = {
+        mois: (json?.mois || []).map((x: any) => ({
+          mois: String(x.mois ?? ""),
+          commandes: toInt(x.commandes),
+          quantite: toInt(x.quantite),
+          chiffreAffaires: toNum(x.chiffreAffaires),
+        })),
+        nbProduitsCatalogue:
+          json?.nbProduitsCatalogue != null ? toInt(json.nbProduitsCatalogue) : null,
+        stockConnu: Boolean(json?.stockConnu),
+        qteStockTotale:
+          json?.qteStockTotale != null ? toInt(json.qteStockTotale) : null,
+        nbStockBas: json?.nbStockBas != null ? toInt(json.nbStockBas) : null,
+        seuil: json?.seuil != null ? toInt(json.seuil) : null,
+      };
+
+      setDashboard(normalized);
       setLastUpdated(new Date());
-      const months = last6Months();
-      const priceMap = new Map<number, number>();
-      normalizedProducts.forEach((p) =>
-        priceMap.set(p.codepdt, toNum(p.prixpdt)),
-      );
-
-      const buckets = new Map<string, { orders: number; revenue: number }>();
-      months.forEach((m) => buckets.set(m.key, { orders: 0, revenue: 0 }));
-
-      for (const o of normalizedOrders) {
-        const d = new Date(o.datecmd);
-        if (Number.isNaN(d.getTime())) continue;
-
-        const k = monthKey(d);
-        if (!buckets.has(k)) continue;
-
-        const pid = toInt(o.codepdt);
-        const price = priceMap.get(pid) ?? 0;
-        const qty = toInt(o.qtecmd);
 
-        const b = buckets.get(k)!;
-        b.orders += 1;
-        b.revenue += price * qty;
-      }
-
-      const computedChart: ChartRow[] = months.map((m) => {
-        const b = buckets.get(m.key)!;
+      const byMonth = new Map(normalized.mois.map((m) => [m.mois, m]));
+      const computedChart: ChartRow[] = last6Months().map((m) => {
+        const b = byMonth.get(m.key);
         return {
           month: m.label,
-          orders: Number.isFinite(b.orders) ? b.orders : 0,
-          revenue: Number.isFinite(b.revenue) ? Math.round(b.revenue) : 0,
+          orders: b ? b.commandes : 0,
+          revenue: b ? Math.round(b.chiffreAffaires) : 0,
         };
       });
 
@@ -218,39 +177,17 @@ export default function Dashboard() {
   // =======================
   // KPIs live
   // =======================
-  const totalProducts = products.length;
-
-  const totalStockQty = useMemo(() => {
-    return stocks.reduce((acc, s) => {
-      const q = s.qteStock !== undefined ? s.qteStock : s.qtepdt ?? 0;
-      return acc + toInt(q);
-    }, 0);
-  }, [stocks]);
-
   const thisMonthKey = monthKey(new Date());
 
-  const ordersThisMonth = useMemo(() => {
-    return orders.filter((o) => {
-      const d = new Date(o.datecmd);
-      if (Number.isNaN(d.getTime())) return false;
-      return monthKey(d) === thisMonthKey;
-    });
-  }, [orders, thisMonthKey]);
-
-  const numberOfCommandsThisMonth = ordersThisMonth.length;
-
-  const revenueThisMonth = useMemo(() => {
-    const priceMap = new Map<number, number>();
-    products.forEach((p) => priceMap.set(p.codepdt, toNum(p.prixpdt)));
+  const thisMonth = useMemo(
+    () => dashboard?.mois.find((m) => m.mois === thisMonthKey),
+    [dashboard, thisMonthKey],
+  );
 
-    return ordersThisMonth.reduce((acc, o) => {
-      const pid = toInt(o.codepdt);
-      const price = priceMap.get(pid) ?? 0;
-      const qty = toInt(o.qtecmd);
-      const v = price * qty;
-      return acc + (Number.isFinite(v) ? v : 0);
-    }, 0);
-  }, [ordersThisMonth, products]);
+  const totalProducts = dashboard?.nbProduitsCatalogue ?? 0;
+  const totalStockQty = dashboard?.qteStockTotale ?? 0;
+  const numberOfCommandsThisMonth = thisMonth?.commandes ?? 0;
+  const revenueThisMonth = thisMonth?.chiffreAffaires ?? 0;
 
   const kpis = [
     {
@@ -263,11 +200,14 @@ export default function Dashboard() {
     },
     {
       title: "Total Stock Quantity",
-      value: fmtNumber(totalStockQty),
+      value: dashboard && !dashboard.stockConnu ? "—" : fmtNumber(totalStockQty),
       icon: Archive,
       color: "bg-green-600",
       trend: "Stock",
-      sub: "Live sync",
+      sub:
+        dashboard?.nbStockBas != null
+          ? `${fmtNumber(dashboard.nbStockBas)} products at or below ${dashboard.seuil}`
+          : "Live sync",
     },
     {
       title: "Number of Commands (This Month)",